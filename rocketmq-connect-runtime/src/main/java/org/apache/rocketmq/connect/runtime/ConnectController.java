@@ -36,6 +36,8 @@ import org.apache.rocketmq.connect.runtime.service.PositionManagementService;
 import org.apache.rocketmq.connect.runtime.service.PositionManagementServiceImpl;
 import org.apache.rocketmq.connect.runtime.service.RebalanceImpl;
 import org.apache.rocketmq.connect.runtime.service.RebalanceService;
+import org.apache.rocketmq.connect.runtime.service.SchemaRegistryService;
+import org.apache.rocketmq.connect.runtime.service.SchemaRegistryServiceImpl;
 import org.apache.rocketmq.connect.runtime.service.strategy.AllocateConnAndTaskStrategy;
 import org.apache.rocketmq.connect.runtime.stats.ConnectStatsManager;
 import org.apache.rocketmq.connect.runtime.stats.ConnectStatsService;
@@ -76,6 +78,11 @@ public class ConnectController {
      */
     private final ClusterManagementService clusterManagementService;
 
+    /**
+     * Schema registry for source and sink tasks, null if it is not enabled.
+     */
+    private final SchemaRegistryService schemaRegistryService;
+
     /**
      * A worker to schedule all connectors and tasks assigned to current process.
      */
@@ -128,6 +135,7 @@ public class ConnectController {
         this.configManagementService = new ConfigManagementServiceImpl(connectConfig, plugin);
         this.positionManagementService = new PositionManagementServiceImpl(connectConfig);
         this.offsetManagementService = new OffsetManagementServiceImpl(connectConfig);
+        this.schemaRegistryService = connectConfig.isSchemaRegistryEnable() ? new SchemaRegistryServiceImpl(connectConfig) : null;
         this.worker = new Worker(connectConfig, positionManagementService, configManagementService, plugin, this);
         AllocateConnAndTaskStrategy strategy = ConnectUtil.initAllocateConnAndTaskStrategy(connectConfig);
         this.rebalanceImpl = new RebalanceImpl(worker, configManagementService, clusterManagementService, strategy, this);
@@ -145,6 +153,9 @@ public class ConnectController {
         configManagementService.start();
         positionManagementService.start();
         offsetManagementService.start();
+        if (schemaRegistryService != null) {
+            schemaRegistryService.start();
+        }
         worker.start();
         rebalanceService.start();
         connectStatsService.start();
@@ -178,6 +189,18 @@ public class ConnectController {
                 log.error("schedule persist offset error.", e);
             }
         }, 1000, this.connectConfig.getOffsetPersistInterval(), TimeUnit.MILLISECONDS);
+
+        // Persist schemas registered by source tasks.
+        if (schemaRegistryService != null) {
+            this.scheduledExecutorService.scheduleAtFixedRate(() -> {
+
+                try {
+                    ConnectController.this.schemaRegistryService.persist();
+                } catch (Exception e) {
+                    log.error("schedule persist schema error.", e);
+                }
+            }, 1000, this.connectConfig.getConfigPersistInterval(), TimeUnit.MILLISECONDS);
+        }
     }
 
     public void shutdown() {
@@ -198,6 +221,10 @@ public class ConnectController {
             offsetManagementService.stop();
         }
 
+        if (schemaRegistryService != null) {
+            schemaRegistryService.stop();
+        }
+
         if (clusterManagementService != null) {
             clusterManagementService.stop();
         }
@@ -230,6 +257,10 @@ public class ConnectController {
         return clusterManagementService;
     }
 
+    public SchemaRegistryService getSchemaRegistryService() {
+        return schemaRegistryService;
+    }
+
     public Worker getWorker() {
         return worker;
     }
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.rocketmq.connect.runtime.common;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Immutable offset map of a message queue. It holds the only entry {@code queueOffset} as a primitive long and
+ * formats the string value only when it is read.
+ */
+public class QueueOffsetMap extends AbstractMap<String, String> {
+
+    public static final String QUEUE_OFFSET = "queueOffset";
+
+    private final long queueOffset;
+
+    public QueueOffsetMap(long queueOffset) {
+        this.queueOffset = queueOffset;
+    }
+
+    public long getQueueOffset() {
+        return queueOffset;
+    }
+
+    @Override
+    public String get(Object key) {
+        return QUEUE_OFFSET.equals(key) ? Long.toString(queueOffset) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return QUEUE_OFFSET.equals(key);
+    }
+
+    @Override
+    public int size() {
+        return 1;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return Collections.singleton(new SimpleImmutableEntry<>(QUEUE_OFFSET, Long.toString(queueOffset)));
+    }
+}
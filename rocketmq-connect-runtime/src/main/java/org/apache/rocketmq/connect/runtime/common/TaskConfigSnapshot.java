@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.rocketmq.connect.runtime.common;
+
+import io.openmessaging.KeyValue;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import org.apache.rocketmq.connect.runtime.config.RuntimeConfigDefine;
+
+/**
+ * Immutable snapshot of a task config taken at task creation. Numeric values, the ids and the hash are all computed
+ * up front, so reads are plain lookups in immutable maps and never reparse strings. The hash equals the hash of the
+ * {@link ConnectKeyValue} it was taken from.
+ */
+public final class TaskConfigSnapshot implements KeyValue {
+
+    private final Map<String, String> properties;
+
+    private final Map<String, Integer> intValues;
+
+    private final Map<String, Long> longValues;
+
+    private final Map<String, Double> doubleValues;
+
+    private final String taskId;
+
+    private final String connectorId;
+
+    private final int hash;
+
+    public TaskConfigSnapshot(ConnectKeyValue keyValue) {
+        this.properties = Collections.unmodifiableMap(new HashMap<>(keyValue.getProperties()));
+        this.taskId = properties.get(RuntimeConfigDefine.TASK_ID);
+        this.connectorId = properties.get(RuntimeConfigDefine.CONNECTOR_ID);
+        this.hash = properties.hashCode();
+        Map<String, Integer> ints = new HashMap<>();
+        Map<String, Long> longs = new HashMap<>();
+        Map<String, Double> doubles = new HashMap<>();
+        for (Map.Entry<String, String> entry : properties.entrySet()) {
+            Long longValue = parseLong(entry.getValue());
+            if (null != longValue) {
+                longs.put(entry.getKey(), longValue);
+                if (longValue >= Integer.MIN_VALUE && longValue <= Integer.MAX_VALUE) {
+                    ints.put(entry.getKey(), longValue.intValue());
+                }
+            }
+            Double doubleValue = parseDouble(entry.getValue());
+            if (null != doubleValue) {
+                doubles.put(entry.getKey(), doubleValue);
+            }
+        }
+        this.intValues = Collections.unmodifiableMap(ints);
+        this.longValues = Collections.unmodifiableMap(longs);
+        this.doubleValues = Collections.unmodifiableMap(doubles);
+    }
+
+    private static Long parseLong(String value) {
+        if (null == value || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Double parseDouble(String value) {
+        if (null == value || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Double.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private <T> T numberOf(Map<String, T> values, String key, T defaultValue) {
+        T value = values.get(key);
+        if (null != value) {
+            return value;
+        }
+        if (properties.containsKey(key)) {
+            throw new NumberFormatException("Task config " + key + " is not a valid number: " + properties.get(key));
+        }
+        return defaultValue;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public String getConnectorId() {
+        return connectorId;
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = properties.get(key);
+        return null == value ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    @Override
+    public KeyValue put(String key, int value) {
+        throw new UnsupportedOperationException("Task config snapshot is immutable");
+    }
+
+    @Override
+    public KeyValue put(String key, long value) {
+        throw new UnsupportedOperationException("Task config snapshot is immutable");
+    }
+
+    @Override
+    public KeyValue put(String key, double value) {
+        throw new UnsupportedOperationException("Task config snapshot is immutable");
+    }
+
+    @Override
+    public KeyValue put(String key, String value) {
+        throw new UnsupportedOperationException("Task config snapshot is immutable");
+    }
+
+    @Override
+    public int getInt(String key) {
+        return getInt(key, 0);
+    }
+
+    @Override
+    public int getInt(String key, int defaultValue) {
+        return numberOf(intValues, key, defaultValue);
+    }
+
+    @Override
+    public long getLong(String key) {
+        return getLong(key, 0);
+    }
+
+    @Override
+    public long getLong(String key, long defaultValue) {
+        return numberOf(longValues, key, defaultValue);
+    }
+
+    @Override
+    public double getDouble(String key) {
+        return getDouble(key, 0);
+    }
+
+    @Override
+    public double getDouble(String key, double defaultValue) {
+        return numberOf(doubleValues, key, defaultValue);
+    }
+
+    @Override
+    public String getString(String key) {
+        return properties.get(key);
+    }
+
+    @Override
+    public String getString(String key, String defaultValue) {
+        return properties.containsKey(key) ? properties.get(key) : defaultValue;
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return properties.keySet();
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return properties.containsKey(key);
+    }
+
+    public Map<String, String> getProperties() {
+        return properties;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof TaskConfigSnapshot)) {
+            return false;
+        }
+        TaskConfigSnapshot snapshot = (TaskConfigSnapshot) obj;
+        return hash == snapshot.hash && properties.equals(snapshot.properties);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskConfigSnapshot{" +
+            "properties=" + properties +
+            '}';
+    }
+}
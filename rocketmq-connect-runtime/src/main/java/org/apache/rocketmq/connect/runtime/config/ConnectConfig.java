@@ -92,6 +92,80 @@ public class ConnectConfig {
      */
     private String offsetStoreTopic = "connector-offset-topic";
 
+    /**
+     * Whether the worker runs the schema registry, tasks can only register or resolve schema ids if it does.
+     */
+    private boolean schemaRegistryEnable = false;
+
+    /**
+     * Default topic to send/consume schema registry message.
+     */
+    private String schemaStoreTopic = "connector-schema-topic";
+
+    /**
+     * Max time a sink task waits for an unknown schema id to arrive from the schema topic.
+     */
+    private long schemaResolveTimeoutMillis = 3000;
+
+    /**
+     * Threads running the tasks, "platform" for a cached thread pool or "virtual" for one virtual thread per task,
+     * virtual falls back to platform on a JVM without virtual threads.
+     */
+    private String taskExecutorMode = "platform";
+
+    /**
+     * Threads creating new tasks and cleaning up stopped tasks in parallel.
+     */
+    private int taskLifecycleThreadNums = 8;
+
+    /**
+     * Max summaries of terminated tasks kept for the REST API.
+     */
+    private int taskHistoryMaxNums = 1000;
+
+    /**
+     * Max time a summary of a terminated task is kept.
+     */
+    private long taskHistoryRetentionMillis = 60 * 60 * 1000;
+
+    /**
+     * Backing store of the config, position and offset stores, "file" rewrites a json file on every persist and "log"
+     * appends changed entries to a log.
+     */
+    private String keyValueStoreType = "file";
+
+    /**
+     * Whether the log store forces appended entries to disk on every persist.
+     */
+    private boolean logStoreSyncFlush = true;
+
+    /**
+     * Size of the log after which the log store compacts it into a new snapshot.
+     */
+    private long logStoreCompactionThresholdBytes = 16 * 1024 * 1024;
+
+    /**
+     * Whether the position and offset stores keep entries in fixed-size slots of a memory-mapped file.
+     */
+    private boolean mappedPositionStoreEnable = false;
+
+    /**
+     * Max bytes of a serialized partition and offset kept in a slot of the mapped position store, larger entries are
+     * kept in an overflow log store.
+     */
+    private int mappedPositionSlotBytes = 512;
+
+    /**
+     * Encoding of positions and offsets in stores and sync messages, "json" or "binary". Json data is still read after
+     * switching to binary, but workers of older versions can not read binary sync messages.
+     */
+    private String positionCodec = "json";
+
+    /**
+     * Whether position and offset sync messages are compressed, workers of older versions can not read them.
+     */
+    private boolean positionSyncCompressEnable = false;
+
     /**
      * Http port for REST API.
      */
@@ -290,6 +364,118 @@ public class ConnectConfig {
         this.offsetStoreTopic = offsetStoreTopic;
     }
 
+    public boolean isSchemaRegistryEnable() {
+        return schemaRegistryEnable;
+    }
+
+    public void setSchemaRegistryEnable(boolean schemaRegistryEnable) {
+        this.schemaRegistryEnable = schemaRegistryEnable;
+    }
+
+    public String getSchemaStoreTopic() {
+        return schemaStoreTopic;
+    }
+
+    public void setSchemaStoreTopic(String schemaStoreTopic) {
+        this.schemaStoreTopic = schemaStoreTopic;
+    }
+
+    public long getSchemaResolveTimeoutMillis() {
+        return schemaResolveTimeoutMillis;
+    }
+
+    public void setSchemaResolveTimeoutMillis(long schemaResolveTimeoutMillis) {
+        this.schemaResolveTimeoutMillis = schemaResolveTimeoutMillis;
+    }
+
+    public String getTaskExecutorMode() {
+        return taskExecutorMode;
+    }
+
+    public void setTaskExecutorMode(String taskExecutorMode) {
+        this.taskExecutorMode = taskExecutorMode;
+    }
+
+    public int getTaskLifecycleThreadNums() {
+        return taskLifecycleThreadNums;
+    }
+
+    public void setTaskLifecycleThreadNums(int taskLifecycleThreadNums) {
+        this.taskLifecycleThreadNums = taskLifecycleThreadNums;
+    }
+
+    public int getTaskHistoryMaxNums() {
+        return taskHistoryMaxNums;
+    }
+
+    public void setTaskHistoryMaxNums(int taskHistoryMaxNums) {
+        this.taskHistoryMaxNums = taskHistoryMaxNums;
+    }
+
+    public long getTaskHistoryRetentionMillis() {
+        return taskHistoryRetentionMillis;
+    }
+
+    public void setTaskHistoryRetentionMillis(long taskHistoryRetentionMillis) {
+        this.taskHistoryRetentionMillis = taskHistoryRetentionMillis;
+    }
+
+    public String getKeyValueStoreType() {
+        return keyValueStoreType;
+    }
+
+    public void setKeyValueStoreType(String keyValueStoreType) {
+        this.keyValueStoreType = keyValueStoreType;
+    }
+
+    public boolean isLogStoreSyncFlush() {
+        return logStoreSyncFlush;
+    }
+
+    public void setLogStoreSyncFlush(boolean logStoreSyncFlush) {
+        this.logStoreSyncFlush = logStoreSyncFlush;
+    }
+
+    public long getLogStoreCompactionThresholdBytes() {
+        return logStoreCompactionThresholdBytes;
+    }
+
+    public void setLogStoreCompactionThresholdBytes(long logStoreCompactionThresholdBytes) {
+        this.logStoreCompactionThresholdBytes = logStoreCompactionThresholdBytes;
+    }
+
+    public boolean isMappedPositionStoreEnable() {
+        return mappedPositionStoreEnable;
+    }
+
+    public void setMappedPositionStoreEnable(boolean mappedPositionStoreEnable) {
+        this.mappedPositionStoreEnable = mappedPositionStoreEnable;
+    }
+
+    public int getMappedPositionSlotBytes() {
+        return mappedPositionSlotBytes;
+    }
+
+    public void setMappedPositionSlotBytes(int mappedPositionSlotBytes) {
+        this.mappedPositionSlotBytes = mappedPositionSlotBytes;
+    }
+
+    public String getPositionCodec() {
+        return positionCodec;
+    }
+
+    public void setPositionCodec(String positionCodec) {
+        this.positionCodec = positionCodec;
+    }
+
+    public boolean isPositionSyncCompressEnable() {
+        return positionSyncCompressEnable;
+    }
+
+    public void setPositionSyncCompressEnable(boolean positionSyncCompressEnable) {
+        this.positionSyncCompressEnable = positionSyncCompressEnable;
+    }
+
     public String getConnectClusterId() {
         return connectClusterId;
     }
@@ -372,6 +558,20 @@ public class ConnectConfig {
             ", configStoreTopic='" + configStoreTopic + '\'' +
             ", positionStoreTopic='" + positionStoreTopic + '\'' +
             ", offsetStoreTopic='" + offsetStoreTopic + '\'' +
+            ", schemaRegistryEnable=" + schemaRegistryEnable +
+            ", schemaStoreTopic='" + schemaStoreTopic + '\'' +
+            ", schemaResolveTimeoutMillis=" + schemaResolveTimeoutMillis +
+            ", taskExecutorMode='" + taskExecutorMode + '\'' +
+            ", taskLifecycleThreadNums=" + taskLifecycleThreadNums +
+            ", taskHistoryMaxNums=" + taskHistoryMaxNums +
+            ", taskHistoryRetentionMillis=" + taskHistoryRetentionMillis +
+            ", keyValueStoreType='" + keyValueStoreType + '\'' +
+            ", logStoreSyncFlush=" + logStoreSyncFlush +
+            ", logStoreCompactionThresholdBytes=" + logStoreCompactionThresholdBytes +
+            ", mappedPositionStoreEnable=" + mappedPositionStoreEnable +
+            ", mappedPositionSlotBytes=" + mappedPositionSlotBytes +
+            ", positionCodec='" + positionCodec + '\'' +
+            ", positionSyncCompressEnable=" + positionSyncCompressEnable +
             ", httpPort=" + httpPort +
             ", positionPersistInterval=" + positionPersistInterval +
             ", offsetPersistInterval=" + offsetPersistInterval +
@@ -53,6 +53,11 @@ public class RuntimeConfigDefine {
      */
     public static final String UPDATE_TIMESTAMP = "update-timestamp";
 
+    /**
+     * Version of a source position, used to order position updates synchronized between workers.
+     */
+    public static final String POSITION_VERSION = "position-version";
+
     /**
      * Whether the current config is deleted.
      */
@@ -91,6 +96,8 @@ public class RuntimeConfigDefine {
 
     public static final String CONNECT_SCHEMA = "connect-schema";
 
+    public static final String CONNECT_SCHEMA_ID = "connect-schema-id";
+
     public static final String TRANSFORMS = "transforms";
 
     /**
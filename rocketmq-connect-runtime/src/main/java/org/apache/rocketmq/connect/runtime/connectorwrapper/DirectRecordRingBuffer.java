@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.rocketmq.connect.runtime.connectorwrapper;
+
+import io.openmessaging.connector.api.data.ConnectRecord;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded ring buffer of records between the source poll thread and the sink put thread of a direct task. The slots
+ * are allocated up front, a full buffer blocks the source side.
+ */
+public class DirectRecordRingBuffer {
+
+    private final ConnectRecord[] slots;
+
+    private int head;
+
+    private int size;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Condition notFull = lock.newCondition();
+
+    public DirectRecordRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Ring buffer capacity " + capacity + " must be positive");
+        }
+        this.slots = new ConnectRecord[capacity];
+    }
+
+    /**
+     * Put a record, waiting for free slots while the buffer is full.
+     *
+     * @return false if the buffer is still full after the timeout
+     */
+    public boolean put(ConnectRecord record, long timeoutMillis) throws InterruptedException {
+        long waitNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        lock.lockInterruptibly();
+        try {
+            while (size == slots.length) {
+                if (waitNanos <= 0) {
+                    return false;
+                }
+                waitNanos = notFull.awaitNanos(waitNanos);
+            }
+            slots[(head + size) % slots.length] = record;
+            size++;
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Move up to max records to the list, waiting for records while the buffer is empty.
+     *
+     * @return the count of records moved, 0 if the buffer is still empty after the timeout
+     */
+    public int drainTo(List<ConnectRecord> records, int max, long timeoutMillis) throws InterruptedException {
+        long waitNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                if (waitNanos <= 0) {
+                    return 0;
+                }
+                waitNanos = notEmpty.awaitNanos(waitNanos);
+            }
+            int count = Math.min(max, size);
+            for (int i = 0; i < count; i++) {
+                records.add(slots[head]);
+                slots[head] = null;
+                head = (head + 1) % slots.length;
+            }
+            size -= count;
+            notFull.signal();
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
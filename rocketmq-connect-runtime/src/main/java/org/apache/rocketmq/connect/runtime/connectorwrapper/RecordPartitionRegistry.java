@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.rocketmq.connect.runtime.connectorwrapper;
+
+import io.openmessaging.connector.api.data.RecordPartition;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.rocketmq.common.message.MessageQueue;
+
+import static org.apache.rocketmq.connect.runtime.connectorwrapper.WorkerSinkTask.BROKER_NAME;
+import static org.apache.rocketmq.connect.runtime.connectorwrapper.WorkerSinkTask.QUEUE_ID;
+import static org.apache.rocketmq.connect.runtime.connectorwrapper.WorkerSinkTask.TOPIC;
+
+/**
+ * Interns one immutable {@link RecordPartition} per message queue of a sink task. The records and offset commits
+ * of a queue then share it instead of building a new partition map each time.
+ */
+public class RecordPartitionRegistry {
+
+    private final ConcurrentHashMap<MessageQueue, RecordPartition> recordPartitions = new ConcurrentHashMap<>(256);
+
+    public RecordPartition get(MessageQueue messageQueue) {
+        RecordPartition recordPartition = recordPartitions.get(messageQueue);
+        if (null != recordPartition) {
+            return recordPartition;
+        }
+        return recordPartitions.computeIfAbsent(messageQueue, RecordPartitionRegistry::newRecordPartition);
+    }
+
+    /**
+     * Forget the queues of a topic, called when the queues of the topic are rebalanced.
+     */
+    public void removeTopic(String topic) {
+        recordPartitions.keySet().removeIf(messageQueue -> messageQueue.getTopic().equals(topic));
+    }
+
+    private static RecordPartition newRecordPartition(MessageQueue messageQueue) {
+        Map<String, String> partition = new HashMap<>(4);
+        partition.put(TOPIC, messageQueue.getTopic());
+        partition.put(BROKER_NAME, messageQueue.getBrokerName());
+        partition.put(QUEUE_ID, String.valueOf(messageQueue.getQueueId()));
+        return new RecordPartition(Collections.unmodifiableMap(partition));
+    }
+}
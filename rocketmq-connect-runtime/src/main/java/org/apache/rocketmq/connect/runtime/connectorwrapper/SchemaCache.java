@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.rocketmq.connect.runtime.connectorwrapper;
+
+import com.alibaba.fastjson.JSON;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.openmessaging.connector.api.data.Schema;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of the schemas parsed from the {@code connect-schema} message property, keyed by the raw property
+ * string or by the {@code connect-schema-id} property, and evicted least recently used first. A cached schema is
+ * shared by every record carrying the same property, so it must not be modified.
+ */
+public class SchemaCache {
+
+    private final Cache<String, Schema> cache;
+
+    public SchemaCache(long maximumSize) {
+        this.cache = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+    }
+
+    public Schema get(String connectSchema) {
+        return get(connectSchema, Function.identity());
+    }
+
+    /**
+     * Get the schema cached under the key, or parse the schema text loaded for the key on a miss.
+     *
+     * @param key raw schema text or schema id
+     * @param schemaLoader loads the schema text of the key, may return null if unknown
+     * @return the shared schema, null if the loader returns null
+     */
+    public Schema get(String key, Function<String, String> schemaLoader) {
+        Schema schema = cache.getIfPresent(key);
+        if (null == schema) {
+            String schemaText = schemaLoader.apply(key);
+            schema = null == schemaText ? null : JSON.parseObject(schemaText, Schema.class);
+            if (null != schema) {
+                cache.put(key, schema);
+            }
+        }
+        return schema;
+    }
+
+    public long hitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long missCount() {
+        return cache.stats().missCount();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+}
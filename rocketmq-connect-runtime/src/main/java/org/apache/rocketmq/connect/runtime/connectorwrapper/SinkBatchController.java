@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.rocketmq.connect.runtime.connectorwrapper;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.rocketmq.common.message.MessageQueue;
+
+/**
+ * Adjusts the pull size of each queue and the put batch size of a sink task. The pull size of a queue grows while
+ * pulls fill it and the queue has backlog, and shrinks once the queue has caught up. The pull round trip is not
+ * used, it includes the time a long poll is suspended on the broker. The put batch size grows while put stays under
+ * the target latency and shrinks when put gets slow. All sizes stay within the configured record and byte ceilings.
+ */
+public class SinkBatchController {
+
+    private final int minRecords;
+
+    private final int maxRecords;
+
+    private final long maxBytes;
+
+    private final long targetPutLatencyMs;
+
+    private final int initialRecords;
+
+    private final Map<MessageQueue, Integer> pullBatchSizes = new ConcurrentHashMap<>();
+
+    private volatile int putBatchSize;
+
+    private volatile long avgPutRT = 0;
+
+    public SinkBatchController(int minRecords, int maxRecords, long maxBytes, long targetPutLatencyMs,
+        int initialRecords) {
+        if (minRecords <= 0 || maxRecords < minRecords) {
+            throw new IllegalArgumentException("invalid batch records range [" + minRecords + ", " + maxRecords + "]");
+        }
+        this.minRecords = minRecords;
+        this.maxRecords = maxRecords;
+        this.maxBytes = maxBytes;
+        this.targetPutLatencyMs = targetPutLatencyMs;
+        this.initialRecords = clamp(initialRecords);
+        this.putBatchSize = clamp(initialRecords);
+    }
+
+    /**
+     * Observe a pull result of a queue.
+     *
+     * @param messageQueue the pulled queue
+     * @param found messages found by the pull
+     * @param backlog messages left in the queue after the pull
+     */
+    public void onPull(MessageQueue messageQueue, int found, long backlog) {
+        pullBatchSizes.compute(messageQueue, (queue, size) -> {
+            int pullBatchSize = null == size ? initialRecords : size;
+            if (found >= pullBatchSize && backlog > 0) {
+                return clamp(pullBatchSize * 2);
+            } else if (backlog <= 0 && found < pullBatchSize / 2) {
+                return clamp(pullBatchSize / 2);
+            }
+            return pullBatchSize;
+        });
+    }
+
+    /**
+     * Forget the pull sizes of the queues of a topic, after its queues were rebalanced.
+     */
+    public void removeTopic(String topic) {
+        pullBatchSizes.keySet().removeIf(messageQueue -> messageQueue.getTopic().equals(topic));
+    }
+
+    /**
+     * Observe a put call.
+     *
+     * @param records records handed to put
+     * @param putRT time spent in put
+     */
+    public void onPut(int records, long putRT) {
+        avgPutRT = average(avgPutRT, putRT);
+        if (avgPutRT > targetPutLatencyMs) {
+            putBatchSize = clamp(putBatchSize / 2);
+        } else if (records >= putBatchSize && avgPutRT < targetPutLatencyMs / 2) {
+            putBatchSize = clamp(putBatchSize * 2);
+        }
+    }
+
+    private int clamp(int records) {
+        return Math.max(minRecords, Math.min(maxRecords, records));
+    }
+
+    private static long average(long average, long sample) {
+        return average == 0 ? sample : (average * 3 + sample) / 4;
+    }
+
+    public int getPullBatchSize(MessageQueue messageQueue) {
+        return pullBatchSizes.getOrDefault(messageQueue, initialRecords);
+    }
+
+    public int getPutBatchSize() {
+        return putBatchSize;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getAvgPutRT() {
+        return avgPutRT;
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.rocketmq.connect.runtime.connectorwrapper;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.openmessaging.connector.api.component.task.sink.SinkTask;
+import io.openmessaging.connector.api.data.ConnectRecord;
+import io.openmessaging.connector.api.errors.ConnectException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.apache.rocketmq.connect.runtime.common.LoggerName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Delivery lanes of a sink task. Records are hashed into lanes by a key extension or by their partition, and every
+ * lane puts its records in order on its own thread, so records of one queue or key keep their order while the
+ * lanes write concurrently. The offsets of a delivery are handed back only after every lane has put its share, in
+ * dispatch order. Dispatch and completion are called by the task thread only.
+ */
+public class SinkDeliveryLanes {
+
+    private static final Logger log = LoggerFactory.getLogger(LoggerName.ROCKETMQ_RUNTIME);
+
+    private static final long SHUTDOWN_TIMEOUT_MS = 30 * 1000;
+
+    private final List<SinkTask> laneSinkTasks;
+
+    private final List<ExecutorService> laneExecutors;
+
+    private final String laneKey;
+
+    private final int maxPendingDeliveries;
+
+    private final BiConsumer<SinkTask, List<ConnectRecord>> putFunction;
+
+    private final Deque<PendingDelivery> pendingDeliveries = new ArrayDeque<>();
+
+    /**
+     * @param laneSinkTasks the sink task of every lane, the same instance may serve several lanes if its put is
+     * thread safe. Distinct instances share the task context of the sink task
+     * @param laneKey extension key to hash records by, records without it are hashed by their partition
+     * @param maxPendingDeliveries dispatch blocks while more deliveries than this are not completed
+     * @param putFunction puts records to the sink task of a lane
+     */
+    public SinkDeliveryLanes(List<SinkTask> laneSinkTasks, String laneKey, int maxPendingDeliveries,
+        String threadNamePrefix, BiConsumer<SinkTask, List<ConnectRecord>> putFunction) {
+        this.laneSinkTasks = laneSinkTasks;
+        this.laneKey = laneKey;
+        this.maxPendingDeliveries = maxPendingDeliveries;
+        this.putFunction = putFunction;
+        this.laneExecutors = new ArrayList<>(laneSinkTasks.size());
+        for (int i = 0; i < laneSinkTasks.size(); i++) {
+            laneExecutors.add(Executors.newSingleThreadExecutor(new DefaultThreadFactory(threadNamePrefix + i)));
+        }
+    }
+
+    public int laneOf(ConnectRecord record) {
+        Object hashKey = null;
+        if (StringUtils.isNotEmpty(laneKey) && null != record.getExtensions()) {
+            hashKey = record.getExtensions().getString(laneKey);
+        }
+        if (null == hashKey && null != record.getPosition()) {
+            hashKey = record.getPosition().getPartition();
+        }
+        if (null == hashKey) {
+            return 0;
+        }
+        return (hashKey.hashCode() & Integer.MAX_VALUE) % laneSinkTasks.size();
+    }
+
+    /**
+     * Split the records into lanes and put them asynchronously.
+     *
+     * @param offsets next offsets of the queues the records came from, handed back by {@link #pollCompleted()}
+     */
+    public void dispatch(List<ConnectRecord> records, Map<MessageQueue, Long> offsets) throws InterruptedException {
+        List<List<ConnectRecord>> laneRecords = new ArrayList<>(laneSinkTasks.size());
+        for (int i = 0; i < laneSinkTasks.size(); i++) {
+            laneRecords.add(new ArrayList<>());
+        }
+        for (ConnectRecord record : records) {
+            laneRecords.get(laneOf(record)).add(record);
+        }
+        List<Future<?>> futures = new ArrayList<>(laneSinkTasks.size());
+        for (int i = 0; i < laneSinkTasks.size(); i++) {
+            List<ConnectRecord> currentLaneRecords = laneRecords.get(i);
+            if (currentLaneRecords.isEmpty()) {
+                continue;
+            }
+            SinkTask laneSinkTask = laneSinkTasks.get(i);
+            futures.add(laneExecutors.get(i).submit(() -> putFunction.accept(laneSinkTask, currentLaneRecords)));
+        }
+        pendingDeliveries.addLast(new PendingDelivery(new HashMap<>(offsets), futures));
+        int overflow = pendingDeliveries.size() - maxPendingDeliveries;
+        for (PendingDelivery pendingDelivery : pendingDeliveries) {
+            if (overflow-- <= 0) {
+                break;
+            }
+            pendingDelivery.await();
+        }
+    }
+
+    /**
+     * Get the offsets of the deliveries completed by every lane, in dispatch order.
+     *
+     * @throws ConnectException or the exception thrown by put, if the oldest delivery failed. All pending deliveries
+     * are dropped then, their records have to be pulled again.
+     */
+    public List<Map<MessageQueue, Long>> pollCompleted() {
+        List<Map<MessageQueue, Long>> completed = new ArrayList<>();
+        while (!pendingDeliveries.isEmpty() && pendingDeliveries.peekFirst().isDone()) {
+            PendingDelivery pendingDelivery = pendingDeliveries.pollFirst();
+            if (pendingDelivery.isFailed()) {
+                abortPendingDeliveries();
+            }
+            pendingDelivery.reportTo(completed);
+        }
+        return completed;
+    }
+
+    /**
+     * Drop the offsets of a queue from the pending deliveries, called when the queue is reset, so a delivery
+     * completing after the reset does not move the queue back to an offset from before it.
+     */
+    public void discardOffsets(MessageQueue messageQueue) {
+        for (PendingDelivery pendingDelivery : pendingDeliveries) {
+            pendingDelivery.offsets.remove(messageQueue);
+        }
+    }
+
+    /**
+     * Drop the pending deliveries after a failure. Puts not started yet are cancelled, and the puts already running
+     * in other lanes are waited for, so no later delivery is still writing when the caller resets the offsets.
+     */
+    private void abortPendingDeliveries() {
+        for (PendingDelivery pendingDelivery : pendingDeliveries) {
+            pendingDelivery.cancel();
+        }
+        pendingDeliveries.clear();
+        List<Future<?>> drains = new ArrayList<>(laneExecutors.size());
+        for (ExecutorService laneExecutor : laneExecutors) {
+            drains.add(laneExecutor.submit(() -> {
+            }));
+        }
+        for (Future<?> drain : drains) {
+            try {
+                drain.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                // a no-op does not fail
+            }
+        }
+    }
+
+    public boolean isIdle() {
+        return pendingDeliveries.isEmpty();
+    }
+
+    public List<SinkTask> getLaneSinkTasks() {
+        return laneSinkTasks;
+    }
+
+    public void shutdown() {
+        for (ExecutorService laneExecutor : laneExecutors) {
+            laneExecutor.shutdown();
+        }
+        for (ExecutorService laneExecutor : laneExecutors) {
+            try {
+                if (!laneExecutor.awaitTermination(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    log.warn("Sink delivery lane did not terminate in {} ms", SHUTDOWN_TIMEOUT_MS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static class PendingDelivery {
+
+        private final Map<MessageQueue, Long> offsets;
+
+        private final List<Future<?>> futures;
+
+        PendingDelivery(Map<MessageQueue, Long> offsets, List<Future<?>> futures) {
+            this.offsets = offsets;
+            this.futures = futures;
+        }
+
+        boolean isDone() {
+            for (Future<?> future : futures) {
+                if (!future.isDone()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void await() throws InterruptedException {
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    // reported by reportTo
+                }
+            }
+        }
+
+        boolean isFailed() {
+            return null != failure();
+        }
+
+        void cancel() {
+            for (Future<?> future : futures) {
+                future.cancel(false);
+            }
+        }
+
+        private Throwable failure() {
+            for (Future<?> future : futures) {
+                if (!future.isDone()) {
+                    continue;
+                }
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    return e.getCause();
+                } catch (Exception e) {
+                    return e;
+                }
+            }
+            return null;
+        }
+
+        void reportTo(List<Map<MessageQueue, Long>> completed) {
+            Throwable failure = failure();
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (null != failure) {
+                throw new ConnectException("Sink delivery lane put failed", failure);
+            }
+            completed.add(offsets);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.rocketmq.connect.runtime.connectorwrapper;
+
+import io.openmessaging.connector.api.data.ConnectRecord;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.rocketmq.common.message.MessageQueue;
+
+/**
+ * Records accumulated across pulls and queues until one put call, together with the next offset of every queue
+ * they came from. Only accessed by the task thread.
+ */
+public class SinkLingerBatch {
+
+    private final int maxRecords;
+
+    private final long maxBytes;
+
+    private final long lingerMs;
+
+    private final List<ConnectRecord> records = new ArrayList<>();
+
+    /**
+     * Queue each record came from, by the index of the record.
+     */
+    private final List<MessageQueue> recordQueues = new ArrayList<>();
+
+    private final Map<MessageQueue, Long> offsets = new HashMap<>();
+
+    private final Map<MessageQueue, Long> queueBytes = new HashMap<>();
+
+    private long bytes = 0;
+
+    private long deadline = 0;
+
+    public SinkLingerBatch(int maxRecords, long maxBytes, long lingerMs) {
+        this.maxRecords = maxRecords;
+        this.maxBytes = maxBytes;
+        this.lingerMs = lingerMs;
+    }
+
+    /**
+     * Add the records converted from one pull, the records may be empty when all messages are filtered out by
+     * transforms, the offset still has to be committed after the batch is delivered.
+     */
+    public void add(MessageQueue messageQueue, List<ConnectRecord> connectRecords, long messageBytes,
+        long nextBeginOffset) {
+        if (offsets.isEmpty()) {
+            deadline = System.currentTimeMillis() + lingerMs;
+        }
+        records.addAll(connectRecords);
+        for (int i = 0; i < connectRecords.size(); i++) {
+            recordQueues.add(messageQueue);
+        }
+        bytes += messageBytes;
+        queueBytes.merge(messageQueue, messageBytes, Long::sum);
+        offsets.put(messageQueue, nextBeginOffset);
+    }
+
+    /**
+     * Drop the records and the offset of a queue, called when the queue is reset and its records are pulled again.
+     */
+    public void removeQueue(MessageQueue messageQueue) {
+        if (null == offsets.remove(messageQueue)) {
+            return;
+        }
+        int kept = 0;
+        for (int i = 0; i < records.size(); i++) {
+            if (!messageQueue.equals(recordQueues.get(i))) {
+                records.set(kept, records.get(i));
+                recordQueues.set(kept, recordQueues.get(i));
+                kept++;
+            }
+        }
+        records.subList(kept, records.size()).clear();
+        recordQueues.subList(kept, recordQueues.size()).clear();
+        Long removedBytes = queueBytes.remove(messageQueue);
+        bytes -= null == removedBytes ? 0 : removedBytes;
+        if (offsets.isEmpty()) {
+            clear();
+        }
+    }
+
+    public boolean isFull() {
+        return records.size() >= maxRecords || bytes >= maxBytes;
+    }
+
+    public boolean isDue(long now) {
+        return !offsets.isEmpty() && (isFull() || now >= deadline);
+    }
+
+    /**
+     * @return how long the task thread may wait for more messages before the batch has to be delivered
+     */
+    public long remainingLingerMs(long now, long maxWaitMs) {
+        if (offsets.isEmpty()) {
+            return maxWaitMs;
+        }
+        return Math.max(0, Math.min(maxWaitMs, deadline - now));
+    }
+
+    public boolean isEmpty() {
+        return offsets.isEmpty();
+    }
+
+    public List<ConnectRecord> getRecords() {
+        return records;
+    }
+
+    public Map<MessageQueue, Long> getOffsets() {
+        return offsets;
+    }
+
+    public void clear() {
+        records.clear();
+        recordQueues.clear();
+        offsets.clear();
+        queueBytes.clear();
+        bytes = 0;
+        deadline = 0;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.rocketmq.connect.runtime.connectorwrapper;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import org.apache.rocketmq.common.message.MessageExt;
+
+/**
+ * Messages prefetched from one message queue and not yet delivered to the sink task, kept in pull order.
+ */
+public class SinkPrefetchBuffer {
+
+    private final Deque<PulledBatch> batches = new ArrayDeque<>();
+
+    private long records = 0;
+
+    private long bytes = 0;
+
+    public synchronized void add(List<MessageExt> messages, long nextBeginOffset) {
+        long batchBytes = 0;
+        for (MessageExt message : messages) {
+            batchBytes += null == message.getBody() ? 0 : message.getBody().length;
+        }
+        batches.addLast(new PulledBatch(messages, nextBeginOffset, batchBytes));
+        records += messages.size();
+        bytes += batchBytes;
+    }
+
+    /**
+     * Get the oldest batch without removing it, so that it is delivered again if put fails.
+     */
+    public synchronized PulledBatch peek() {
+        return batches.peekFirst();
+    }
+
+    public synchronized void remove(PulledBatch batch) {
+        if (batches.peekFirst() == batch) {
+            batches.pollFirst();
+            records -= batch.getMessages().size();
+            bytes -= batch.getBytes();
+        }
+    }
+
+    public synchronized boolean isFull(long maxRecords, long maxBytes) {
+        return records >= maxRecords || bytes >= maxBytes;
+    }
+
+    public synchronized boolean isEmpty() {
+        return batches.isEmpty();
+    }
+
+    public synchronized void clear() {
+        batches.clear();
+        records = 0;
+        bytes = 0;
+    }
+
+    public synchronized long getRecords() {
+        return records;
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public static class PulledBatch {
+
+        private final List<MessageExt> messages;
+
+        private final long nextBeginOffset;
+
+        private final long bytes;
+
+        PulledBatch(List<MessageExt> messages, long nextBeginOffset, long bytes) {
+            this.messages = messages;
+            this.nextBeginOffset = nextBeginOffset;
+            this.bytes = bytes;
+        }
+
+        public List<MessageExt> getMessages() {
+            return messages;
+        }
+
+        public long getNextBeginOffset() {
+            return nextBeginOffset;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+    }
+}
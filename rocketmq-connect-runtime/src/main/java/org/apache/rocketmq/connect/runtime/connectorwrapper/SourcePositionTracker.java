@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.rocketmq.connect.runtime.connectorwrapper;
+
+import io.openmessaging.connector.api.data.ConnectRecord;
+import io.openmessaging.connector.api.data.RecordPartition;
+import io.openmessaging.connector.api.data.RecordPosition;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Tracks the records a source task has sent per source partition, in send order. Sends complete out of order, so
+ * the position of a partition only advances over the prefix of records whose sends all completed.
+ */
+public class SourcePositionTracker {
+
+    private final Map<RecordPartition, PartitionRecords> partitionRecords = new HashMap<>();
+
+    /**
+     * Track a record about to be sent.
+     *
+     * @param record
+     * @return the handle to complete once the send completes, null if the record has no partition
+     */
+    public synchronized Ack track(ConnectRecord record) {
+        RecordPosition position = record.getPosition();
+        if (null == position || null == position.getPartition() || null == position.getOffset()) {
+            return null;
+        }
+        PartitionRecords records = partitionRecords.computeIfAbsent(position.getPartition(), k -> new PartitionRecords());
+        records.pending.addLast(record);
+        return new Ack(records, records.nextSeq++);
+    }
+
+    /**
+     * Advance every partition over its completed prefix.
+     *
+     * @return the last record of the advanced prefix of each partition that advanced
+     */
+    public synchronized Map<RecordPartition, ConnectRecord> advance() {
+        Map<RecordPartition, ConnectRecord> advanced = new HashMap<>();
+        Iterator<Map.Entry<RecordPartition, PartitionRecords>> iterator = partitionRecords.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<RecordPartition, PartitionRecords> entry = iterator.next();
+            PartitionRecords records = entry.getValue();
+            int completed = records.completed.nextClearBit(0);
+            if (completed > 0) {
+                ConnectRecord last = null;
+                for (int i = 0; i < completed; i++) {
+                    last = records.pending.pollFirst();
+                }
+                records.completed = records.completed.get(completed, Math.max(completed, records.completed.length()));
+                records.firstSeq += completed;
+                advanced.put(entry.getKey(), last);
+            }
+            if (records.pending.isEmpty()) {
+                iterator.remove();
+            }
+        }
+        return advanced;
+    }
+
+    public synchronized int pendingRecords() {
+        int pending = 0;
+        for (PartitionRecords records : partitionRecords.values()) {
+            pending += records.pending.size();
+        }
+        return pending;
+    }
+
+    private void complete(PartitionRecords records, long seq) {
+        synchronized (this) {
+            records.completed.set((int) (seq - records.firstSeq));
+        }
+    }
+
+    private static class PartitionRecords {
+
+        /**
+         * Records sent and not yet passed by the position, in send order.
+         */
+        private final ArrayDeque<ConnectRecord> pending = new ArrayDeque<>();
+
+        /**
+         * Completed sends, bit i is the record with sequence firstSeq + i.
+         */
+        private BitSet completed = new BitSet();
+
+        private long firstSeq;
+
+        private long nextSeq;
+    }
+
+    /**
+     * Completes the send of a tracked record.
+     */
+    public class Ack {
+
+        private final PartitionRecords records;
+
+        private final long seq;
+
+        private Ack(PartitionRecords records, long seq) {
+            this.records = records;
+            this.seq = seq;
+        }
+
+        public void complete() {
+            SourcePositionTracker.this.complete(records, seq);
+        }
+    }
+}
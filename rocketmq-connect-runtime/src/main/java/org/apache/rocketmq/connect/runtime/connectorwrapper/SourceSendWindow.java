@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.rocketmq.connect.runtime.connectorwrapper;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Caps the count and bytes of messages a source task has sent but not yet got acked. A message larger than the byte
+ * cap is still admitted when nothing else is in flight, so it can not block the task forever.
+ */
+public class SourceSendWindow {
+
+    private final int maxRecords;
+
+    private final long maxBytes;
+
+    private int inflightRecords;
+
+    private long inflightBytes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notFull = lock.newCondition();
+
+    public SourceSendWindow(int maxRecords, long maxBytes) {
+        if (maxRecords <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("Send window max records " + maxRecords + " and max bytes " + maxBytes + " must be positive");
+        }
+        this.maxRecords = maxRecords;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Admit a message into the window, waiting for acks while the window is full.
+     *
+     * @param messageBytes
+     * @param timeoutMillis max time to wait
+     * @return false if the window is still full after the timeout
+     * @throws InterruptedException
+     */
+    public boolean acquire(long messageBytes, long timeoutMillis) throws InterruptedException {
+        long waitNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        lock.lock();
+        try {
+            while (isFull(messageBytes)) {
+                if (waitNanos <= 0) {
+                    return false;
+                }
+                waitNanos = notFull.awaitNanos(waitNanos);
+            }
+            inflightRecords++;
+            inflightBytes += messageBytes;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(long messageBytes) {
+        lock.lock();
+        try {
+            inflightRecords--;
+            inflightBytes -= messageBytes;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isFull(long messageBytes) {
+        return inflightRecords > 0 && (inflightRecords >= maxRecords || inflightBytes + messageBytes > maxBytes);
+    }
+
+    public int getInflightRecords() {
+        lock.lock();
+        try {
+            return inflightRecords;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getInflightBytes() {
+        lock.lock();
+        try {
+            return inflightBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
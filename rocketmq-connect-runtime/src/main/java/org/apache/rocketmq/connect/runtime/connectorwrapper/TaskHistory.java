@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.rocketmq.connect.runtime.connectorwrapper;
+
+import com.alibaba.fastjson.JSON;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded history of terminated tasks. Only a small summary of each task is kept in a ring buffer, the oldest summary
+ * is overwritten when it is full and summaries older than the retention are dropped, so the task objects with their
+ * clients and transforms can be released when they terminate.
+ */
+public class TaskHistory {
+
+    private final TaskSummary[] summaries;
+
+    private final long retentionMillis;
+
+    /**
+     * Index of the oldest summary.
+     */
+    private int head;
+
+    private int size;
+
+    public TaskHistory(int maxNums, long retentionMillis) {
+        if (maxNums <= 0) {
+            throw new IllegalArgumentException("Task history max nums " + maxNums + " must be positive");
+        }
+        this.summaries = new TaskSummary[maxNums];
+        this.retentionMillis = retentionMillis;
+    }
+
+    public synchronized void add(TaskSummary summary) {
+        int tail = (head + size) % summaries.length;
+        summaries[tail] = summary;
+        if (size < summaries.length) {
+            size++;
+        } else {
+            head = (head + 1) % summaries.length;
+        }
+    }
+
+    /**
+     * @param state final state of the tasks to return, ERROR or STOPPED
+     * @return summaries within the retention, oldest first
+     */
+    public List<TaskSummary> getSummaries(WorkerTaskState state) {
+        return getSummaries(state, System.currentTimeMillis());
+    }
+
+    synchronized List<TaskSummary> getSummaries(WorkerTaskState state, long now) {
+        evictExpired(now);
+        List<TaskSummary> result = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            TaskSummary summary = summaries[(head + i) % summaries.length];
+            if (summary.getState() == state) {
+                result.add(summary);
+            }
+        }
+        return result;
+    }
+
+    private void evictExpired(long now) {
+        while (size > 0 && now - summaries[head].getTerminatedTimestamp() > retentionMillis) {
+            summaries[head] = null;
+            head = (head + 1) % summaries.length;
+            size--;
+        }
+    }
+
+    public static final class TaskSummary {
+
+        private final String connectorName;
+
+        private final String configs;
+
+        private final WorkerTaskState state;
+
+        private final long terminatedTimestamp;
+
+        public TaskSummary(String connectorName, String configs, WorkerTaskState state, long terminatedTimestamp) {
+            this.connectorName = connectorName;
+            this.configs = configs;
+            this.state = state;
+            this.terminatedTimestamp = terminatedTimestamp;
+        }
+
+        public static TaskSummary of(WorkerTask workerTask, WorkerTaskState state) {
+            return new TaskSummary(workerTask.getConnectorName(), JSON.toJSONString(workerTask.getTaskConfig()), state,
+                System.currentTimeMillis());
+        }
+
+        public String getConnectorName() {
+            return connectorName;
+        }
+
+        public String getConfigs() {
+            return configs;
+        }
+
+        public WorkerTaskState getState() {
+            return state;
+        }
+
+        public long getTerminatedTimestamp() {
+            return terminatedTimestamp;
+        }
+
+        public Object getJsonObject() {
+            Map<String, Object> obj = new HashMap<>();
+            obj.put("connectorName", connectorName);
+            obj.put("configs", configs);
+            obj.put("state", state.toString());
+            obj.put("terminatedTimestamp", terminatedTimestamp);
+            return obj;
+        }
+    }
+}
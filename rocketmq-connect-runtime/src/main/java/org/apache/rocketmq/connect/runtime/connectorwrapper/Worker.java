@@ -19,6 +19,7 @@ package org.apache.rocketmq.connect.runtime.connectorwrapper;
 
 import com.alibaba.fastjson.JSON;
 import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.HashedWheelTimer;
 import io.netty.util.internal.ConcurrentSet;
 import io.openmessaging.connector.api.component.connector.Connector;
 import io.openmessaging.connector.api.component.task.Task;
@@ -31,13 +32,19 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
@@ -47,15 +54,18 @@ import org.apache.rocketmq.client.producer.DefaultMQProducer;
 import org.apache.rocketmq.connect.runtime.ConnectController;
 import org.apache.rocketmq.connect.runtime.common.ConnectKeyValue;
 import org.apache.rocketmq.connect.runtime.common.LoggerName;
+import org.apache.rocketmq.connect.runtime.common.TaskConfigSnapshot;
 import org.apache.rocketmq.connect.runtime.config.ConnectConfig;
 import org.apache.rocketmq.connect.runtime.config.RuntimeConfigDefine;
 import org.apache.rocketmq.connect.runtime.service.ConfigManagementService;
 import org.apache.rocketmq.connect.runtime.service.DefaultConnectorContext;
 import org.apache.rocketmq.connect.runtime.service.PositionManagementService;
+import org.apache.rocketmq.connect.runtime.service.SchemaRegistryService;
 import org.apache.rocketmq.connect.runtime.service.TaskPositionCommitService;
 import org.apache.rocketmq.connect.runtime.stats.ConnectStatsManager;
 import org.apache.rocketmq.connect.runtime.stats.ConnectStatsService;
 import org.apache.rocketmq.connect.runtime.utils.ConnectUtil;
+import org.apache.rocketmq.connect.runtime.utils.MQClientPool;
 import org.apache.rocketmq.connect.runtime.utils.Plugin;
 import org.apache.rocketmq.connect.runtime.utils.PluginClassLoader;
 import org.apache.rocketmq.connect.runtime.utils.ServiceThread;
@@ -82,15 +92,23 @@ public class Worker {
 
     private Set<Runnable> errorTasks = new ConcurrentSet<>();
 
-    private Set<Runnable> cleanedErrorTasks = new ConcurrentSet<>();
-
     private Map<Runnable, Long/*timestamp*/> stoppingTasks = new ConcurrentHashMap<>();
 
     private Set<Runnable> stoppedTasks = new ConcurrentSet<>();
 
-    private Set<Runnable> cleanedStoppedTasks = new ConcurrentSet<>();
+    /**
+     * Summaries of cleaned error and stopped tasks, the tasks themselves are released once cleaned.
+     */
+    private final TaskHistory taskHistory;
 
     Map<String, List<ConnectKeyValue>> latestTaskConfigs = new HashMap<>();
+
+    /**
+     * Pending, running and error tasks by identity, a desired task config is new only when its identity is not here.
+     */
+    private final Map<TaskKey, Runnable> liveTasks = new ConcurrentHashMap<>();
+
+    private final Map<Runnable, TaskKey> taskKeys = new ConcurrentHashMap<>();
     /**
      * Current running tasks to its Future map.
      */
@@ -119,6 +137,10 @@ public class Worker {
 
     private static final long MAX_STOP_TIMEOUT_MILLS = 20000;
 
+    public static final String TASK_EXECUTOR_MODE_VIRTUAL = "virtual";
+
+    private static final String TASK_THREAD_NAME_PREFIX = "task-Worker-Executor-";
+
     /**
      * Atomic state variable
      */
@@ -126,15 +148,48 @@ public class Worker {
 
     private StateMachineService stateMachineService = new StateMachineService();
 
+    /**
+     * The state machine runs on task state changes and new task configs, this is only a fallback for a missed wakeup.
+     */
+    private static final long STATE_MACHINE_CHECK_INTERVAL_MILLS = 10 * 1000;
+
+    private final TaskStateListener taskStateListener = (workerTask, from, to) -> stateMachineService.wakeup();
+
+    /**
+     * Fires the start and stop timeouts of tasks, expired tasks are handed to the state machine.
+     */
+    private final HashedWheelTimer taskTimeoutTimer = new HashedWheelTimer(
+        new DefaultThreadFactory("task-Worker-Timeout-"), 100, TimeUnit.MILLISECONDS);
+
+    private final Queue<Runnable> timedOutTasks = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Creates new tasks and cleans up finished tasks in parallel, bounded by the configured thread nums.
+     */
+    private final ExecutorService taskLifecycleExecutor;
+
     private final ConnectStatsManager connectStatsManager;
 
     private final ConnectStatsService connectStatsService;
 
+    private final SchemaRegistryService schemaRegistryService;
+
+    /**
+     * Client instances shared by the producers and consumers of the tasks.
+     */
+    private final MQClientPool mqClientPool = new MQClientPool();
+
     public Worker(ConnectConfig connectConfig,
         PositionManagementService positionManagementService, ConfigManagementService configManagementService,
         Plugin plugin, ConnectController connectController) {
         this.connectConfig = connectConfig;
-        this.taskExecutor = Executors.newCachedThreadPool(new DefaultThreadFactory("task-Worker-Executor-"));
+        this.taskExecutor = newTaskExecutor(connectConfig.getTaskExecutorMode());
+        this.taskHistory = new TaskHistory(connectConfig.getTaskHistoryMaxNums(), connectConfig.getTaskHistoryRetentionMillis());
+        int taskLifecycleThreadNums = Math.max(1, connectConfig.getTaskLifecycleThreadNums());
+        ThreadPoolExecutor taskLifecycleExecutor = new ThreadPoolExecutor(taskLifecycleThreadNums, taskLifecycleThreadNums,
+            60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new DefaultThreadFactory("task-Worker-Lifecycle-"));
+        taskLifecycleExecutor.allowCoreThreadTimeOut(true);
+        this.taskLifecycleExecutor = taskLifecycleExecutor;
         this.positionManagementService = positionManagementService;
         this.taskPositionCommitService = new TaskPositionCommitService(
             this,
@@ -142,6 +197,7 @@ public class Worker {
         this.plugin = plugin;
         this.connectStatsManager = connectController.getConnectStatsManager();
         this.connectStatsService = connectController.getConnectStatsService();
+        this.schemaRegistryService = connectController.getSchemaRegistryService();
     }
 
     public void start() {
@@ -236,23 +292,75 @@ public class Worker {
         synchronized (latestTaskConfigs) {
             this.latestTaskConfigs = taskConfigs;
         }
+        stateMachineService.wakeup();
     }
 
-    private boolean isConfigInSet(ConnectKeyValue keyValue, Set<Runnable> set) {
-        for (Runnable runnable : set) {
-            ConnectKeyValue taskConfig = null;
-            if (runnable instanceof WorkerSourceTask) {
-                taskConfig = ((WorkerSourceTask) runnable).getTaskConfig();
-            } else if (runnable instanceof WorkerSinkTask) {
-                taskConfig = ((WorkerSinkTask) runnable).getTaskConfig();
-            } else if (runnable instanceof WorkerDirectTask) {
-                taskConfig = ((WorkerDirectTask) runnable).getTaskConfig();
-            }
-            if (keyValue.equals(taskConfig)) {
-                return true;
+    /**
+     * Submit a new task in pending state, its state changes wake up the state machine and it times out if not running
+     * after {@link #MAX_START_TIMEOUT_MILLS}.
+     *
+     * @param workerTask
+     */
+    private void submitTask(WorkerTask workerTask) {
+        workerTask.setStateListener(taskStateListener);
+        Future future = taskExecutor.submit(workerTask);
+        taskToFutureMap.put(workerTask, future);
+        this.pendingTasks.put(workerTask, System.currentTimeMillis());
+        indexTask(workerTask);
+        scheduleTimeout(workerTask, MAX_START_TIMEOUT_MILLS);
+    }
+
+    private void scheduleTimeout(Runnable runnable, long timeoutMillis) {
+        taskTimeoutTimer.newTimeout(timeout -> {
+            timedOutTasks.add(runnable);
+            stateMachineService.wakeup();
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void indexTask(Runnable runnable) {
+        TaskKey taskKey = new TaskKey((WorkerTask) runnable);
+        taskKeys.put(runnable, taskKey);
+        liveTasks.putIfAbsent(taskKey, runnable);
+    }
+
+    private void unindexTask(Runnable runnable) {
+        TaskKey taskKey = taskKeys.remove(runnable);
+        if (null != taskKey) {
+            liveTasks.remove(taskKey, runnable);
+        }
+    }
+
+    private TaskKey getTaskKey(Runnable runnable) {
+        TaskKey taskKey = taskKeys.get(runnable);
+        if (null == taskKey) {
+            taskKey = new TaskKey((WorkerTask) runnable);
+        }
+        return taskKey;
+    }
+
+    /**
+     * Create the executor running the tasks. Virtual threads are looked up reflectively as the runtime still targets
+     * java 8, so a JVM without them falls back to the cached thread pool.
+     *
+     * @param taskExecutorMode
+     * @return
+     */
+    static ExecutorService newTaskExecutor(String taskExecutorMode) {
+        if (TASK_EXECUTOR_MODE_VIRTUAL.equalsIgnoreCase(taskExecutorMode)) {
+            try {
+                Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, TASK_THREAD_NAME_PREFIX, 0L);
+                ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+                ExecutorService executorService = (ExecutorService) Executors.class
+                    .getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, threadFactory);
+                log.info("Run tasks on virtual threads");
+                return executorService;
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                log.warn("Virtual threads are not available on this JVM, run tasks on the cached thread pool", e);
             }
         }
-        return false;
+        return Executors.newCachedThreadPool(new DefaultThreadFactory(TASK_THREAD_NAME_PREFIX));
     }
 
     /**
@@ -267,6 +375,9 @@ public class Worker {
             log.error("Task termination error.", e);
         }
         stateMachineService.shutdown();
+        taskTimeoutTimer.stop();
+        taskLifecycleExecutor.shutdown();
+        mqClientPool.shutdown();
     }
 
     public Set<WorkerConnector> getWorkingConnectors() {
@@ -305,16 +416,22 @@ public class Worker {
         return stoppingTasks.keySet();
     }
 
-    public Set<Runnable> getCleanedErrorTasks() {
-        return cleanedErrorTasks;
+    public List<TaskHistory.TaskSummary> getCleanedErrorTasks() {
+        return taskHistory.getSummaries(WorkerTaskState.ERROR);
     }
 
-    public Set<Runnable> getCleanedStoppedTasks() {
-        return cleanedStoppedTasks;
+    public List<TaskHistory.TaskSummary> getCleanedStoppedTasks() {
+        return taskHistory.getSummaries(WorkerTaskState.STOPPED);
     }
 
     public void setWorkingTasks(Set<Runnable> workingTasks) {
+        for (Runnable runnable : runningTasks) {
+            unindexTask(runnable);
+        }
         this.runningTasks = workingTasks;
+        for (Runnable runnable : workingTasks) {
+            indexTask(runnable);
+        }
     }
 
     public void maintainConnectorState() {
@@ -328,30 +445,25 @@ public class Worker {
             taskConfigs.putAll(latestTaskConfigs);
         }
 
+        List<TaskKey> desiredTasks = new ArrayList<>();
+        for (Map.Entry<String, List<ConnectKeyValue>> entry : taskConfigs.entrySet()) {
+            for (ConnectKeyValue keyValue : entry.getValue()) {
+                desiredTasks.add(new TaskKey(entry.getKey(), keyValue));
+            }
+        }
+        Set<TaskKey> desiredTaskSet = new HashSet<>(desiredTasks);
+
         boolean needCommitPosition = false;
         //  STEP 1: check running tasks and put to error status
         for (Runnable runnable : runningTasks) {
             WorkerTask workerTask = (WorkerTask) runnable;
-            String connectorName = workerTask.getConnectorName();
-            ConnectKeyValue taskConfig = workerTask.getTaskConfig();
-            List<ConnectKeyValue> keyValues = taskConfigs.get(connectorName);
             WorkerTaskState state = ((WorkerTask) runnable).getState();
 
             if (WorkerTaskState.ERROR == state) {
                 errorTasks.add(runnable);
                 runningTasks.remove(runnable);
             } else if (WorkerTaskState.RUNNING == state) {
-                boolean needStop = true;
-                if (null != keyValues && keyValues.size() > 0) {
-                    for (ConnectKeyValue keyValue : keyValues) {
-                        if (keyValue.equals(taskConfig)) {
-                            needStop = false;
-                            break;
-                        }
-                    }
-                }
-
-                if (needStop) {
+                if (!desiredTaskSet.contains(getTaskKey(runnable))) {
                     try {
                         workerTask.stop();
                     } catch (Exception e) {
@@ -359,7 +471,9 @@ public class Worker {
                     }
                     log.info("Task stopping, connector name {}, config {}", workerTask.getConnectorName(), workerTask.getTaskConfig());
                     runningTasks.remove(runnable);
+                    unindexTask(runnable);
                     stoppingTasks.put(runnable, System.currentTimeMillis());
+                    scheduleTimeout(runnable, MAX_STOP_TIMEOUT_MILLS);
                     needCommitPosition = true;
                 }
             } else {
@@ -375,87 +489,41 @@ public class Worker {
 
         // get new Tasks
         Map<String, List<ConnectKeyValue>> newTasks = new HashMap<>();
-        for (String connectorName : taskConfigs.keySet()) {
-            for (ConnectKeyValue keyValue : taskConfigs.get(connectorName)) {
-                boolean isNewTask = true;
-                if (isConfigInSet(keyValue, runningTasks) || isConfigInSet(keyValue, pendingTasks.keySet()) || isConfigInSet(keyValue, errorTasks)) {
-                    isNewTask = false;
-                }
-                if (isNewTask) {
-                    if (!newTasks.containsKey(connectorName)) {
-                        newTasks.put(connectorName, new ArrayList<>());
-                    }
-                    log.info("Add new tasks,connector name {}, config {}", connectorName, keyValue);
-                    newTasks.get(connectorName).add(keyValue);
+        for (TaskKey taskKey : desiredTasks) {
+            if (!liveTasks.containsKey(taskKey)) {
+                if (!newTasks.containsKey(taskKey.connectorName)) {
+                    newTasks.put(taskKey.connectorName, new ArrayList<>());
                 }
+                log.info("Add new tasks,connector name {}, config {}", taskKey.connectorName, taskKey.taskConfig);
+                newTasks.get(taskKey.connectorName).add(taskKey.taskConfig);
             }
         }
 
         //  STEP 2: try to create new tasks
+        List<Runnable> startActions = new ArrayList<>();
         for (String connectorName : newTasks.keySet()) {
             for (ConnectKeyValue keyValue : newTasks.get(connectorName)) {
-                String taskType = keyValue.getString(RuntimeConfigDefine.TASK_TYPE);
-                if (TaskType.DIRECT.name().equalsIgnoreCase(taskType)) {
-                    createDirectTask(connectorName, keyValue);
-                    continue;
-                }
-                try {
-                    String taskClass = keyValue.getString(RuntimeConfigDefine.TASK_CLASS);
-                    ClassLoader loader = plugin.getPluginClassLoader(taskClass);
-                    final ClassLoader currentThreadLoader = plugin.currentThreadLoader();
-                    Class taskClazz;
-                    boolean isolationFlag = false;
-                    if (loader instanceof PluginClassLoader) {
-                        taskClazz = ((PluginClassLoader) loader).loadClass(taskClass, false);
-                        isolationFlag = true;
-                    } else {
-                        taskClazz = Class.forName(taskClass);
-                    }
-                    final Task task = (Task) taskClazz.getDeclaredConstructor().newInstance();
-                    final String converterClazzName = keyValue.getString(RuntimeConfigDefine.SOURCE_RECORD_CONVERTER);
-                    Converter recordConverter = null;
-                    if (StringUtils.isNotEmpty(converterClazzName)) {
-                        Class converterClazz = Class.forName(converterClazzName);
-                        recordConverter = (Converter) converterClazz.newInstance();
-                    }
-                    if (isolationFlag) {
-                        Plugin.compareAndSwapLoaders(loader);
-                    }
-                    if (task instanceof SourceTask) {
-                        DefaultMQProducer producer = ConnectUtil.initDefaultMQProducer(connectConfig);
-                        TransformChain<ConnectRecord> transformChain = new TransformChain<>(keyValue, plugin);
-                        WorkerSourceTask workerSourceTask = new WorkerSourceTask(connectorName,
-                            (SourceTask) task, keyValue, positionManagementService, recordConverter, producer, workerState, connectStatsManager, connectStatsService, transformChain);
-                        Plugin.compareAndSwapLoaders(currentThreadLoader);
-
-                        Future future = taskExecutor.submit(workerSourceTask);
-                        taskToFutureMap.put(workerSourceTask, future);
-                        this.pendingTasks.put(workerSourceTask, System.currentTimeMillis());
-                    } else if (task instanceof SinkTask) {
-                        log.info("sink task config keyValue is {}", keyValue.getProperties());
-                        DefaultMQPullConsumer consumer = ConnectUtil.initDefaultMQPullConsumer(connectConfig, connectorName, keyValue);
-                        if (connectConfig.isAutoCreateGroupEnable()) {
-                            ConnectUtil.createSubGroup(connectConfig, consumer.getConsumerGroup());
-                        }
-                        TransformChain<ConnectRecord> transformChain = new TransformChain<>(keyValue, plugin);
-                        WorkerSinkTask workerSinkTask = new WorkerSinkTask(connectorName,
-                            (SinkTask) task, keyValue, recordConverter, consumer, workerState, connectStatsManager, connectStatsService, transformChain);
-                        Plugin.compareAndSwapLoaders(currentThreadLoader);
-                        Future future = taskExecutor.submit(workerSinkTask);
-                        taskToFutureMap.put(workerSinkTask, future);
-                        this.pendingTasks.put(workerSinkTask, System.currentTimeMillis());
-                    }
-                } catch (Exception e) {
-                    log.error("start worker task exception. config {}" + JSON.toJSONString(keyValue), e);
-                }
+                startActions.add(() -> startTask(connectorName, keyValue));
+            }
+        }
+        runTaskLifecycleActions(startActions);
+
+        //  STEP 3: check timed out tasks and all pending state
+        Runnable timedOutTask;
+        while (null != (timedOutTask = timedOutTasks.poll())) {
+            WorkerTaskState state = ((WorkerTask) timedOutTask).getState();
+            if (pendingTasks.containsKey(timedOutTask) && WorkerTaskState.PENDING == state) {
+                ((WorkerTask) timedOutTask).timeout();
+                pendingTasks.remove(timedOutTask);
+                errorTasks.add(timedOutTask);
+            } else if (stoppingTasks.containsKey(timedOutTask) && WorkerTaskState.STOPPING == state) {
+                ((WorkerTask) timedOutTask).timeout();
+                stoppingTasks.remove(timedOutTask);
+                errorTasks.add(timedOutTask);
             }
         }
-
-        //  STEP 3: check all pending state
         for (Map.Entry<Runnable, Long> entry : pendingTasks.entrySet()) {
             Runnable runnable = entry.getKey();
-            Long startTimestamp = entry.getValue();
-            Long currentTimeMillis = System.currentTimeMillis();
             WorkerTaskState state = ((WorkerTask) runnable).getState();
 
             if (WorkerTaskState.ERROR == state) {
@@ -467,11 +535,7 @@ public class Worker {
             } else if (WorkerTaskState.NEW == state) {
                 log.info("[RACE CONDITION] we checked the pending tasks before state turns to PENDING");
             } else if (WorkerTaskState.PENDING == state) {
-                if (currentTimeMillis - startTimestamp > MAX_START_TIMEOUT_MILLS) {
-                    ((WorkerTask) runnable).timeout();
-                    pendingTasks.remove(runnable);
-                    errorTasks.add(runnable);
-                }
+                // still starting, the start timeout is fired by the timer
             } else {
                 log.error("[BUG] Illegal State in when checking pending tasks, {} is in {} state",
                     ((WorkerTask) runnable).getConnectorName(), state.toString());
@@ -481,8 +545,6 @@ public class Worker {
         //  STEP 4 check stopping tasks
         for (Map.Entry<Runnable, Long> entry : stoppingTasks.entrySet()) {
             Runnable runnable = entry.getKey();
-            Long stopTimestamp = entry.getValue();
-            Long currentTimeMillis = System.currentTimeMillis();
             Future future = taskToFutureMap.get(runnable);
             WorkerTaskState state = ((WorkerTask) runnable).getState();
             // exited normally
@@ -499,11 +561,7 @@ public class Worker {
                 stoppingTasks.remove(runnable);
                 errorTasks.add(runnable);
             } else if (WorkerTaskState.STOPPING == state) {
-                if (currentTimeMillis - stopTimestamp > MAX_STOP_TIMEOUT_MILLS) {
-                    ((WorkerTask) runnable).timeout();
-                    stoppingTasks.remove(runnable);
-                    errorTasks.add(runnable);
-                }
+                // still stopping, the stop timeout is fired by the timer
             } else {
 
                 log.error("[BUG] Illegal State in when checking stopping tasks, {} is in {} state",
@@ -512,60 +570,173 @@ public class Worker {
         }
 
         //  STEP 5 check errorTasks and stopped tasks
+        List<Runnable> cleanupActions = new ArrayList<>();
         for (Runnable runnable : errorTasks) {
-            WorkerTask workerTask = (WorkerTask) runnable;
-            Future future = taskToFutureMap.get(runnable);
+            cleanupActions.add(() -> cleanErrorTask(runnable));
+        }
+        for (Runnable runnable : stoppedTasks) {
+            cleanupActions.add(() -> cleanStoppedTask(runnable));
+        }
+        runTaskLifecycleActions(cleanupActions);
+    }
 
+    /**
+     * Run task start or cleanup actions on the lifecycle executor and wait for all of them, a single action runs on
+     * the state machine thread.
+     *
+     * @param actions
+     * @throws Exception
+     */
+    private void runTaskLifecycleActions(List<Runnable> actions) throws Exception {
+        if (actions.size() <= 1) {
+            for (Runnable action : actions) {
+                action.run();
+            }
+            return;
+        }
+        long beginTimestamp = System.currentTimeMillis();
+        List<Future<?>> futures = new ArrayList<>(actions.size());
+        for (Runnable action : actions) {
+            futures.add(taskLifecycleExecutor.submit(action));
+        }
+        for (Future<?> future : futures) {
             try {
-                if (null != future) {
-                    future.get(1000, TimeUnit.MILLISECONDS);
-                } else {
-                    log.error("[BUG] errorTasks reference not found in taskFutureMap");
-                }
+                future.get();
             } catch (ExecutionException e) {
-                Throwable t = e.getCause();
-            } catch (CancellationException | TimeoutException | InterruptedException e) {
+                log.error("Task lifecycle action failed", e.getCause());
+            }
+        }
+        log.info("Run {} task lifecycle actions in {} ms", actions.size(), System.currentTimeMillis() - beginTimestamp);
+    }
 
-            } finally {
-                future.cancel(true);
-                workerTask.cleanup();
-                taskToFutureMap.remove(runnable);
-                errorTasks.remove(runnable);
-                cleanedErrorTasks.add(runnable);
+    private void startTask(String connectorName, ConnectKeyValue keyValue) {
+        String taskType = keyValue.getString(RuntimeConfigDefine.TASK_TYPE);
+        long beginTimestamp = System.currentTimeMillis();
+        if (TaskType.DIRECT.name().equalsIgnoreCase(taskType)) {
+            try {
+                createDirectTask(connectorName, keyValue);
+                log.info("Direct task created, connector name {}, cost {} ms", connectorName, System.currentTimeMillis() - beginTimestamp);
+            } catch (Exception e) {
+                log.error("start worker direct task exception. config {}" + JSON.toJSONString(keyValue), e);
+            }
+            return;
+        }
+        final ClassLoader currentThreadLoader = plugin.currentThreadLoader();
+        try {
+            String taskClass = keyValue.getString(RuntimeConfigDefine.TASK_CLASS);
+            ClassLoader loader = plugin.getPluginClassLoader(taskClass);
+            Class taskClazz;
+            boolean isolationFlag = false;
+            if (loader instanceof PluginClassLoader) {
+                taskClazz = ((PluginClassLoader) loader).loadClass(taskClass, false);
+                isolationFlag = true;
+            } else {
+                taskClazz = Class.forName(taskClass);
+            }
+            final Task task = (Task) taskClazz.getDeclaredConstructor().newInstance();
+            final String converterClazzName = keyValue.getString(RuntimeConfigDefine.SOURCE_RECORD_CONVERTER);
+            Converter recordConverter = null;
+            if (StringUtils.isNotEmpty(converterClazzName)) {
+                Class converterClazz = Class.forName(converterClazzName);
+                recordConverter = (Converter) converterClazz.newInstance();
+            }
+            if (isolationFlag) {
+                Plugin.compareAndSwapLoaders(loader);
+            }
+            long loadTimestamp = System.currentTimeMillis();
+            long subGroupTimestamp = loadTimestamp;
+            if (task instanceof SourceTask) {
+                DefaultMQProducer producer = mqClientPool.acquireProducer(connectConfig);
+                try {
+                    TaskConfigSnapshot taskConfigSnapshot = new TaskConfigSnapshot(keyValue);
+                    TransformChain<ConnectRecord> transformChain = new TransformChain<>(taskConfigSnapshot, plugin);
+                    WorkerSourceTask workerSourceTask = new WorkerSourceTask(connectorName,
+                        (SourceTask) task, keyValue, taskConfigSnapshot, positionManagementService, recordConverter, producer, workerState, connectStatsManager, connectStatsService, schemaRegistryService, transformChain);
+                    Plugin.compareAndSwapLoaders(currentThreadLoader);
 
+                    submitTask(workerSourceTask);
+                } catch (Exception e) {
+                    // the task never runs, so give back its reference to the shared producer here
+                    producer.shutdown();
+                    throw e;
+                }
+            } else if (task instanceof SinkTask) {
+                log.info("sink task config keyValue is {}", keyValue.getProperties());
+                DefaultMQPullConsumer consumer = mqClientPool.newPullConsumer(connectConfig, connectorName, keyValue);
+                if (connectConfig.isAutoCreateGroupEnable()) {
+                    mqClientPool.createSubGroup(connectConfig, consumer.getConsumerGroup());
+                }
+                subGroupTimestamp = System.currentTimeMillis();
+                TaskConfigSnapshot taskConfigSnapshot = new TaskConfigSnapshot(keyValue);
+                TransformChain<ConnectRecord> transformChain = new TransformChain<>(taskConfigSnapshot, plugin);
+                WorkerSinkTask workerSinkTask = new WorkerSinkTask(connectorName,
+                    (SinkTask) task, keyValue, taskConfigSnapshot, recordConverter, consumer, workerState, connectStatsManager, connectStatsService, schemaRegistryService, transformChain);
+                Plugin.compareAndSwapLoaders(currentThreadLoader);
+                submitTask(workerSinkTask);
             }
+            long endTimestamp = System.currentTimeMillis();
+            log.info("Task created, connector name {}, load {} ms, sub group {} ms, create and submit {} ms, total {} ms",
+                connectorName, loadTimestamp - beginTimestamp, subGroupTimestamp - loadTimestamp,
+                endTimestamp - subGroupTimestamp, endTimestamp - beginTimestamp);
+        } catch (Exception e) {
+            Plugin.compareAndSwapLoaders(currentThreadLoader);
+            log.error("start worker task exception. config {}" + JSON.toJSONString(keyValue), e);
         }
+    }
 
-        //  STEP 5 check errorTasks and stopped tasks
-        for (Runnable runnable : stoppedTasks) {
-            WorkerTask workerTask = (WorkerTask) runnable;
+    private void cleanErrorTask(Runnable runnable) {
+        WorkerTask workerTask = (WorkerTask) runnable;
+        Future future = taskToFutureMap.get(runnable);
+
+        try {
+            if (null != future) {
+                future.get(1000, TimeUnit.MILLISECONDS);
+            } else {
+                log.error("[BUG] errorTasks reference not found in taskFutureMap");
+            }
+        } catch (ExecutionException e) {
+            Throwable t = e.getCause();
+        } catch (CancellationException | TimeoutException | InterruptedException e) {
+
+        } finally {
+            future.cancel(true);
             workerTask.cleanup();
-            Future future = taskToFutureMap.get(runnable);
-            try {
-                if (null != future) {
-                    future.get(1000, TimeUnit.MILLISECONDS);
-                } else {
-                    log.error("[BUG] stopped Tasks reference not found in taskFutureMap");
-                }
-            } catch (ExecutionException e) {
-                Throwable t = e.getCause();
-                log.info("[BUG] Stopped Tasks should not throw any exception");
-                t.printStackTrace();
-            } catch (CancellationException e) {
-                log.info("[BUG] Stopped Tasks throws PrintStackTrace");
-                e.printStackTrace();
-            } catch (TimeoutException e) {
-                log.info("[BUG] Stopped Tasks should not throw any exception");
-                e.printStackTrace();
-            } catch (InterruptedException e) {
-                log.info("[BUG] Stopped Tasks should not throw any exception");
-                e.printStackTrace();
-            } finally {
-                future.cancel(true);
-                taskToFutureMap.remove(runnable);
-                stoppedTasks.remove(runnable);
-                cleanedStoppedTasks.add(runnable);
+            taskToFutureMap.remove(runnable);
+            errorTasks.remove(runnable);
+            unindexTask(runnable);
+            taskHistory.add(TaskHistory.TaskSummary.of(workerTask, WorkerTaskState.ERROR));
+
+        }
+    }
+
+    private void cleanStoppedTask(Runnable runnable) {
+        WorkerTask workerTask = (WorkerTask) runnable;
+        workerTask.cleanup();
+        Future future = taskToFutureMap.get(runnable);
+        try {
+            if (null != future) {
+                future.get(1000, TimeUnit.MILLISECONDS);
+            } else {
+                log.error("[BUG] stopped Tasks reference not found in taskFutureMap");
             }
+        } catch (ExecutionException e) {
+            Throwable t = e.getCause();
+            log.info("[BUG] Stopped Tasks should not throw any exception");
+            t.printStackTrace();
+        } catch (CancellationException e) {
+            log.info("[BUG] Stopped Tasks throws PrintStackTrace");
+            e.printStackTrace();
+        } catch (TimeoutException e) {
+            log.info("[BUG] Stopped Tasks should not throw any exception");
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            log.info("[BUG] Stopped Tasks should not throw any exception");
+            e.printStackTrace();
+        } finally {
+            future.cancel(true);
+            taskToFutureMap.remove(runnable);
+            stoppedTasks.remove(runnable);
+            taskHistory.add(TaskHistory.TaskSummary.of(workerTask, WorkerTaskState.STOPPED));
         }
     }
 
@@ -579,9 +750,7 @@ public class Worker {
         WorkerDirectTask workerDirectTask = new WorkerDirectTask(connectorName,
             (SourceTask) sourceTask, (SinkTask) sinkTask, keyValue, positionManagementService, workerState);
 
-        Future future = taskExecutor.submit(workerDirectTask);
-        taskToFutureMap.put(workerDirectTask, future);
-        this.pendingTasks.put(workerDirectTask, System.currentTimeMillis());
+        submitTask(workerDirectTask);
     }
 
     private Task getTask(String taskClass) throws Exception {
@@ -610,7 +779,7 @@ public class Worker {
             log.info(this.getServiceName() + " service started");
 
             while (!this.isStopped()) {
-                this.waitForRunning(1000);
+                this.waitForRunning(STATE_MACHINE_CHECK_INTERVAL_MILLS);
                 try {
                     Worker.this.maintainConnectorState();
                     Worker.this.maintainTaskState();
@@ -633,4 +802,53 @@ public class Worker {
         SINK,
         DIRECT;
     }
+
+    /**
+     * Identity of a task, the connector name and task config with its hash computed once. A live task is keyed on the
+     * config snapshot it was created with, reusing the hash of the snapshot. The position of a config in the task list
+     * of a worker is not part of it as it moves when tasks are reallocated between workers.
+     */
+    private static final class TaskKey {
+
+        private final String connectorName;
+
+        private final ConnectKeyValue taskConfig;
+
+        private final Map<String, String> properties;
+
+        private final int hash;
+
+        private TaskKey(String connectorName, ConnectKeyValue taskConfig) {
+            this.connectorName = connectorName;
+            this.taskConfig = taskConfig;
+            this.properties = taskConfig.getProperties();
+            this.hash = 31 * Objects.hashCode(connectorName) + taskConfig.hashCode();
+        }
+
+        private TaskKey(WorkerTask workerTask) {
+            TaskConfigSnapshot taskConfigSnapshot = workerTask.getTaskConfigSnapshot();
+            this.connectorName = workerTask.getConnectorName();
+            this.taskConfig = workerTask.getTaskConfig();
+            this.properties = taskConfigSnapshot.getProperties();
+            this.hash = 31 * Objects.hashCode(connectorName) + taskConfigSnapshot.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof TaskKey)) {
+                return false;
+            }
+            TaskKey taskKey = (TaskKey) o;
+            return hash == taskKey.hash && Objects.equals(connectorName, taskKey.connectorName)
+                && properties.equals(taskKey.properties);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
 }
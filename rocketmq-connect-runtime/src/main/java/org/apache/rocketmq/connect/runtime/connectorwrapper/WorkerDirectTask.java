@@ -35,9 +35,11 @@ import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 import org.apache.rocketmq.connect.runtime.common.ConnectKeyValue;
 import org.apache.rocketmq.connect.runtime.common.LoggerName;
+import org.apache.rocketmq.connect.runtime.common.TaskConfigSnapshot;
 import org.apache.rocketmq.connect.runtime.config.RuntimeConfigDefine;
 import org.apache.rocketmq.connect.runtime.service.PositionManagementService;
 import org.apache.rocketmq.connect.runtime.store.PositionStorageReaderImpl;
+import org.apache.rocketmq.connect.runtime.utils.ServiceThread;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,6 +50,25 @@ public class WorkerDirectTask implements WorkerTask {
 
     private static final Logger log = LoggerFactory.getLogger(LoggerName.ROCKETMQ_RUNTIME);
 
+    /**
+     * Max records buffered between source poll and sink put in pipeline mode.
+     */
+    public static final String PIPELINE_BUFFER_SIZE_CONFIG = "pipeline-buffer-size";
+
+    private static final int DEFAULT_PIPELINE_BUFFER_SIZE = 1024;
+
+    /**
+     * Max records of one sink put in pipeline mode.
+     */
+    public static final String PIPELINE_PUT_MAX_RECORDS_CONFIG = "pipeline-put-max-records";
+
+    private static final int DEFAULT_PIPELINE_PUT_MAX_RECORDS = 256;
+
+    /**
+     * Max time a pipeline stage waits on the buffer before checking the task state again.
+     */
+    private static final long PIPELINE_WAIT_MS = 100;
+
     /**
      * Connector name of current task.
      */
@@ -68,10 +89,12 @@ public class WorkerDirectTask implements WorkerTask {
      */
     private ConnectKeyValue taskConfig;
 
+    private final TaskConfigSnapshot taskConfigSnapshot;
+
     /**
      * Atomic state variable
      */
-    private AtomicReference<WorkerTaskState> state;
+    private final WorkerTaskStateHolder state;
 
     private final PositionManagementService positionManagementService;
 
@@ -79,6 +102,22 @@ public class WorkerDirectTask implements WorkerTask {
 
     private final AtomicReference<WorkerState> workerState;
 
+    /**
+     * Null unless pipeline mode is enabled, then source poll runs on its own thread and feeds the sink through it.
+     */
+    private final DirectRecordRingBuffer pipelineBuffer;
+
+    private final int pipelinePutMaxRecords;
+
+    private final long positionFlushIntervalMs;
+
+    /**
+     * Positions of the records put to the sink and not yet flushed, the sink put thread only.
+     */
+    private final Map<RecordPartition, RecordOffset> drainedPositions = new HashMap<>();
+
+    private long lastPositionFlushTimestamp;
+
     public WorkerDirectTask(String connectorName,
         SourceTask sourceTask,
         SinkTask sinkTask,
@@ -89,10 +128,16 @@ public class WorkerDirectTask implements WorkerTask {
         this.sourceTask = sourceTask;
         this.sinkTask = sinkTask;
         this.taskConfig = taskConfig;
+        this.taskConfigSnapshot = new TaskConfigSnapshot(taskConfig);
         this.positionManagementService = positionManagementService;
         this.positionStorageReader = new PositionStorageReaderImpl(positionManagementService);
-        this.state = new AtomicReference<>(WorkerTaskState.NEW);
+        this.state = new WorkerTaskStateHolder(this);
         this.workerState = workerState;
+        boolean pipelineEnable = Boolean.parseBoolean(taskConfig.getString(WorkerSinkTask.PIPELINE_ENABLE_CONFIG, "false"));
+        this.pipelineBuffer = pipelineEnable
+            ? new DirectRecordRingBuffer(taskConfig.getInt(PIPELINE_BUFFER_SIZE_CONFIG, DEFAULT_PIPELINE_BUFFER_SIZE)) : null;
+        this.pipelinePutMaxRecords = taskConfig.getInt(PIPELINE_PUT_MAX_RECORDS_CONFIG, DEFAULT_PIPELINE_PUT_MAX_RECORDS);
+        this.positionFlushIntervalMs = taskConfig.getLong(WorkerSourceTask.POSITION_FLUSH_INTERVAL_MS_CONFIG, 1000);
     }
 
     /**
@@ -104,15 +149,19 @@ public class WorkerDirectTask implements WorkerTask {
             starkSinkTask();
             startSourceTask();
             log.info("Direct task start, config:{}", JSON.toJSONString(taskConfig));
-            while (WorkerState.STARTED == workerState.get() && WorkerTaskState.RUNNING == state.get()) {
-                try {
-                    Collection<ConnectRecord> toSendEntries = sourceTask.poll();
-                    if (null != toSendEntries && toSendEntries.size() > 0) {
-                        sendRecord(toSendEntries);
+            if (null != pipelineBuffer) {
+                runPipeline();
+            } else {
+                while (WorkerState.STARTED == workerState.get() && WorkerTaskState.RUNNING == state.get()) {
+                    try {
+                        Collection<ConnectRecord> toSendEntries = sourceTask.poll();
+                        if (null != toSendEntries && toSendEntries.size() > 0) {
+                            sendRecord(toSendEntries);
+                        }
+                    } catch (Exception e) {
+                        log.error("Direct task runtime exception", e);
+                        state.set(WorkerTaskState.ERROR);
                     }
-                } catch (Exception e) {
-                    log.error("Direct task runtime exception", e);
-                    state.set(WorkerTaskState.ERROR);
                 }
             }
             stopSourceTask();
@@ -125,6 +174,69 @@ public class WorkerDirectTask implements WorkerTask {
         }
     }
 
+    /**
+     * Run the sink put stage on the task thread while a poll service fills the buffer, until the task stops.
+     */
+    private void runPipeline() {
+        DirectSourcePollService pollService = new DirectSourcePollService();
+        pollService.start();
+        try {
+            List<ConnectRecord> records = new ArrayList<>(pipelinePutMaxRecords);
+            while (WorkerState.STARTED == workerState.get() && WorkerTaskState.RUNNING == state.get()) {
+                try {
+                    if (pipelineBuffer.drainTo(records, pipelinePutMaxRecords, PIPELINE_WAIT_MS) > 0) {
+                        putDrainedRecords(records);
+                        records = new ArrayList<>(pipelinePutMaxRecords);
+                    }
+                    flushDrainedPositions(false);
+                } catch (InterruptedException e) {
+                    log.info("Direct task interrupted, config:{}", JSON.toJSONString(taskConfig));
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        } finally {
+            pollService.shutdown(true);
+            flushDrainedPositions(true);
+        }
+    }
+
+    /**
+     * Put drained records to the sink and keep their positions for the next flush. A failed put stops the task
+     * without keeping the positions, so the failed records are not committed as delivered.
+     */
+    private void putDrainedRecords(List<ConnectRecord> records) {
+        try {
+            sinkTask.put(records);
+        } catch (Exception e) {
+            log.error("Send message error, error info: {}.", e);
+            state.set(WorkerTaskState.ERROR);
+            return;
+        }
+        for (ConnectRecord record : records) {
+            if (null != record.getPosition() && null != record.getPosition().getPartition() && null != record.getPosition().getOffset()) {
+                drainedPositions.put(record.getPosition().getPartition(), record.getPosition().getOffset());
+            }
+        }
+    }
+
+    /**
+     * Put the positions of the records drained to the sink, at most once per flush interval unless forced.
+     */
+    private void flushDrainedPositions(boolean force) {
+        long now = System.currentTimeMillis();
+        if (drainedPositions.isEmpty() || !force && now - lastPositionFlushTimestamp < positionFlushIntervalMs) {
+            return;
+        }
+        lastPositionFlushTimestamp = now;
+        try {
+            positionManagementService.putPosition(new HashMap<>(drainedPositions));
+        } catch (Exception e) {
+            log.error("Source task save position info failed.", e);
+        }
+        drainedPositions.clear();
+    }
+
     private void sendRecord(Collection<ConnectRecord> sourceDataEntries) {
         List<ConnectRecord> sinkDataEntries = new ArrayList<>(sourceDataEntries.size());
         RecordPartition partition = null;
@@ -219,6 +331,11 @@ public class WorkerDirectTask implements WorkerTask {
         return this.state.get();
     }
 
+    @Override
+    public void setStateListener(TaskStateListener listener) {
+        this.state.setListener(listener);
+    }
+
     @Override
     public void stop() {
         state.compareAndSet(WorkerTaskState.RUNNING, WorkerTaskState.STOPPING);
@@ -243,6 +360,11 @@ public class WorkerDirectTask implements WorkerTask {
         return taskConfig;
     }
 
+    @Override
+    public TaskConfigSnapshot getTaskConfigSnapshot() {
+        return taskConfigSnapshot;
+    }
+
     @Override
     public Object getJsonObject() {
         HashMap obj = new HashMap<String, Object>();
@@ -256,4 +378,42 @@ public class WorkerDirectTask implements WorkerTask {
     public void timeout() {
         this.state.set(WorkerTaskState.ERROR);
     }
+
+    /**
+     * Polls the source task into the pipeline buffer.
+     */
+    private class DirectSourcePollService extends ServiceThread {
+
+        @Override
+        public void run() {
+            log.info("{} service started", this.getServiceName());
+            while (!this.isStopped() && WorkerTaskState.RUNNING == state.get()) {
+                try {
+                    Collection<ConnectRecord> toSendEntries = sourceTask.poll();
+                    if (null == toSendEntries) {
+                        continue;
+                    }
+                    for (ConnectRecord record : toSendEntries) {
+                        while (!pipelineBuffer.put(record, PIPELINE_WAIT_MS)) {
+                            if (this.isStopped() || WorkerTaskState.RUNNING != state.get()) {
+                                return;
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    log.info("{} service interrupted", this.getServiceName());
+                    break;
+                } catch (Exception e) {
+                    log.error("Direct task runtime exception", e);
+                    state.set(WorkerTaskState.ERROR);
+                }
+            }
+            log.info("{} service end", this.getServiceName());
+        }
+
+        @Override
+        public String getServiceName() {
+            return DirectSourcePollService.class.getSimpleName() + "-" + connectorName;
+        }
+    }
 }
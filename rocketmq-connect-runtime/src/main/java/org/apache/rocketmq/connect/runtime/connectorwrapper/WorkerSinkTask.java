@@ -30,6 +30,7 @@ import io.openmessaging.connector.api.errors.RetriableException;
 import io.openmessaging.internal.DefaultKeyValue;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -39,14 +40,18 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.rocketmq.client.consumer.DefaultMQPullConsumer;
 import org.apache.rocketmq.client.consumer.MessageQueueListener;
+import org.apache.rocketmq.client.consumer.PullCallback;
 import org.apache.rocketmq.client.consumer.PullResult;
 import org.apache.rocketmq.client.consumer.PullStatus;
 import org.apache.rocketmq.client.consumer.store.ReadOffsetType;
@@ -56,13 +61,17 @@ import org.apache.rocketmq.common.message.MessageExt;
 import org.apache.rocketmq.common.message.MessageQueue;
 import org.apache.rocketmq.connect.runtime.common.ConnectKeyValue;
 import org.apache.rocketmq.connect.runtime.common.LoggerName;
+import org.apache.rocketmq.connect.runtime.common.QueueOffsetMap;
 import org.apache.rocketmq.connect.runtime.common.QueueState;
+import org.apache.rocketmq.connect.runtime.common.TaskConfigSnapshot;
 import org.apache.rocketmq.connect.runtime.config.RuntimeConfigDefine;
 import org.apache.rocketmq.connect.runtime.config.SinkConnectorConfig;
 import org.apache.rocketmq.connect.runtime.converter.RocketMQConverter;
+import org.apache.rocketmq.connect.runtime.service.SchemaRegistryService;
 import org.apache.rocketmq.connect.runtime.stats.ConnectStatsManager;
 import org.apache.rocketmq.connect.runtime.stats.ConnectStatsService;
 import org.apache.rocketmq.connect.runtime.utils.ConnectUtil;
+import org.apache.rocketmq.connect.runtime.utils.ServiceThread;
 import org.apache.rocketmq.remoting.exception.RemotingException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -102,13 +111,14 @@ public class WorkerSinkTask implements WorkerTask {
     private ConnectKeyValue taskConfig;
 
     /**
-     * Atomic state variable
+     * Typed snapshot of the task config, read by the hot paths instead of reparsing the config.
      */
-    private AtomicReference<WorkerTaskState> state;
+    private final TaskConfigSnapshot taskConfigSnapshot;
 
     /**
-     * Stop retry limit
+     * Atomic state variable
      */
+    private final WorkerTaskStateHolder state;
 
     /**
      * A RocketMQ consumer to pull message from MQ.
@@ -133,11 +143,130 @@ public class WorkerSinkTask implements WorkerTask {
 
     public static final String OFFSET_COMMIT_TIMEOUT_MS_CONFIG = "offset.flush.timeout.ms";
 
+    /**
+     * Whether to pull all assigned queues concurrently with async long polling, keeping at most one outstanding
+     * pull request per queue, instead of pulling the queues one after another.
+     */
+    public static final String PULL_ASYNC_ENABLE_CONFIG = "pull-async-enable";
+
+    private static final long ASYNC_PULL_RESULT_WAIT_MS = 500;
+
+    /**
+     * Whether to prefetch messages on a separate fetcher thread into bounded per queue buffers, so that pulling from
+     * the broker overlaps with {@link SinkTask#put(List)} on the task thread.
+     */
+    public static final String PIPELINE_ENABLE_CONFIG = "pipeline-enable";
+
+    /**
+     * Max records prefetched for one queue, the queue is paused when its buffer reaches the limit.
+     */
+    public static final String PREFETCH_MAX_RECORDS_CONFIG = "prefetch-max-records";
+
+    /**
+     * Max message body bytes prefetched for one queue, the queue is paused when its buffer reaches the limit.
+     */
+    public static final String PREFETCH_MAX_BYTES_CONFIG = "prefetch-max-bytes";
+
+    private static final long DEFAULT_PREFETCH_MAX_RECORDS = 1024;
+
+    private static final long DEFAULT_PREFETCH_MAX_BYTES = 16 * 1024 * 1024;
+
+    private static final long PREFETCH_WAIT_MS = 500;
+
+    /**
+     * Whether to adapt the pull size and the put batch size to put latency, pull RT and queue backlog, instead of
+     * pulling a fixed {@link #MAX_MESSAGE_NUM} messages per request.
+     */
+    public static final String BATCH_ADAPTIVE_ENABLE_CONFIG = "batch-adaptive-enable";
+
+    public static final String BATCH_MIN_RECORDS_CONFIG = "batch-min-records";
+
+    /**
+     * Ceiling of both the pull size and the put batch size, note the broker still caps the messages it transfers
+     * per pull.
+     */
+    public static final String BATCH_MAX_RECORDS_CONFIG = "batch-max-records";
+
+    /**
+     * Ceiling of the message body bytes handed to one put call.
+     */
+    public static final String BATCH_MAX_BYTES_CONFIG = "batch-max-bytes";
+
+    /**
+     * Put latency above which the batch sizes shrink.
+     */
+    public static final String BATCH_TARGET_PUT_LATENCY_MS_CONFIG = "batch-target-put-latency-ms";
+
+    private static final int DEFAULT_BATCH_MIN_RECORDS = 1;
+
+    private static final int DEFAULT_BATCH_MAX_RECORDS = 1024;
+
+    private static final long DEFAULT_BATCH_MAX_BYTES = 4 * 1024 * 1024;
+
+    private static final long DEFAULT_BATCH_TARGET_PUT_LATENCY_MS = 1000;
+
+    /**
+     * How long records may wait for more records before they are put, 0 puts the records of every pull at once.
+     */
+    public static final String LINGER_MS_CONFIG = "linger-ms";
+
+    /**
+     * Records which trigger a put before the linger time is up.
+     */
+    public static final String LINGER_MAX_RECORDS_CONFIG = "linger-max-records";
+
+    /**
+     * Message body bytes which trigger a put before the linger time is up.
+     */
+    public static final String LINGER_MAX_BYTES_CONFIG = "linger-max-bytes";
+
+    private static final int DEFAULT_LINGER_MAX_RECORDS = 1000;
+
+    private static final long DEFAULT_LINGER_MAX_BYTES = 4 * 1024 * 1024;
+
+    /**
+     * Number of delivery lanes putting records concurrently, records are hashed into lanes by {@link #LANE_KEY_CONFIG}
+     * or by their partition so that the order per queue or per key holds. 1 puts all records on the task thread.
+     */
+    public static final String LANE_NUM_CONFIG = "lane-num";
+
+    /**
+     * Extension key to hash records into lanes by, instead of their partition.
+     */
+    public static final String LANE_KEY_CONFIG = "lane-key";
+
+    /**
+     * Whether all lanes share the sink task instance because its put is thread safe, otherwise every lane puts to
+     * its own sink task instance. Such an instance is created by the no-arg constructor of the sink task class,
+     * started with the task context of the sink task and gets every preCommit, so the sink task has to tolerate
+     * several instances sharing one context: a pause, resume or offset reset by any of them applies to the whole task.
+     */
+    public static final String LANE_SHARED_TASK_CONFIG = "lane-shared-task";
+
+    /**
+     * Deliveries which may be put by the lanes while the task thread keeps pulling.
+     */
+    public static final String LANE_MAX_PENDING_CONFIG = "lane-max-pending";
+
+    private static final int DEFAULT_LANE_MAX_PENDING = 16;
+
+    /**
+     * Max distinct schemas cached per task, 0 parses the schema of every message.
+     */
+    public static final String SCHEMA_CACHE_SIZE_CONFIG = "schema-cache-size";
+
+    private static final long DEFAULT_SCHEMA_CACHE_SIZE = 1024;
+
     private long nextCommitTime = 0;
 
     private Set<RecordPartition> recordPartitions = new CopyOnWriteArraySet<>();
 
-    private long pullMsgErrorCount = 0;
+    private final RecordPartitionRegistry recordPartitionRegistry = new RecordPartitionRegistry();
+
+    /**
+     * Consecutive pull errors, counted by the task thread and the prefetch service.
+     */
+    private final AtomicLong pullMsgErrorCount = new AtomicLong();
 
     private static final long PULL_MSG_ERROR_BACKOFF_MS = 1000 * 10;
 
@@ -155,10 +284,82 @@ public class WorkerSinkTask implements WorkerTask {
 
     private final TransformChain<ConnectRecord> transformChain;
 
+    private final boolean pullAsyncEnable;
+
+    /**
+     * Queues which have an outstanding async pull request, mapped to the offset the request was issued from.
+     */
+    private final ConcurrentHashMap<MessageQueue, Long> inflightPullOffsets;
+
+    /**
+     * Completed async pull requests waiting to be delivered by the task thread.
+     */
+    private final LinkedBlockingQueue<AsyncPullResult> asyncPullResults;
+
+    private final boolean pipelineEnable;
+
+    private final long prefetchMaxRecords;
+
+    private final long prefetchMaxBytes;
+
+    private final long offsetCommitIntervalMs;
+
+    /**
+     * Next offsets of the messages delivered to the sink task. In pipeline, linger or lane mode these are committed
+     * instead of the pull offsets in messageQueuesOffsetMap, which run ahead by the prefetched, lingering or
+     * pending messages.
+     */
+    private final ConcurrentHashMap<MessageQueue, Long> deliveredOffsetMap;
+
+    private final ConcurrentHashMap<MessageQueue, SinkPrefetchBuffer> prefetchBuffers;
+
+    /**
+     * Queues paused because their prefetch buffer is full, resumed once the delivery stage drains it. Kept apart from
+     * the queues paused by the connector, so draining a buffer never resumes a queue the connector paused.
+     */
+    private final Set<MessageQueue> prefetchPausedQueues;
+
+    /**
+     * Guards the prefetch buffers against offset resets, so a pull result accepted before a reset never lands in a
+     * buffer cleared by it.
+     */
+    private final ReentrantLock prefetchLock = new ReentrantLock();
+
+    private final Condition prefetchNotEmpty = prefetchLock.newCondition();
+
+    private SinkPrefetchService prefetchService;
+
+    /**
+     * Null unless the adaptive batch size is enabled.
+     */
+    private final SinkBatchController batchController;
+
+    /**
+     * Null unless linger is enabled.
+     */
+    private final SinkLingerBatch lingerBatch;
+
+    private final int laneNum;
+
+    /**
+     * Null unless more than one lane is configured.
+     */
+    private volatile SinkDeliveryLanes deliveryLanes;
+
+    /**
+     * Null if the schema cache is disabled.
+     */
+    private final SchemaCache schemaCache;
+
+    /**
+     * Resolves the schema id sent by source tasks with schema registry enabled.
+     */
+    private final SchemaRegistryService schemaRegistryService;
+
     public static final String BROKER_NAME = "brokerName";
     public static final String QUEUE_ID = "queueId";
     public static final String TOPIC = "topic";
-    public static final String QUEUE_OFFSET = "queueOffset";
+    public static final String QUEUE_OFFSET = QueueOffsetMap.QUEUE_OFFSET;
 
     private static final Set<String> MQ_SYS_KEYS = new HashSet<String>() {
         {
@@ -180,20 +381,73 @@ public class WorkerSinkTask implements WorkerTask {
         AtomicReference<WorkerState> workerState,
         ConnectStatsManager connectStatsManager,
         ConnectStatsService connectStatsService,
+        SchemaRegistryService schemaRegistryService,
+        TransformChain<ConnectRecord> transformChain) {
+        this(connectorName, sinkTask, taskConfig, new TaskConfigSnapshot(taskConfig), recordConverter, consumer,
+            workerState, connectStatsManager, connectStatsService, schemaRegistryService, transformChain);
+    }
+
+    /**
+     * @param taskConfigSnapshot snapshot of the task config, shared with the transform chain of the task
+     */
+    public WorkerSinkTask(String connectorName,
+        SinkTask sinkTask,
+        ConnectKeyValue taskConfig,
+        TaskConfigSnapshot taskConfigSnapshot,
+        Converter recordConverter,
+        DefaultMQPullConsumer consumer,
+        AtomicReference<WorkerState> workerState,
+        ConnectStatsManager connectStatsManager,
+        ConnectStatsService connectStatsService,
+        SchemaRegistryService schemaRegistryService,
         TransformChain<ConnectRecord> transformChain) {
         this.connectorName = connectorName;
         this.sinkTask = sinkTask;
         this.taskConfig = taskConfig;
+        this.taskConfigSnapshot = taskConfigSnapshot;
         this.consumer = consumer;
         this.recordConverter = recordConverter;
         this.messageQueuesOffsetMap = new ConcurrentHashMap<>(256);
         this.messageQueuesStateMap = new ConcurrentHashMap<>(256);
-        this.state = new AtomicReference<>(WorkerTaskState.NEW);
+        this.state = new WorkerTaskStateHolder(this);
         this.workerState = workerState;
         this.connectStatsManager = connectStatsManager;
         this.connectStatsService = connectStatsService;
         this.stopPullMsgLatch = new CountDownLatch(1);
         this.transformChain = transformChain;
+        this.pullAsyncEnable = taskConfigSnapshot.getBoolean(PULL_ASYNC_ENABLE_CONFIG, false);
+        this.inflightPullOffsets = new ConcurrentHashMap<>(256);
+        this.asyncPullResults = new LinkedBlockingQueue<>();
+        this.pipelineEnable = taskConfigSnapshot.getBoolean(PIPELINE_ENABLE_CONFIG, false);
+        this.prefetchMaxRecords = taskConfigSnapshot.getLong(PREFETCH_MAX_RECORDS_CONFIG, DEFAULT_PREFETCH_MAX_RECORDS);
+        this.prefetchMaxBytes = taskConfigSnapshot.getLong(PREFETCH_MAX_BYTES_CONFIG, DEFAULT_PREFETCH_MAX_BYTES);
+        this.offsetCommitIntervalMs = taskConfigSnapshot.getLong(OFFSET_COMMIT_TIMEOUT_MS_CONFIG, 1000);
+        this.deliveredOffsetMap = new ConcurrentHashMap<>(256);
+        this.prefetchBuffers = new ConcurrentHashMap<>(256);
+        this.prefetchPausedQueues = new CopyOnWriteArraySet<>();
+        if (taskConfigSnapshot.getBoolean(BATCH_ADAPTIVE_ENABLE_CONFIG, false)) {
+            this.batchController = new SinkBatchController(
+                taskConfigSnapshot.getInt(BATCH_MIN_RECORDS_CONFIG, DEFAULT_BATCH_MIN_RECORDS),
+                taskConfigSnapshot.getInt(BATCH_MAX_RECORDS_CONFIG, DEFAULT_BATCH_MAX_RECORDS),
+                taskConfigSnapshot.getLong(BATCH_MAX_BYTES_CONFIG, DEFAULT_BATCH_MAX_BYTES),
+                taskConfigSnapshot.getLong(BATCH_TARGET_PUT_LATENCY_MS_CONFIG, DEFAULT_BATCH_TARGET_PUT_LATENCY_MS),
+                MAX_MESSAGE_NUM);
+        } else {
+            this.batchController = null;
+        }
+        long lingerMs = taskConfigSnapshot.getLong(LINGER_MS_CONFIG, 0);
+        if (lingerMs > 0) {
+            this.lingerBatch = new SinkLingerBatch(
+                taskConfigSnapshot.getInt(LINGER_MAX_RECORDS_CONFIG, DEFAULT_LINGER_MAX_RECORDS),
+                taskConfigSnapshot.getLong(LINGER_MAX_BYTES_CONFIG, DEFAULT_LINGER_MAX_BYTES),
+                lingerMs);
+        } else {
+            this.lingerBatch = null;
+        }
+        this.laneNum = taskConfigSnapshot.getInt(LANE_NUM_CONFIG, 1);
+        long schemaCacheSize = taskConfigSnapshot.getLong(SCHEMA_CACHE_SIZE_CONFIG, DEFAULT_SCHEMA_CACHE_SIZE);
+        this.schemaCache = schemaCacheSize > 0 ? new SchemaCache(schemaCacheSize) : null;
+        this.schemaRegistryService = schemaRegistryService;
     }
 
     /**
@@ -211,31 +465,51 @@ public class WorkerSinkTask implements WorkerTask {
             sinkTask.start(sinkTaskContext);
             // we assume executed here means we are safe
             log.info("Sink task start, config:{}", JSON.toJSONString(taskConfig));
+            if (laneNum > 1) {
+                deliveryLanes = newDeliveryLanes();
+            }
             state.compareAndSet(WorkerTaskState.PENDING, WorkerTaskState.RUNNING);
+            if (pipelineEnable) {
+                prefetchService = new SinkPrefetchService();
+                prefetchService.start();
+            }
 
             while (WorkerState.STARTED == workerState.get() && WorkerTaskState.RUNNING == state.get()) {
                 // this method can block up to 3 minutes long
                 try {
+                    if (null != deliveryLanes) {
+                        commitCompletedDeliveries();
+                    }
                     preCommit(false);
                     setQueueOffset();
-                    pullMessageFromQueues();
+                    if (null != lingerBatch && lingerBatch.isDue(System.currentTimeMillis())) {
+                        flushLingerBatch();
+                    }
+                    if (pipelineEnable) {
+                        deliverPrefetchedMessages();
+                    } else if (pullAsyncEnable) {
+                        pullMessageFromQueuesAsync();
+                    } else {
+                        pullMessageFromQueues();
+                    }
                 } catch (RetriableException e) {
                     connectStatsManager.incSinkRecordPutTotalFailNums();
-                    connectStatsManager.incSinkRecordPutFailNums(taskConfig.getString(RuntimeConfigDefine.TASK_ID));
+                    connectStatsManager.incSinkRecordPutFailNums(taskConfigSnapshot.getTaskId());
                     log.error("Sink task RetriableException exception", e);
                 } catch (InterruptedException e) {
                     connectStatsManager.incSinkRecordPutTotalFailNums();
-                    connectStatsManager.incSinkRecordPutFailNums(taskConfig.getString(RuntimeConfigDefine.TASK_ID));
+                    connectStatsManager.incSinkRecordPutFailNums(taskConfigSnapshot.getTaskId());
                     log.error("Sink task InterruptedException exception", e);
                     throw e;
                 } catch (Throwable e) {
                     state.set(WorkerTaskState.ERROR);
                     log.error(" sink task {},pull message MQClientException, Error {} ", this, e.getMessage(), e);
                     connectStatsManager.incSinkRecordPutTotalFailNums();
-                    connectStatsManager.incSinkRecordPutFailNums(taskConfig.getString(RuntimeConfigDefine.TASK_ID));
+                    connectStatsManager.incSinkRecordPutFailNums(taskConfigSnapshot.getTaskId());
                 }
             }
 
+            stopDeliveryLanes();
             sinkTask.stop();
             state.compareAndSet(WorkerTaskState.STOPPING, WorkerTaskState.STOPPED);
             log.info("Sink task stop, config:{}", JSON.toJSONString(taskConfig));
@@ -244,6 +518,10 @@ public class WorkerSinkTask implements WorkerTask {
             log.error("Run task failed.", e);
             state.set(WorkerTaskState.ERROR);
         } finally {
+            if (prefetchService != null) {
+                prefetchService.shutdown(true);
+            }
+            stopDeliveryLanes();
             if (consumer != null) {
                 consumer.shutdown();
                 log.info("Sink task consumer shutdown. config:{}", JSON.toJSONString(taskConfig));
@@ -251,14 +529,32 @@ public class WorkerSinkTask implements WorkerTask {
         }
     }
 
-    private void setQueueOffset() {
+    private void setQueueOffset() throws InterruptedException {
         Map<MessageQueue, Long> messageQueueOffsetMap = this.sinkTaskContext.queuesOffsets();
         if (org.apache.commons.collections4.MapUtils.isEmpty(messageQueueOffsetMap)) {
             return;
         }
         for (Map.Entry<MessageQueue, Long> entry : messageQueueOffsetMap.entrySet()) {
             if (messageQueuesOffsetMap.containsKey(entry.getKey())) {
-                this.messageQueuesOffsetMap.put(entry.getKey(), entry.getValue());
+                if (null != lingerBatch) {
+                    // drop the lingering records, they are pulled again from the reset offset
+                    lingerBatch.removeQueue(entry.getKey());
+                }
+                if (null != deliveryLanes) {
+                    deliveryLanes.discardOffsets(entry.getKey());
+                }
+                prefetchLock.lock();
+                try {
+                    this.messageQueuesOffsetMap.put(entry.getKey(), entry.getValue());
+                    this.deliveredOffsetMap.put(entry.getKey(), entry.getValue());
+                    SinkPrefetchBuffer prefetchBuffer = prefetchBuffers.get(entry.getKey());
+                    if (null != prefetchBuffer) {
+                        prefetchBuffer.clear();
+                    }
+                } finally {
+                    prefetchLock.unlock();
+                }
+                resumePrefetch(entry.getKey());
                 try {
                     consumer.updateConsumeOffset(entry.getKey(), entry.getValue());
                 } catch (MQClientException e) {
@@ -280,11 +576,22 @@ public class WorkerSinkTask implements WorkerTask {
                 public void messageQueueChanged(String topic, Set<MessageQueue> mqAll, Set<MessageQueue> mqDivided) {
                     log.info("messageQueueChanged, old messageQueuesOffsetMap {}", JSON.toJSONString(messageQueuesOffsetMap));
                     WorkerSinkTask.this.preCommit(true);
-                    messageQueuesOffsetMap.forEach((key, value) -> {
-                        if (key.getTopic().equals(topic)) {
-                            messageQueuesOffsetMap.remove(key, value);
-                        }
-                    });
+                    prefetchLock.lock();
+                    try {
+                        messageQueuesOffsetMap.forEach((key, value) -> {
+                            if (key.getTopic().equals(topic)) {
+                                messageQueuesOffsetMap.remove(key, value);
+                            }
+                        });
+                        deliveredOffsetMap.keySet().removeIf(key -> key.getTopic().equals(topic));
+                        prefetchBuffers.keySet().removeIf(key -> key.getTopic().equals(topic));
+                    } finally {
+                        prefetchLock.unlock();
+                    }
+                    if (null != batchController) {
+                        batchController.removeTopic(topic);
+                    }
+                    prefetchPausedQueues.removeIf(key -> key.getTopic().equals(topic));
 
                     Set<RecordPartition> waitRemoveQueueMetaDatas = new HashSet<>();
                     recordPartitions.forEach(key -> {
@@ -293,9 +600,12 @@ public class WorkerSinkTask implements WorkerTask {
                         }
                     });
                     recordPartitions.removeAll(waitRemoveQueueMetaDatas);
+                    recordPartitionRegistry.removeTopic(topic);
                     for (MessageQueue messageQueue : mqDivided) {
-                        messageQueuesOffsetMap.put(messageQueue, consumeFromOffset(messageQueue, taskConfig));
-                        RecordPartition recordPartition = ConnectUtil.convertToRecordPartition(messageQueue);
+                        long offset = consumeFromOffset(messageQueue, taskConfig);
+                        messageQueuesOffsetMap.put(messageQueue, offset);
+                        deliveredOffsetMap.put(messageQueue, offset);
+                        RecordPartition recordPartition = recordPartitionRegistry.get(messageQueue);
                         recordPartitions.add(recordPartition);
                     }
                     log.info("messageQueueChanged, new messageQueuesOffsetMap {}", JSON.toJSONString(messageQueuesOffsetMap));
@@ -312,7 +622,7 @@ public class WorkerSinkTask implements WorkerTask {
             offset = consumer.getOffsetStore().readOffset(messageQueue, ReadOffsetType.READ_FROM_STORE);
         }
 
-        String consumeFromWhere = taskConfig.getString("consume-from-where");
+        String consumeFromWhere = taskConfigSnapshot.getString("consume-from-where");
         if (StringUtils.isBlank(consumeFromWhere)) {
             consumeFromWhere = "CONSUME_FROM_LAST_OFFSET";
         }
@@ -355,131 +665,510 @@ public class WorkerSinkTask implements WorkerTask {
             stopPullMsgLatch.await(PULL_MSG_ERROR_BACKOFF_MS, TimeUnit.MILLISECONDS);
         }
         for (Map.Entry<MessageQueue, Long> entry : messageQueuesOffsetMap.entrySet()) {
+            if (prefetchPausedQueues.contains(entry.getKey())) {
+                continue;
+            }
             if (messageQueuesStateMap.containsKey(entry.getKey())) {
-                log.warn("sink task message queue state is not running, sink task id {}, queue info {}, queue state {}", taskConfig.getString(RuntimeConfigDefine.TASK_ID), JSON.toJSONString(entry.getKey()), JSON.toJSONString(messageQueuesStateMap.get(entry.getKey())));
+                log.warn("sink task message queue state is not running, sink task id {}, queue info {}, queue state {}", taskConfigSnapshot.getTaskId(), JSON.toJSONString(entry.getKey()), JSON.toJSONString(messageQueuesStateMap.get(entry.getKey())));
                 continue;
             }
             log.info("START pullBlockIfNotFound, time started : {}", System.currentTimeMillis());
 
             if (WorkerTaskState.RUNNING != state.get()) {
-                log.warn("sink task state is not running, sink task id {}, state {}", taskConfig.getString(RuntimeConfigDefine.TASK_ID), state.get().name());
+                log.warn("sink task state is not running, sink task id {}, state {}", taskConfigSnapshot.getTaskId(), state.get().name());
                 break;
             }
             PullResult pullResult = null;
             final long beginPullMsgTimestamp = System.currentTimeMillis();
             try {
                 shouldStopPullMsg();
-                pullResult = consumer.pullBlockIfNotFound(entry.getKey(), "*", entry.getValue(), MAX_MESSAGE_NUM);
-                pullMsgErrorCount = 0;
+                pullResult = consumer.pullBlockIfNotFound(entry.getKey(), "*", entry.getValue(), pullBatchSize(entry.getKey()));
+                pullMsgErrorCount.set(0);
             } catch (MQClientException e) {
-                pullMsgErrorCount++;
+                pullMsgErrorCount.incrementAndGet();
                 log.error(" sink task message queue {}, offset {}, taskconfig {},pull message MQClientException, Error {}, taskState {}", JSON.toJSONString(entry.getKey()), JSON.toJSONString(entry.getValue()), JSON.toJSONString(taskConfig), e.getMessage(), this.state.get(), e);
                 connectStatsManager.incSinkRecordReadTotalFailNums();
-                connectStatsManager.incSinkRecordReadFailNums(taskConfig.getString(RuntimeConfigDefine.TASK_ID));
+                connectStatsManager.incSinkRecordReadFailNums(taskConfigSnapshot.getTaskId());
                 long errorPullRT = System.currentTimeMillis() - beginPullMsgTimestamp;
                 connectStatsManager.incSinkRecordReadTotalFailRT(errorPullRT);
-                connectStatsManager.incSinkRecordReadFailRT(taskConfig.getString(RuntimeConfigDefine.TASK_ID), errorPullRT);
+                connectStatsManager.incSinkRecordReadFailRT(taskConfigSnapshot.getTaskId(), errorPullRT);
             } catch (RemotingException e) {
-                pullMsgErrorCount++;
+                pullMsgErrorCount.incrementAndGet();
                 log.error(" sink task message queue {}, offset {}, taskconfig {},pull message RemotingException, Error {}, taskState {}", JSON.toJSONString(entry.getKey()), JSON.toJSONString(entry.getValue()), JSON.toJSONString(taskConfig), e.getMessage(), this.state.get(), e);
                 connectStatsManager.incSinkRecordReadTotalFailNums();
-                connectStatsManager.incSinkRecordReadFailNums(taskConfig.getString(RuntimeConfigDefine.TASK_ID));
+                connectStatsManager.incSinkRecordReadFailNums(taskConfigSnapshot.getTaskId());
                 long errorPullRT = System.currentTimeMillis() - beginPullMsgTimestamp;
                 connectStatsManager.incSinkRecordReadTotalFailRT(errorPullRT);
-                connectStatsManager.incSinkRecordReadFailRT(taskConfig.getString(RuntimeConfigDefine.TASK_ID), errorPullRT);
+                connectStatsManager.incSinkRecordReadFailRT(taskConfigSnapshot.getTaskId(), errorPullRT);
             } catch (MQBrokerException e) {
-                pullMsgErrorCount++;
+                pullMsgErrorCount.incrementAndGet();
                 log.error(" sink task message queue {}, offset {}, taskconfig {},pull message MQBrokerException, Error {}, taskState {}", JSON.toJSONString(entry.getKey()), JSON.toJSONString(entry.getValue()), JSON.toJSONString(taskConfig), e.getMessage(), this.state.get(), e);
                 connectStatsManager.incSinkRecordReadTotalFailNums();
-                connectStatsManager.incSinkRecordReadFailNums(taskConfig.getString(RuntimeConfigDefine.TASK_ID));
+                connectStatsManager.incSinkRecordReadFailNums(taskConfigSnapshot.getTaskId());
                 long errorPullRT = System.currentTimeMillis() - beginPullMsgTimestamp;
                 connectStatsManager.incSinkRecordReadTotalFailRT(errorPullRT);
-                connectStatsManager.incSinkRecordReadFailRT(taskConfig.getString(RuntimeConfigDefine.TASK_ID), errorPullRT);
+                connectStatsManager.incSinkRecordReadFailRT(taskConfigSnapshot.getTaskId(), errorPullRT);
             } catch (InterruptedException e) {
-                pullMsgErrorCount++;
+                pullMsgErrorCount.incrementAndGet();
                 log.error(" sink task message queue {}, offset {}, taskconfig {},pull message InterruptedException, Error {}, taskState {}", JSON.toJSONString(entry.getKey()), JSON.toJSONString(entry.getValue()), JSON.toJSONString(taskConfig), e.getMessage(), this.state.get(), e);
                 connectStatsManager.incSinkRecordReadTotalFailNums();
-                connectStatsManager.incSinkRecordReadFailNums(taskConfig.getString(RuntimeConfigDefine.TASK_ID));
+                connectStatsManager.incSinkRecordReadFailNums(taskConfigSnapshot.getTaskId());
                 long errorPullRT = System.currentTimeMillis() - beginPullMsgTimestamp;
                 connectStatsManager.incSinkRecordReadTotalFailRT(errorPullRT);
-                connectStatsManager.incSinkRecordReadFailRT(taskConfig.getString(RuntimeConfigDefine.TASK_ID), errorPullRT);
+                connectStatsManager.incSinkRecordReadFailRT(taskConfigSnapshot.getTaskId(), errorPullRT);
                 throw e;
             } catch (Throwable e) {
-                pullMsgErrorCount++;
+                pullMsgErrorCount.incrementAndGet();
                 log.error(" sink task message queue {}, offset {}, taskconfig {},pull message Throwable, Error {}, taskState {}", JSON.toJSONString(entry.getKey()), JSON.toJSONString(entry.getValue()), JSON.toJSONString(taskConfig), e.getMessage(), e);
                 connectStatsManager.incSinkRecordReadTotalFailNums();
-                connectStatsManager.incSinkRecordReadFailNums(taskConfig.getString(RuntimeConfigDefine.TASK_ID));
+                connectStatsManager.incSinkRecordReadFailNums(taskConfigSnapshot.getTaskId());
                 long errorPullRT = System.currentTimeMillis() - beginPullMsgTimestamp;
                 connectStatsManager.incSinkRecordReadTotalFailRT(errorPullRT);
-                connectStatsManager.incSinkRecordReadFailRT(taskConfig.getString(RuntimeConfigDefine.TASK_ID), errorPullRT);
+                connectStatsManager.incSinkRecordReadFailRT(taskConfigSnapshot.getTaskId(), errorPullRT);
                 throw e;
             }
             long currentTime = System.currentTimeMillis();
-
-            List<MessageExt> messages = null;
             log.info("INSIDE pullMessageFromQueues, time elapsed : {}", currentTime - startTimeStamp);
-            if (null != pullResult && pullResult.getPullStatus().equals(PullStatus.FOUND)) {
-                this.incPullTPS(entry.getKey().getTopic(), pullResult.getMsgFoundList().size());
-                messages = pullResult.getMsgFoundList();
-                connectStatsManager.incSinkRecordReadTotalNums();
-                connectStatsManager.incSinkRecordReadNums(taskConfig.getString(RuntimeConfigDefine.TASK_ID), messages.size());
-                long pullRT = System.currentTimeMillis() - beginPullMsgTimestamp;
-                connectStatsManager.incSinkRecordReadTotalRT(pullRT);
-                connectStatsManager.incSinkRecordReadRT(taskConfig.getString(RuntimeConfigDefine.TASK_ID), pullRT);
-                receiveMessages(messages);
-                if (messageQueuesOffsetMap.containsKey(entry.getKey())) {
-                    messageQueuesOffsetMap.put(entry.getKey(), pullResult.getNextBeginOffset());
+            handlePullResult(entry.getKey(), entry.getValue(), pullResult, beginPullMsgTimestamp);
+        }
+    }
+
+    /**
+     * Issue an async pull for every assigned queue which has no outstanding request, then deliver the results which
+     * have arrived so far. An idle queue only parks its own long polling request on the broker, so it never holds
+     * the task thread while other queues have messages.
+     */
+    private void pullMessageFromQueuesAsync() throws InterruptedException {
+        if (org.apache.commons.collections4.MapUtils.isEmpty(messageQueuesOffsetMap) && inflightPullOffsets.isEmpty()) {
+            log.info("messageQueuesOffsetMap is null, : {}", System.currentTimeMillis());
+            stopPullMsgLatch.await(PULL_MSG_ERROR_BACKOFF_MS, TimeUnit.MILLISECONDS);
+            return;
+        }
+        shouldStopPullMsg();
+        for (Map.Entry<MessageQueue, Long> entry : messageQueuesOffsetMap.entrySet()) {
+            if (WorkerTaskState.RUNNING != state.get()) {
+                log.warn("sink task state is not running, sink task id {}, state {}", taskConfigSnapshot.getTaskId(), state.get().name());
+                return;
+            }
+            if (isQueuePaused(entry.getKey()) || inflightPullOffsets.containsKey(entry.getKey())) {
+                continue;
+            }
+            submitAsyncPull(entry.getKey(), entry.getValue());
+        }
+
+        AsyncPullResult asyncPullResult = asyncPullResults.poll(waitTimeMs(ASYNC_PULL_RESULT_WAIT_MS), TimeUnit.MILLISECONDS);
+        while (null != asyncPullResult) {
+            handleAsyncPullResult(asyncPullResult);
+            asyncPullResult = asyncPullResults.poll();
+        }
+    }
+
+    private void submitAsyncPull(MessageQueue messageQueue, long offset) throws InterruptedException {
+        final long beginPullMsgTimestamp = System.currentTimeMillis();
+        inflightPullOffsets.put(messageQueue, offset);
+        try {
+            consumer.pullBlockIfNotFound(messageQueue, "*", offset, pullBatchSize(messageQueue), new PullCallback() {
+                @Override
+                public void onSuccess(PullResult pullResult) {
+                    asyncPullResults.offer(new AsyncPullResult(messageQueue, offset, beginPullMsgTimestamp, pullResult, null));
+                }
+
+                @Override
+                public void onException(Throwable e) {
+                    asyncPullResults.offer(new AsyncPullResult(messageQueue, offset, beginPullMsgTimestamp, null, e));
+                }
+            });
+        } catch (MQClientException | RemotingException e) {
+            inflightPullOffsets.remove(messageQueue);
+            pullMsgErrorCount.incrementAndGet();
+            log.error(" sink task message queue {}, offset {}, taskconfig {},submit async pull Exception, Error {}, taskState {}", JSON.toJSONString(messageQueue), offset, JSON.toJSONString(taskConfig), e.getMessage(), this.state.get(), e);
+            incPullMsgFailStats(beginPullMsgTimestamp);
+        } catch (InterruptedException e) {
+            inflightPullOffsets.remove(messageQueue);
+            throw e;
+        }
+    }
+
+    private void handleAsyncPullResult(AsyncPullResult asyncPullResult) throws InterruptedException {
+        MessageQueue messageQueue = asyncPullResult.messageQueue;
+        inflightPullOffsets.remove(messageQueue);
+        if (null != asyncPullResult.throwable) {
+            pullMsgErrorCount.incrementAndGet();
+            log.error(" sink task message queue {}, offset {}, taskconfig {},async pull message Exception, Error {}, taskState {}", JSON.toJSONString(messageQueue), asyncPullResult.pullOffset, JSON.toJSONString(taskConfig), asyncPullResult.throwable.getMessage(), this.state.get(), asyncPullResult.throwable);
+            incPullMsgFailStats(asyncPullResult.beginPullMsgTimestamp);
+            return;
+        }
+        pullMsgErrorCount.set(0);
+        Long currentOffset = messageQueuesOffsetMap.get(messageQueue);
+        if (null == currentOffset || currentOffset != asyncPullResult.pullOffset) {
+            // the queue was reassigned or its offset was reset while the request was outstanding
+            log.warn("Discard stale async pull result, messageQueue {}, pull offset {}, current offset {}", JSON.toJSONString(messageQueue), asyncPullResult.pullOffset, currentOffset);
+            return;
+        }
+        handlePullResult(messageQueue, asyncPullResult.pullOffset, asyncPullResult.pullResult, asyncPullResult.beginPullMsgTimestamp);
+    }
+
+    private void incPullMsgFailStats(long beginPullMsgTimestamp) {
+        connectStatsManager.incSinkRecordReadTotalFailNums();
+        connectStatsManager.incSinkRecordReadFailNums(taskConfigSnapshot.getTaskId());
+        long errorPullRT = System.currentTimeMillis() - beginPullMsgTimestamp;
+        connectStatsManager.incSinkRecordReadTotalFailRT(errorPullRT);
+        connectStatsManager.incSinkRecordReadFailRT(taskConfigSnapshot.getTaskId(), errorPullRT);
+    }
+
+    /**
+     * Deliver a pull result of a queue to the sink task and advance the offset of the queue.
+     */
+    private void handlePullResult(MessageQueue messageQueue, long pullOffset, PullResult pullResult,
+        long beginPullMsgTimestamp) throws InterruptedException {
+        List<MessageExt> messages = null;
+        if (null != pullResult && pullResult.getPullStatus().equals(PullStatus.FOUND)) {
+            this.incPullTPS(messageQueue.getTopic(), pullResult.getMsgFoundList().size());
+            messages = pullResult.getMsgFoundList();
+            connectStatsManager.incSinkRecordReadTotalNums();
+            connectStatsManager.incSinkRecordReadNums(taskConfigSnapshot.getTaskId(), messages.size());
+            long pullRT = System.currentTimeMillis() - beginPullMsgTimestamp;
+            connectStatsManager.incSinkRecordReadTotalRT(pullRT);
+            connectStatsManager.incSinkRecordReadRT(taskConfigSnapshot.getTaskId(), pullRT);
+            if (null != batchController) {
+                batchController.onPull(messageQueue, messages.size(), pullResult.getMaxOffset() - pullResult.getNextBeginOffset());
+            }
+            if (pipelineEnable) {
+                prefetch(messageQueue, pullOffset, pullResult);
+            } else if (null != lingerBatch) {
+                // advance the pull offset after the conversion, so a failed conversion pulls the messages again, and
+                // before the flush, since a failed flush keeps the batch and must not pull its messages again
+                lingerMessages(messageQueue, messages, pullResult.getNextBeginOffset());
+                messageQueuesOffsetMap.replace(messageQueue, pullResult.getNextBeginOffset());
+                if (lingerBatch.isFull()) {
+                    flushLingerBatch();
+                }
+            } else if (null != deliveryLanes) {
+                List<ConnectRecord> connectRecords = convertMessages(messageQueue, messages);
+                messageQueuesOffsetMap.replace(messageQueue, pullResult.getNextBeginOffset());
+                deliverRecords(connectRecords, Collections.singletonMap(messageQueue, pullResult.getNextBeginOffset()));
+            } else {
+                receiveMessages(messageQueue, messages);
+                if (messageQueuesOffsetMap.containsKey(messageQueue)) {
+                    messageQueuesOffsetMap.put(messageQueue, pullResult.getNextBeginOffset());
                 } else {
-                    log.warn("The consumer may have load balancing, and the current task does not process the message queue,messageQueuesOffsetMap {}, messageQueue {}", JSON.toJSONString(messageQueuesOffsetMap), JSON.toJSONString(entry.getKey()));
+                    log.warn("The consumer may have load balancing, and the current task does not process the message queue,messageQueuesOffsetMap {}, messageQueue {}", JSON.toJSONString(messageQueuesOffsetMap), JSON.toJSONString(messageQueue));
                 }
                 try {
-                    consumer.updateConsumeOffset(entry.getKey(), pullResult.getNextBeginOffset());
+                    consumer.updateConsumeOffset(messageQueue, pullResult.getNextBeginOffset());
                 } catch (MQClientException e) {
                     log.warn("updateConsumeOffset MQClientException, pullResult {}", pullResult, e);
                 }
-            } else if (null != pullResult && pullResult.getPullStatus().equals(PullStatus.OFFSET_ILLEGAL)) {
-                log.warn("offset illegal, reset offset, message queue {}, pull offset {}, nextBeginOffset {}", JSON.toJSONString(entry.getKey()), entry.getValue(), pullResult.getNextBeginOffset());
-                this.sinkTaskContext.resetOffset(ConnectUtil.convertToRecordPartition(entry.getKey()), ConnectUtil.convertToRecordOffset(pullResult.getNextBeginOffset()));
-            } else if (null != pullResult && pullResult.getPullStatus().equals(PullStatus.NO_NEW_MSG)) {
-                log.info("no new message, pullResult {}, message queue {}, pull offset {}", JSON.toJSONString(pullResult), JSON.toJSONString(entry.getKey()), entry.getValue());
-            } else if (null != pullResult && pullResult.getPullStatus().equals(PullStatus.NO_MATCHED_MSG)) {
-                log.info("no matched msg, pullResult {}, message queue {}, pull offset {}", JSON.toJSONString(pullResult), JSON.toJSONString(entry.getKey()), entry.getValue());
-                this.sinkTaskContext.resetOffset(ConnectUtil.convertToRecordPartition(entry.getKey()), ConnectUtil.convertToRecordOffset(pullResult.getNextBeginOffset()));
+            }
+        } else if (null != pullResult && pullResult.getPullStatus().equals(PullStatus.OFFSET_ILLEGAL)) {
+            log.warn("offset illegal, reset offset, message queue {}, pull offset {}, nextBeginOffset {}", JSON.toJSONString(messageQueue), pullOffset, pullResult.getNextBeginOffset());
+            this.sinkTaskContext.resetOffset(recordPartitionRegistry.get(messageQueue), ConnectUtil.convertToRecordOffset(pullResult.getNextBeginOffset()));
+        } else if (null != pullResult && pullResult.getPullStatus().equals(PullStatus.NO_NEW_MSG)) {
+            log.info("no new message, pullResult {}, message queue {}, pull offset {}", JSON.toJSONString(pullResult), JSON.toJSONString(messageQueue), pullOffset);
+        } else if (null != pullResult && pullResult.getPullStatus().equals(PullStatus.NO_MATCHED_MSG)) {
+            log.info("no matched msg, pullResult {}, message queue {}, pull offset {}", JSON.toJSONString(pullResult), JSON.toJSONString(messageQueue), pullOffset);
+            this.sinkTaskContext.resetOffset(recordPartitionRegistry.get(messageQueue), ConnectUtil.convertToRecordOffset(pullResult.getNextBeginOffset()));
+        } else {
+            log.info("no new message, pullResult {}, message queue {}, pull offset {}", JSON.toJSONString(pullResult), JSON.toJSONString(messageQueue), pullOffset);
+        }
+
+        AtomicLong atomicLong = connectStatsService.singleSinkTaskTimesTotal(taskConfigSnapshot.getTaskId());
+        if (null != atomicLong) {
+            atomicLong.addAndGet(org.apache.commons.collections4.CollectionUtils.isEmpty(messages) ? 0 : messages.size());
+        }
+    }
+
+    /**
+     * Fetcher stage of the pipeline mode, buffer the pulled messages of a queue and pause the queue when its buffer
+     * is full.
+     */
+    private void prefetch(MessageQueue messageQueue, long pullOffset, PullResult pullResult) {
+        prefetchLock.lock();
+        try {
+            if (!messageQueuesOffsetMap.replace(messageQueue, pullOffset, pullResult.getNextBeginOffset())) {
+                log.warn("Discard prefetched messages, message queue {} was reassigned or reset, pull offset {}", JSON.toJSONString(messageQueue), pullOffset);
+                return;
+            }
+            SinkPrefetchBuffer prefetchBuffer = prefetchBuffers.computeIfAbsent(messageQueue, key -> new SinkPrefetchBuffer());
+            prefetchBuffer.add(pullResult.getMsgFoundList(), pullResult.getNextBeginOffset());
+            if (prefetchBuffer.isFull(prefetchMaxRecords, prefetchMaxBytes) && prefetchPausedQueues.add(messageQueue)) {
+                log.info("Prefetch buffer is full, pause message queue {}, records {}, bytes {}", JSON.toJSONString(messageQueue), prefetchBuffer.getRecords(), prefetchBuffer.getBytes());
+            }
+            prefetchNotEmpty.signalAll();
+        } finally {
+            prefetchLock.unlock();
+        }
+    }
+
+    /**
+     * Delivery stage of the pipeline mode, put the oldest prefetched batch of every queue to the sink task and
+     * advance the delivered offsets.
+     */
+    private void deliverPrefetchedMessages() throws InterruptedException {
+        prefetchLock.lock();
+        try {
+            if (!hasPrefetchedMessages()) {
+                prefetchNotEmpty.await(Math.max(1, waitTimeMs(PREFETCH_WAIT_MS)), TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            prefetchLock.unlock();
+        }
+        for (Map.Entry<MessageQueue, SinkPrefetchBuffer> entry : prefetchBuffers.entrySet()) {
+            MessageQueue messageQueue = entry.getKey();
+            SinkPrefetchBuffer prefetchBuffer = entry.getValue();
+            SinkPrefetchBuffer.PulledBatch pulledBatch = prefetchBuffer.peek();
+            if (null == pulledBatch) {
+                continue;
+            }
+            if (!messageQueuesOffsetMap.containsKey(messageQueue)) {
+                log.warn("The consumer may have load balancing, discard prefetched messages of message queue {}", JSON.toJSONString(messageQueue));
+                prefetchBuffers.remove(messageQueue, prefetchBuffer);
+                continue;
+            }
+            if (null != lingerBatch) {
+                lingerMessages(messageQueue, pulledBatch.getMessages(), pulledBatch.getNextBeginOffset());
+            } else if (null != deliveryLanes) {
+                deliverRecords(convertMessages(messageQueue, pulledBatch.getMessages()), Collections.singletonMap(messageQueue, pulledBatch.getNextBeginOffset()));
             } else {
-                log.info("no new message, pullResult {}, message queue {}, pull offset {}", JSON.toJSONString(pullResult), JSON.toJSONString(entry.getKey()), entry.getValue());
+                receiveMessages(messageQueue, pulledBatch.getMessages());
+                commitDeliveredOffset(messageQueue, pulledBatch.getNextBeginOffset());
+            }
+            // the linger batch owns the messages from here, a failed flush keeps them there only
+            prefetchBuffer.remove(pulledBatch);
+            if (!prefetchBuffer.isFull(prefetchMaxRecords, prefetchMaxBytes)) {
+                resumePrefetch(messageQueue);
+            }
+            if (null != lingerBatch && lingerBatch.isFull()) {
+                flushLingerBatch();
+            }
+        }
+    }
+
+    /**
+     * Add the messages of a queue to the linger batch, the caller puts the batch once it is full.
+     */
+    private void lingerMessages(MessageQueue messageQueue, List<MessageExt> messages, long nextBeginOffset) {
+        long bytes = 0;
+        for (MessageExt message : messages) {
+            bytes += null == message.getBody() ? 0 : message.getBody().length;
+        }
+        lingerBatch.add(messageQueue, convertMessages(messageQueue, messages), bytes, nextBeginOffset);
+    }
+
+    /**
+     * Put the linger batch in one call, then commit the offsets of the queues it came from. The batch is kept if
+     * put fails, so it is put again on the next flush.
+     */
+    private void flushLingerBatch() throws InterruptedException {
+        if (lingerBatch.isEmpty()) {
+            return;
+        }
+        deliverRecords(new ArrayList<>(lingerBatch.getRecords()), lingerBatch.getOffsets());
+        lingerBatch.clear();
+    }
+
+    /**
+     * Put the records, on the task thread or through the delivery lanes, and commit the offsets of the queues they
+     * came from once they are delivered.
+     */
+    private void deliverRecords(List<ConnectRecord> connectRecordList,
+        Map<MessageQueue, Long> offsets) throws InterruptedException {
+        if (null != deliveryLanes) {
+            deliveryLanes.dispatch(connectRecordList, offsets);
+            commitCompletedDeliveries();
+            return;
+        }
+        if (!connectRecordList.isEmpty()) {
+            putRecords(sinkTask, connectRecordList);
+        }
+        for (Map.Entry<MessageQueue, Long> entry : offsets.entrySet()) {
+            commitDeliveredOffset(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Commit the offsets of the deliveries every lane has put. If a lane failed, the queues are reset to the
+     * delivered offsets, so everything not delivered yet is pulled again.
+     */
+    private void commitCompletedDeliveries() {
+        List<Map<MessageQueue, Long>> completedDeliveries;
+        try {
+            completedDeliveries = deliveryLanes.pollCompleted();
+        } catch (RuntimeException e) {
+            Map<RecordPartition, RecordOffset> offsets = new HashMap<>(deliveredOffsetMap.size());
+            for (Map.Entry<MessageQueue, Long> entry : deliveredOffsetMap.entrySet()) {
+                offsets.put(recordPartitionRegistry.get(entry.getKey()), ConnectUtil.convertToRecordOffset(entry.getValue()));
+            }
+            sinkTaskContext.resetOffset(offsets);
+            throw e;
+        }
+        for (Map<MessageQueue, Long> offsets : completedDeliveries) {
+            for (Map.Entry<MessageQueue, Long> entry : offsets.entrySet()) {
+                commitDeliveredOffset(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private SinkDeliveryLanes newDeliveryLanes() {
+        boolean sharedTask = taskConfigSnapshot.getBoolean(LANE_SHARED_TASK_CONFIG, false);
+        List<SinkTask> laneSinkTasks = new ArrayList<>(laneNum);
+        laneSinkTasks.add(sinkTask);
+        for (int i = 1; i < laneNum; i++) {
+            if (sharedTask) {
+                laneSinkTasks.add(sinkTask);
+                continue;
+            }
+            SinkTask laneSinkTask;
+            try {
+                laneSinkTask = sinkTask.getClass().getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new ConnectException("Create sink task of delivery lane " + i + " failed", e);
+            }
+            laneSinkTask.init(taskConfig);
+            // the context is thread safe, it only records pauses and resets for the task thread to apply
+            laneSinkTask.start(sinkTaskContext);
+            laneSinkTasks.add(laneSinkTask);
+        }
+        log.info("Sink task delivery lanes start, lane num {}, shared task {}", laneNum, sharedTask);
+        return new SinkDeliveryLanes(laneSinkTasks, taskConfigSnapshot.getString(LANE_KEY_CONFIG),
+            taskConfigSnapshot.getInt(LANE_MAX_PENDING_CONFIG, DEFAULT_LANE_MAX_PENDING),
+            "sink-delivery-lane-" + connectorName + "-", this::putRecords);
+    }
+
+    private void stopDeliveryLanes() {
+        SinkDeliveryLanes currentDeliveryLanes = deliveryLanes;
+        if (null == currentDeliveryLanes) {
+            return;
+        }
+        deliveryLanes = null;
+        currentDeliveryLanes.shutdown();
+        for (SinkTask laneSinkTask : currentDeliveryLanes.getLaneSinkTasks()) {
+            if (laneSinkTask != sinkTask) {
+                laneSinkTask.stop();
+            }
+        }
+    }
+
+    /**
+     * Advance the delivered offset of a queue still assigned to this task.
+     */
+    private void commitDeliveredOffset(MessageQueue messageQueue, long nextBeginOffset) {
+        if (null != deliveredOffsetMap.replace(messageQueue, nextBeginOffset)) {
+            try {
+                consumer.updateConsumeOffset(messageQueue, nextBeginOffset);
+            } catch (MQClientException e) {
+                log.warn("updateConsumeOffset MQClientException, messageQueue {}, offset {}", JSON.toJSONString(messageQueue), nextBeginOffset, e);
+            }
+        }
+    }
+
+    /**
+     * Wait no longer than the linger batch may wait.
+     */
+    private long waitTimeMs(long maxWaitMs) {
+        return null == lingerBatch ? maxWaitMs : lingerBatch.remainingLingerMs(System.currentTimeMillis(), maxWaitMs);
+    }
+
+    private boolean hasPrefetchedMessages() {
+        for (SinkPrefetchBuffer prefetchBuffer : prefetchBuffers.values()) {
+            if (!prefetchBuffer.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void resumePrefetch(MessageQueue messageQueue) {
+        if (prefetchPausedQueues.remove(messageQueue)) {
+            log.info("Prefetch buffer is drained, resume message queue {}", JSON.toJSONString(messageQueue));
+            if (null != prefetchService) {
+                prefetchService.wakeup();
             }
+        }
+    }
 
-            AtomicLong atomicLong = connectStatsService.singleSinkTaskTimesTotal(taskConfig.getString(RuntimeConfigDefine.TASK_ID));
-            if (null != atomicLong) {
-                atomicLong.addAndGet(org.apache.commons.collections4.CollectionUtils.isEmpty(messages) ? 0 : messages.size());
+    /**
+     * @return false if every assigned queue is paused, an empty assignment is left to the pull loop to back off
+     */
+    private boolean hasPullableQueue() {
+        if (messageQueuesOffsetMap.isEmpty()) {
+            return true;
+        }
+        for (MessageQueue messageQueue : messageQueuesOffsetMap.keySet()) {
+            if (!isQueuePaused(messageQueue)) {
+                return true;
             }
         }
+        return false;
+    }
+
+    /**
+     * @return whether the queue is paused by the connector or by its full prefetch buffer
+     */
+    private boolean isQueuePaused(MessageQueue messageQueue) {
+        return messageQueuesStateMap.containsKey(messageQueue) || prefetchPausedQueues.contains(messageQueue);
+    }
+
+    /**
+     * Stop pulling the queue until it is resumed.
+     *
+     * @return false if the queue is not assigned to this task
+     */
+    boolean pauseQueue(MessageQueue messageQueue) {
+        if (!messageQueuesOffsetMap.containsKey(messageQueue)) {
+            return false;
+        }
+        messageQueuesStateMap.put(messageQueue, QueueState.PAUSE);
+        return true;
+    }
+
+    /**
+     * @return false if the queue is not assigned to this task
+     */
+    boolean resumeQueue(MessageQueue messageQueue) {
+        if (!messageQueuesOffsetMap.containsKey(messageQueue)) {
+            return false;
+        }
+        messageQueuesStateMap.remove(messageQueue);
+        return true;
+    }
+
+    private int pullBatchSize(MessageQueue messageQueue) {
+        return null == batchController ? MAX_MESSAGE_NUM : batchController.getPullBatchSize(messageQueue);
     }
 
     private void shouldStopPullMsg() throws InterruptedException {
-        if (pullMsgErrorCount == PULL_MSG_ERROR_THRESHOLD) {
-            log.error("Accumulative error {} times, stop pull msg for {} ms", pullMsgErrorCount, PULL_MSG_ERROR_BACKOFF_MS);
+        if (pullMsgErrorCount.get() >= PULL_MSG_ERROR_THRESHOLD) {
+            log.error("Accumulative error {} times, stop pull msg for {} ms", pullMsgErrorCount.get(), PULL_MSG_ERROR_BACKOFF_MS);
             stopPullMsgLatch.await(PULL_MSG_ERROR_BACKOFF_MS, TimeUnit.MILLISECONDS);
-            pullMsgErrorCount = 0;
+            pullMsgErrorCount.set(0);
         }
     }
 
     private void preCommit(boolean isForce) {
-        long commitInterval = taskConfig.getLong(OFFSET_COMMIT_TIMEOUT_MS_CONFIG, 1000);
         if (nextCommitTime <= 0) {
             long now = System.currentTimeMillis();
-            nextCommitTime = now + commitInterval;
+            nextCommitTime = now + offsetCommitIntervalMs;
         }
         if (isForce || nextCommitTime < System.currentTimeMillis()) {
             Map<RecordPartition, RecordOffset> queueMetaDataLongMap = new HashMap<>(512);
-            if (messageQueuesOffsetMap.size() > 0) {
-                for (Map.Entry<MessageQueue, Long> messageQueueLongEntry : messageQueuesOffsetMap.entrySet()) {
-                    RecordPartition recordPartition = ConnectUtil.convertToRecordPartition(messageQueueLongEntry.getKey());
+            Map<MessageQueue, Long> commitOffsetMap = pipelineEnable || null != lingerBatch || laneNum > 1 ? deliveredOffsetMap : messageQueuesOffsetMap;
+            if (commitOffsetMap.size() > 0) {
+                for (Map.Entry<MessageQueue, Long> messageQueueLongEntry : commitOffsetMap.entrySet()) {
+                    RecordPartition recordPartition = recordPartitionRegistry.get(messageQueueLongEntry.getKey());
                     RecordOffset recordOffset = ConnectUtil.convertToRecordOffset(messageQueueLongEntry.getValue());
                     queueMetaDataLongMap.put(recordPartition, recordOffset);
                 }
             }
             sinkTask.preCommit(queueMetaDataLongMap);
+            SinkDeliveryLanes currentDeliveryLanes = deliveryLanes;
+            if (null != currentDeliveryLanes) {
+                for (SinkTask laneSinkTask : new HashSet<>(currentDeliveryLanes.getLaneSinkTasks())) {
+                    if (laneSinkTask != sinkTask) {
+                        laneSinkTask.preCommit(queueMetaDataLongMap);
+                    }
+                }
+            }
             nextCommitTime = 0;
         }
     }
@@ -514,16 +1203,54 @@ public class WorkerSinkTask implements WorkerTask {
     /**
      * receive message from MQ.
      *
+     * @param messageQueue
      * @param messages
      */
-    private void receiveMessages(List<MessageExt> messages) {
+    private void receiveMessages(MessageQueue messageQueue, List<MessageExt> messages) {
+        if (null == batchController) {
+            putMessages(messageQueue, messages);
+            return;
+        }
+        int from = 0;
+        long bytes = 0;
+        for (int i = 0; i < messages.size(); i++) {
+            bytes += null == messages.get(i).getBody() ? 0 : messages.get(i).getBody().length;
+            if (i + 1 - from >= batchController.getPutBatchSize() || bytes >= batchController.getMaxBytes() || i == messages.size() - 1) {
+                putMessages(messageQueue, messages.subList(from, i + 1));
+                from = i + 1;
+                bytes = 0;
+            }
+        }
+    }
+
+    private void putMessages(MessageQueue messageQueue, List<MessageExt> messages) {
+        List<ConnectRecord> connectRecordList = convertMessages(messageQueue, messages);
+        if (CollectionUtils.isEmpty(connectRecordList)) {
+            log.info("after transforms connectRecordList is null");
+            return;
+        }
+        putRecords(sinkTask, connectRecordList);
+    }
+
+    /**
+     * Convert the messages pulled from one queue, they all share the interned partition of the queue.
+     */
+    private List<ConnectRecord> convertMessages(MessageQueue messageQueue, List<MessageExt> messages) {
+        RecordPartition recordPartition = recordPartitionRegistry.get(messageQueue);
+        long schemaCacheHits = null == schemaCache ? 0 : schemaCache.hitCount();
+        long schemaCacheMisses = null == schemaCache ? 0 : schemaCache.missCount();
         List<ConnectRecord> sinkDataEntries = new ArrayList<>(32);
         for (MessageExt message : messages) {
-            ConnectRecord sinkDataEntry = convertToSinkDataEntry(message);
+            ConnectRecord sinkDataEntry = convertToSinkDataEntry(recordPartition, message);
             sinkDataEntries.add(sinkDataEntry);
             String msgId = message.getMsgId();
             log.info("Received one message success : msgId {}", msgId);
         }
+        if (null != schemaCache) {
+            String taskId = taskConfigSnapshot.getTaskId();
+            connectStatsManager.incSinkSchemaCacheHitNums(taskId, (int) (schemaCache.hitCount() - schemaCacheHits));
+            connectStatsManager.incSinkSchemaCacheMissNums(taskId, (int) (schemaCache.missCount() - schemaCacheMisses));
+        }
         List<ConnectRecord> connectRecordList = new ArrayList<>(32);
         for (ConnectRecord connectRecord : sinkDataEntries) {
             ConnectRecord connectRecord1 = this.transformChain.doTransforms(connectRecord);
@@ -531,12 +1258,21 @@ public class WorkerSinkTask implements WorkerTask {
                 connectRecordList.add(connectRecord1);
             }
         }
-        if (CollectionUtils.isEmpty(connectRecordList)) {
-            log.info("after transforms connectRecordList is null");
-            return;
-        }
+        return connectRecordList;
+    }
+
+    private void putRecords(SinkTask sinkTask, List<ConnectRecord> connectRecordList) {
         try {
+            long beginPutTimestamp = System.currentTimeMillis();
             sinkTask.put(connectRecordList);
+            long putRT = System.currentTimeMillis() - beginPutTimestamp;
+            connectStatsManager.incSinkRecordPutTotalNums();
+            connectStatsManager.incSinkRecordPutNums(taskConfigSnapshot.getTaskId());
+            connectStatsManager.incSinkRecordPutTotalRT(putRT);
+            connectStatsManager.incSinkRecordPutRT(taskConfigSnapshot.getTaskId(), putRT);
+            if (null != batchController) {
+                batchController.onPut(connectRecordList.size(), putRT);
+            }
             return;
         } catch (RetriableException e) {
             log.error("task {} put sink recode RetriableException", this, e.getMessage(), e);
@@ -548,7 +1284,7 @@ public class WorkerSinkTask implements WorkerTask {
 
     }
 
-    private ConnectRecord convertToSinkDataEntry(MessageExt message) {
+    private ConnectRecord convertToSinkDataEntry(RecordPartition recordPartition, MessageExt message) {
         Map<String, String> properties = message.getProperties();
         Schema schema;
         Long timestamp;
@@ -556,10 +1292,8 @@ public class WorkerSinkTask implements WorkerTask {
         if (null == recordConverter || recordConverter instanceof RocketMQConverter) {
             String connectTimestamp = properties.get(RuntimeConfigDefine.CONNECT_TIMESTAMP);
             timestamp = StringUtils.isNotEmpty(connectTimestamp) ? Long.valueOf(connectTimestamp) : null;
-            String connectSchema = properties.get(RuntimeConfigDefine.CONNECT_SCHEMA);
-            schema = StringUtils.isNotEmpty(connectSchema) ? JSON.parseObject(connectSchema, Schema.class) : null;
+            schema = resolveSchema(properties);
             byte[] body = message.getBody();
-            RecordPartition recordPartition = ConnectUtil.convertToRecordPartition(message.getTopic(), message.getBrokerName(), message.getQueueId());
 
             RecordOffset recordOffset = ConnectUtil.convertToRecordOffset(message.getQueueOffset());
 
@@ -586,6 +1320,31 @@ public class WorkerSinkTask implements WorkerTask {
         return sinkDataEntry;
     }
 
+    private Schema resolveSchema(Map<String, String> properties) {
+        String connectSchema = properties.get(RuntimeConfigDefine.CONNECT_SCHEMA);
+        if (StringUtils.isNotEmpty(connectSchema)) {
+            return null == schemaCache ? JSON.parseObject(connectSchema, Schema.class) : schemaCache.get(connectSchema);
+        }
+        String schemaId = properties.get(RuntimeConfigDefine.CONNECT_SCHEMA_ID);
+        if (StringUtils.isEmpty(schemaId)) {
+            return null;
+        }
+        if (null == schemaRegistryService) {
+            throw new ConnectException("Message carries schema id " + schemaId + " but schema registry is not available");
+        }
+        Schema schema;
+        if (null == schemaCache) {
+            String schemaText = schemaRegistryService.getSchema(schemaId);
+            schema = null == schemaText ? null : JSON.parseObject(schemaText, Schema.class);
+        } else {
+            schema = schemaCache.get(schemaId, schemaRegistryService::getSchema);
+        }
+        if (null == schema) {
+            throw new RetriableException("Schema " + schemaId + " is not synchronized from the schema topic yet");
+        }
+        return schema;
+    }
+
     @Override
     public String getConnectorName() {
         return connectorName;
@@ -596,11 +1355,21 @@ public class WorkerSinkTask implements WorkerTask {
         return state.get();
     }
 
+    @Override
+    public void setStateListener(TaskStateListener listener) {
+        this.state.setListener(listener);
+    }
+
     @Override
     public ConnectKeyValue getTaskConfig() {
         return taskConfig;
     }
 
+    @Override
+    public TaskConfigSnapshot getTaskConfigSnapshot() {
+        return taskConfigSnapshot;
+    }
+
     /**
      * Further we cant try to log what caused the error
      */
@@ -651,6 +1420,65 @@ public class WorkerSinkTask implements WorkerTask {
         this.sinkTaskContext.resetOffset(offsets);
     }
 
+    /**
+     * Fetcher stage of the pipeline mode, pulls messages into the prefetch buffers while the task thread puts them.
+     */
+    private class SinkPrefetchService extends ServiceThread {
+
+        @Override
+        public void run() {
+            log.info("{} service started", this.getServiceName());
+            while (!this.isStopped() && WorkerTaskState.RUNNING == state.get()) {
+                try {
+                    if (!hasPullableQueue()) {
+                        this.waitForRunning(PREFETCH_WAIT_MS);
+                    } else if (pullAsyncEnable) {
+                        pullMessageFromQueuesAsync();
+                    } else {
+                        pullMessageFromQueues();
+                    }
+                } catch (InterruptedException e) {
+                    log.info("{} service interrupted", this.getServiceName());
+                    break;
+                } catch (Throwable e) {
+                    log.error("{} service prefetch message failed, sink task {}", this.getServiceName(), taskConfigSnapshot.getTaskId(), e);
+                    state.set(WorkerTaskState.ERROR);
+                }
+            }
+            log.info("{} service end", this.getServiceName());
+        }
+
+        @Override
+        public String getServiceName() {
+            return SinkPrefetchService.class.getSimpleName() + "-" + connectorName;
+        }
+    }
+
+    /**
+     * The result of an async pull request, handed from the client callback thread to the task thread.
+     */
+    private static class AsyncPullResult {
+
+        private final MessageQueue messageQueue;
+
+        private final long pullOffset;
+
+        private final long beginPullMsgTimestamp;
+
+        private final PullResult pullResult;
+
+        private final Throwable throwable;
+
+        AsyncPullResult(MessageQueue messageQueue, long pullOffset, long beginPullMsgTimestamp,
+            PullResult pullResult, Throwable throwable) {
+            this.messageQueue = messageQueue;
+            this.pullOffset = pullOffset;
+            this.beginPullMsgTimestamp = beginPullMsgTimestamp;
+            this.pullResult = pullResult;
+            this.throwable = throwable;
+        }
+    }
+
 }
 
 
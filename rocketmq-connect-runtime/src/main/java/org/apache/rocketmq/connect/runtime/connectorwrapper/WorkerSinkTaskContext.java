@@ -32,13 +32,12 @@ import org.apache.rocketmq.client.consumer.DefaultMQPullConsumer;
 import org.apache.rocketmq.common.message.MessageQueue;
 import org.apache.rocketmq.connect.runtime.common.ConnectKeyValue;
 import org.apache.rocketmq.connect.runtime.common.LoggerName;
-import org.apache.rocketmq.connect.runtime.common.QueueState;
+import org.apache.rocketmq.connect.runtime.utils.ConnectUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static org.apache.rocketmq.connect.runtime.connectorwrapper.WorkerSinkTask.BROKER_NAME;
 import static org.apache.rocketmq.connect.runtime.connectorwrapper.WorkerSinkTask.QUEUE_ID;
-import static org.apache.rocketmq.connect.runtime.connectorwrapper.WorkerSinkTask.QUEUE_OFFSET;
 import static org.apache.rocketmq.connect.runtime.connectorwrapper.WorkerSinkTask.TOPIC;
 
 public class WorkerSinkTaskContext implements SinkTaskContext {
@@ -52,8 +51,6 @@ public class WorkerSinkTaskContext implements SinkTaskContext {
 
     private final Map<MessageQueue, Long> messageQueuesOffsetMap = new ConcurrentHashMap<>(64);
 
-    private final Map<MessageQueue, QueueState> messageQueuesStateMap = new ConcurrentHashMap<>(64);
-
     private final WorkerSinkTask workerSinkTask;
 
     private final DefaultMQPullConsumer consumer;
@@ -78,7 +75,7 @@ public class WorkerSinkTaskContext implements SinkTaskContext {
             return;
         }
         MessageQueue messageQueue = new MessageQueue(topic, brokerName, queueId);
-        Long offset = Long.valueOf((String) recordOffset.getOffset().get(QUEUE_OFFSET));
+        Long offset = ConnectUtil.convertToOffset(recordOffset);
         if (null == offset) {
             log.warn("resetOffset, offset is null");
             return;
@@ -107,7 +104,7 @@ public class WorkerSinkTaskContext implements SinkTaskContext {
             }
             MessageQueue messageQueue = new MessageQueue(topic, brokerName, queueId);
             RecordOffset recordOffset = entry.getValue();
-            Long offset = Long.valueOf((String) recordOffset.getOffset().get(QUEUE_OFFSET));
+            Long offset = ConnectUtil.convertToOffset(recordOffset);
             if (null == offset) {
                 log.warn("resetOffset, offset is null");
                 continue;
@@ -116,6 +113,10 @@ public class WorkerSinkTaskContext implements SinkTaskContext {
         }
     }
 
+    /**
+     * Stop pulling the partitions until they are resumed, the task keeps running and delivers what it already
+     * pulled. The prefetch back pressure of the pipeline mode pauses queues on its own and never goes through here.
+     */
     @Override
     public void pause(List<RecordPartition> recordPartitions) {
         if (recordPartitions == null || recordPartitions.size() == 0) {
@@ -135,13 +136,10 @@ public class WorkerSinkTaskContext implements SinkTaskContext {
                 continue;
             }
             MessageQueue messageQueue = new MessageQueue(topic, brokerName, queueId);
-            if (!messageQueuesOffsetMap.containsKey(messageQueue)) {
-                log.warn("sink task current messageQueuesOffsetMap {} not contain messageQueue {}", messageQueuesOffsetMap, messageQueue);
-                continue;
+            if (!workerSinkTask.pauseQueue(messageQueue)) {
+                log.warn("sink task current assignment {} not contain messageQueue {}", workerSinkTask.getRecordPartitions(), messageQueue);
             }
-            messageQueuesStateMap.put(messageQueue, QueueState.PAUSE);
         }
-        this.workerSinkTask.stop();
     }
 
     @Override
@@ -163,11 +161,9 @@ public class WorkerSinkTaskContext implements SinkTaskContext {
                 continue;
             }
             MessageQueue messageQueue = new MessageQueue(topic, brokerName, queueId);
-            if (!messageQueuesOffsetMap.containsKey(messageQueue)) {
-                log.warn("sink task current messageQueuesOffsetMap {} not contain messageQueue {}", messageQueuesOffsetMap, messageQueue);
-                continue;
+            if (!workerSinkTask.resumeQueue(messageQueue)) {
+                log.warn("sink task current assignment {} not contain messageQueue {}", workerSinkTask.getRecordPartitions(), messageQueue);
             }
-            messageQueuesStateMap.remove(messageQueue);
         }
     }
 
@@ -27,28 +27,44 @@ import io.openmessaging.connector.api.data.Converter;
 import io.openmessaging.connector.api.data.RecordOffset;
 import io.openmessaging.connector.api.data.RecordPartition;
 import io.openmessaging.connector.api.data.RecordPosition;
+import io.openmessaging.connector.api.data.Schema;
 import io.openmessaging.connector.api.errors.ConnectException;
 import io.openmessaging.connector.api.errors.RetriableException;
 import io.openmessaging.connector.api.storage.OffsetStorageReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.rocketmq.client.exception.MQBrokerException;
 import org.apache.rocketmq.client.exception.MQClientException;
 import org.apache.rocketmq.client.producer.DefaultMQProducer;
 import org.apache.rocketmq.client.producer.SendCallback;
+import org.apache.rocketmq.client.producer.SendResult;
 import org.apache.rocketmq.common.message.Message;
 import org.apache.rocketmq.common.message.MessageAccessor;
+import org.apache.rocketmq.common.message.MessageDecoder;
+import org.apache.rocketmq.common.message.MessageQueue;
 import org.apache.rocketmq.connect.runtime.common.ConnectKeyValue;
 import org.apache.rocketmq.connect.runtime.common.LoggerName;
+import org.apache.rocketmq.connect.runtime.common.TaskConfigSnapshot;
 import org.apache.rocketmq.connect.runtime.config.RuntimeConfigDefine;
 import org.apache.rocketmq.connect.runtime.converter.RocketMQConverter;
 import org.apache.rocketmq.connect.runtime.service.PositionManagementService;
+import org.apache.rocketmq.connect.runtime.service.SchemaRegistryService;
 import org.apache.rocketmq.connect.runtime.stats.ConnectStatsManager;
 import org.apache.rocketmq.connect.runtime.stats.ConnectStatsService;
 import org.apache.rocketmq.connect.runtime.store.PositionStorageReaderImpl;
@@ -65,6 +81,80 @@ public class WorkerSourceTask implements WorkerTask {
 
     private static final Logger log = LoggerFactory.getLogger(LoggerName.ROCKETMQ_RUNTIME);
 
+    /**
+     * Whether to register record schemas and send only the schema id with each message, needs the schema registry
+     * enabled on the worker.
+     */
+    public static final String SCHEMA_REGISTRY_ENABLE_CONFIG = "schema-registry-enable";
+
+    /**
+     * Whether to send the records of a poll as batch messages.
+     */
+    public static final String SEND_BATCH_ENABLE_CONFIG = "send-batch-enable";
+
+    /**
+     * Encoded bytes of a batched message besides body and properties, with headroom for the properties added by the
+     * producer.
+     */
+    private static final int BATCH_MESSAGE_OVERHEAD = 128;
+
+    /**
+     * Max messages sent but not acked, 0 disables the send window.
+     */
+    public static final String INFLIGHT_MAX_RECORDS_CONFIG = "inflight-max-records";
+
+    /**
+     * Max bytes of messages sent but not acked.
+     */
+    public static final String INFLIGHT_MAX_BYTES_CONFIG = "inflight-max-bytes";
+
+    private static final int DEFAULT_INFLIGHT_MAX_RECORDS = 4096;
+
+    private static final long DEFAULT_INFLIGHT_MAX_BYTES = 64 * 1024 * 1024;
+
+    /**
+     * Max time to wait for the send window before checking the task state again.
+     */
+    private static final long SEND_WINDOW_WAIT_MS = 100;
+
+    /**
+     * Times a failed send is retried before the task fails.
+     */
+    public static final String SEND_RETRY_MAX_CONFIG = "send-retry-max";
+
+    private static final int DEFAULT_SEND_RETRY_MAX = 8;
+
+    /**
+     * Backoff before the first retry of a failed send, doubled on each further retry up to
+     * {@link #SEND_RETRY_MAX_BACKOFF_MS}.
+     */
+    private static final long SEND_RETRY_BACKOFF_MS = 100;
+
+    private static final long SEND_RETRY_MAX_BACKOFF_MS = 5000;
+
+    /**
+     * Min interval between two flushes of acked positions to the position management service.
+     */
+    public static final String POSITION_FLUSH_INTERVAL_MS_CONFIG = "position-flush-interval-ms";
+
+    private static final long DEFAULT_POSITION_FLUSH_INTERVAL_MS = 1000;
+
+    /**
+     * Whether to send the records of a source partition to one queue of the topic, keeping their order. Each queue
+     * then has at most one send in flight, so a retried send can not be overtaken by a later record of the queue.
+     */
+    public static final String SEND_ORDER_ENABLE_CONFIG = "send-order-enable";
+
+    /**
+     * Extension key whose value decides the queue instead of the source partition, if the record has it.
+     */
+    public static final String SEND_ORDER_KEY_CONFIG = "send-order-key";
+
+    /**
+     * Interval to refresh the queues of a topic for ordered sends.
+     */
+    private static final long TOPIC_QUEUES_REFRESH_MS = 30 * 1000;
+
     /**
      * Connector name of current task.
      */
@@ -80,10 +170,15 @@ public class WorkerSourceTask implements WorkerTask {
      */
     private ConnectKeyValue taskConfig;
 
+    /**
+     * Typed snapshot of the task config, read by the hot paths instead of reparsing the config.
+     */
+    private final TaskConfigSnapshot taskConfigSnapshot;
+
     /**
      * Atomic state variable
      */
-    private AtomicReference<WorkerTaskState> state;
+    private final WorkerTaskStateHolder state;
 
     private final PositionManagementService positionManagementService;
 
@@ -112,6 +207,57 @@ public class WorkerSourceTask implements WorkerTask {
 
     private TransformChain<ConnectRecord> transformChain;
 
+    /**
+     * Null if schema registry is disabled.
+     */
+    private final SchemaRegistryService schemaRegistryService;
+
+    private final boolean sendBatchEnable;
+
+    /**
+     * Null if the send window is disabled.
+     */
+    private final SourceSendWindow sendWindow;
+
+    /**
+     * Sent records per source partition, positions advance over the acked prefix only.
+     */
+    private final SourcePositionTracker positionTracker = new SourcePositionTracker();
+
+    private final long positionFlushIntervalMs;
+
+    private long lastPositionFlushTimestamp;
+
+    private final int sendRetryMax;
+
+    /**
+     * Records whose async send failed, resent by the task thread once their backoff elapsed.
+     */
+    private final DelayQueue<PendingSend> failedSends = new DelayQueue<>();
+
+    private final boolean sendOrderEnable;
+
+    private final String orderKey;
+
+    /**
+     * Sorted publish queues of each topic for ordered sends, and when they were fetched.
+     */
+    private final Map<String, List<MessageQueue>> topicQueues = new HashMap<>();
+
+    private final Map<String, Long> topicQueuesTimestamps = new HashMap<>();
+
+    /**
+     * Ordered sends of each publish queue, waiting behind the one in flight.
+     */
+    private final Map<MessageQueue, OrderedSendQueue> orderedSendQueues = new ConcurrentHashMap<>();
+
+    /**
+     * The schema last registered and its id, records of a task mostly share one schema instance.
+     */
+    private Schema lastSchema;
+
+    private String lastSchemaId;
+
     public WorkerSourceTask(String connectorName,
         SourceTask sourceTask,
         ConnectKeyValue taskConfig,
@@ -121,19 +267,50 @@ public class WorkerSourceTask implements WorkerTask {
         AtomicReference<WorkerState> workerState,
         ConnectStatsManager connectStatsManager,
         ConnectStatsService connectStatsService,
+        SchemaRegistryService schemaRegistryService,
+        TransformChain<ConnectRecord> transformChain) {
+        this(connectorName, sourceTask, taskConfig, new TaskConfigSnapshot(taskConfig), positionManagementService,
+            recordConverter, producer, workerState, connectStatsManager, connectStatsService, schemaRegistryService,
+            transformChain);
+    }
+
+    /**
+     * @param taskConfigSnapshot snapshot of the task config, shared with the transform chain of the task
+     */
+    public WorkerSourceTask(String connectorName,
+        SourceTask sourceTask,
+        ConnectKeyValue taskConfig,
+        TaskConfigSnapshot taskConfigSnapshot,
+        PositionManagementService positionManagementService,
+        Converter recordConverter,
+        DefaultMQProducer producer,
+        AtomicReference<WorkerState> workerState,
+        ConnectStatsManager connectStatsManager,
+        ConnectStatsService connectStatsService,
+        SchemaRegistryService schemaRegistryService,
         TransformChain<ConnectRecord> transformChain) {
         this.connectorName = connectorName;
         this.sourceTask = sourceTask;
         this.taskConfig = taskConfig;
+        this.taskConfigSnapshot = taskConfigSnapshot;
         this.positionManagementService = positionManagementService;
         this.offsetStorageReader = new PositionStorageReaderImpl(positionManagementService);
         this.producer = producer;
         this.recordConverter = recordConverter;
-        this.state = new AtomicReference<>(WorkerTaskState.NEW);
+        this.state = new WorkerTaskStateHolder(this);
         this.workerState = workerState;
         this.connectStatsManager = connectStatsManager;
         this.connectStatsService = connectStatsService;
         this.transformChain = transformChain;
+        this.sendBatchEnable = taskConfigSnapshot.getBoolean(SEND_BATCH_ENABLE_CONFIG, false);
+        int inflightMaxRecords = taskConfigSnapshot.getInt(INFLIGHT_MAX_RECORDS_CONFIG, DEFAULT_INFLIGHT_MAX_RECORDS);
+        this.sendOrderEnable = taskConfigSnapshot.getBoolean(SEND_ORDER_ENABLE_CONFIG, false);
+        this.orderKey = taskConfigSnapshot.getString(SEND_ORDER_KEY_CONFIG, null);
+        this.positionFlushIntervalMs = taskConfigSnapshot.getLong(POSITION_FLUSH_INTERVAL_MS_CONFIG, DEFAULT_POSITION_FLUSH_INTERVAL_MS);
+        this.sendRetryMax = taskConfigSnapshot.getInt(SEND_RETRY_MAX_CONFIG, DEFAULT_SEND_RETRY_MAX);
+        this.sendWindow = inflightMaxRecords > 0
+            ? new SourceSendWindow(inflightMaxRecords, taskConfigSnapshot.getLong(INFLIGHT_MAX_BYTES_CONFIG, DEFAULT_INFLIGHT_MAX_BYTES)) : null;
+        this.schemaRegistryService = taskConfigSnapshot.getBoolean(SCHEMA_REGISTRY_ENABLE_CONFIG, false) ? schemaRegistryService : null;
     }
 
     /**
@@ -153,39 +330,41 @@ public class WorkerSourceTask implements WorkerTask {
                 }
 
                 @Override public String getConnectorName() {
-                    return taskConfig.getString(RuntimeConfigDefine.CONNECTOR_ID);
+                    return taskConfigSnapshot.getConnectorId();
                 }
 
                 @Override public String getTaskName() {
-                    return taskConfig.getString(RuntimeConfigDefine.TASK_ID);
+                    return taskConfigSnapshot.getTaskId();
                 }
             });
             state.compareAndSet(WorkerTaskState.PENDING, WorkerTaskState.RUNNING);
             log.info("Source task start, config:{}", JSON.toJSONString(taskConfig));
             while (WorkerState.STARTED == workerState.get() && WorkerTaskState.RUNNING == state.get()) {
+                resendFailedSends();
                 if (CollectionUtils.isEmpty(toSendRecord)) {
                     try {
                         toSendRecord = poll();
                         if (null != toSendRecord && toSendRecord.size() > 0) {
                             connectStatsManager.incSourceRecordPollTotalNums();
-                            connectStatsManager.incSourceRecordPollNums(taskConfig.getString(RuntimeConfigDefine.TASK_ID));
+                            connectStatsManager.incSourceRecordPollNums(taskConfigSnapshot.getTaskId());
                             sendRecord();
                         }
                     } catch (RetriableException e) {
                         connectStatsManager.incSourceRecordPollTotalFailNums();
-                        connectStatsManager.incSourceRecordPollFailNums(taskConfig.getString(RuntimeConfigDefine.TASK_ID));
+                        connectStatsManager.incSourceRecordPollFailNums(taskConfigSnapshot.getTaskId());
                         log.error("Source task RetriableException exception", e);
                     } catch (Exception e) {
                         connectStatsManager.incSourceRecordPollTotalFailNums();
-                        connectStatsManager.incSourceRecordPollFailNums(taskConfig.getString(RuntimeConfigDefine.TASK_ID));
+                        connectStatsManager.incSourceRecordPollFailNums(taskConfigSnapshot.getTaskId());
                         log.error("Source task RetriableException exception", e);
                         state.set(WorkerTaskState.ERROR);
                     }
                 }
-                AtomicLong atomicLong = connectStatsService.singleSourceTaskTimesTotal(taskConfig.getString(RuntimeConfigDefine.TASK_ID));
+                AtomicLong atomicLong = connectStatsService.singleSourceTaskTimesTotal(taskConfigSnapshot.getTaskId());
                 if (null != atomicLong) {
                     atomicLong.addAndGet(toSendRecord == null ? 0 : toSendRecord.size());
                 }
+                flushPositions(false);
             }
             sourceTask.stop();
             state.compareAndSet(WorkerTaskState.STOPPING, WorkerTaskState.STOPPED);
@@ -198,6 +377,7 @@ public class WorkerSourceTask implements WorkerTask {
                 producer.shutdown();
                 log.info("Source task producer shutdown. task config {}", JSON.toJSONString(taskConfig));
             }
+            flushPositions(true);
         }
     }
 
@@ -243,100 +423,476 @@ public class WorkerSourceTask implements WorkerTask {
      * Send list of sourceDataEntries to MQ.
      */
     private void sendRecord() throws InterruptedException, RemotingException, MQClientException {
+        if (sendBatchEnable) {
+            sendRecordBatch();
+            return;
+        }
         for (ConnectRecord sourceDataEntry : toSendRecord) {
-            RecordPosition position = sourceDataEntry.getPosition();
-            RecordOffset offset = position.getOffset();
-
-            Message sourceMessage = new Message();
-            String topic = null;
-            topic = taskConfig.getString(RuntimeConfigDefine.CONNECT_TOPICNAME);
-            if (StringUtils.isBlank(topic)) {
-                RecordPosition recordPosition = sourceDataEntry.getPosition();
-                if (null == recordPosition) {
-                    log.error("connect-topicname config is null and recordPosition is null , lack of topic config");
+            if (WorkerTaskState.ERROR == state.get()) {
+                return;
+            }
+            String topic = resolveTopic(sourceDataEntry);
+            if (null == topic) {
+                return;
+            }
+            Message sourceMessage = buildMessage(sourceDataEntry, topic);
+            if (null == sourceMessage) {
+                continue;
+            }
+            MessageQueue queue = null;
+            if (sendOrderEnable) {
+                queue = selectQueue(topic, sourceDataEntry);
+                if (null == queue) {
                     return;
                 }
-                RecordPartition partition = recordPosition.getPartition();
-                if (null == partition) {
-                    log.error("connect-topicname config is null and partition is null , lack of topic config");
+            }
+            final int messageBytes = messageSize(sourceMessage);
+            if (!acquireSendWindow(messageBytes)) {
+                return;
+            }
+            PendingSend pendingSend = new PendingSend(sourceMessage, queue, positionTracker.track(sourceDataEntry), messageBytes);
+            if (null == queue) {
+                sendAsync(pendingSend);
+            } else {
+                sendOrdered(pendingSend);
+            }
+        }
+        toSendRecord = null;
+    }
+
+    /**
+     * Send a record asynchronously. A failed send keeps its ack and its share of the send window, and is queued to be
+     * resent by the task thread after a backoff.
+     */
+    private void sendAsync(final PendingSend pendingSend) throws InterruptedException {
+        SendCallback sendCallback = new SendCallback() {
+            @Override public void onSuccess(SendResult result) {
+                onSendSuccess(pendingSend, result);
+            }
+
+            @Override public void onException(Throwable throwable) {
+                onSendException(pendingSend, throwable);
+                if (!scheduleRetry(pendingSend)) {
                     return;
                 }
-                Map<String, ?> partitionMap = partition.getPartition();
-                if (null == partitionMap) {
-                    log.error("connect-topicname config is null and partitionMap is null , lack of topic config");
+                failedSends.add(pendingSend);
+            }
+        };
+        try {
+            producer.send(pendingSend.message, sendCallback);
+        } catch (MQClientException | RemotingException e) {
+            sendCallback.onException(e);
+        } catch (InterruptedException e) {
+            onSendException(pendingSend, e);
+            releaseSendWindow(pendingSend.messageBytes);
+            failSend();
+            throw e;
+        }
+    }
+
+    /**
+     * Send a record to its queue once the sends of the queue before it are acked. Sends of different queues stay
+     * pipelined.
+     */
+    private void sendOrdered(PendingSend pendingSend) {
+        OrderedSendQueue orderedSendQueue = orderedSendQueues.computeIfAbsent(pendingSend.queue, k -> new OrderedSendQueue());
+        synchronized (orderedSendQueue) {
+            if (orderedSendQueue.inflight) {
+                orderedSendQueue.waiting.add(pendingSend);
+                return;
+            }
+            orderedSendQueue.inflight = true;
+        }
+        sendToQueue(pendingSend);
+    }
+
+    /**
+     * Send the record in flight of its queue asynchronously. On success the next waiting record of the queue is sent,
+     * a failed send stays in flight and is resent by the task thread after a backoff.
+     */
+    private void sendToQueue(final PendingSend pendingSend) {
+        SendCallback sendCallback = new SendCallback() {
+            @Override public void onSuccess(SendResult result) {
+                onSendSuccess(pendingSend, result);
+                sendNextOrdered(pendingSend.queue);
+            }
+
+            @Override public void onException(Throwable throwable) {
+                onSendException(pendingSend, throwable);
+                if (!scheduleRetry(pendingSend)) {
                     return;
                 }
-                Object o = partitionMap.get(TOPIC);
-                if (null == o) {
-                    log.error("connect-topicname config is null and partitionMap.get is null , lack of topic config");
+                failedSends.add(pendingSend);
+            }
+        };
+        try {
+            producer.send(pendingSend.message, pendingSend.queue, sendCallback);
+        } catch (MQClientException | RemotingException e) {
+            sendCallback.onException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sendCallback.onException(e);
+        }
+    }
+
+    private void sendNextOrdered(MessageQueue queue) {
+        OrderedSendQueue orderedSendQueue = orderedSendQueues.get(queue);
+        PendingSend next;
+        synchronized (orderedSendQueue) {
+            next = orderedSendQueue.waiting.poll();
+            if (null == next) {
+                orderedSendQueue.inflight = false;
+                return;
+            }
+        }
+        sendToQueue(next);
+    }
+
+    private void onSendSuccess(PendingSend pendingSend, SendResult result) {
+        releaseSendWindow(pendingSend.messageBytes);
+        log.info("Successful send message to RocketMQ:{}, Topic {}", result.getMsgId(), result.getMessageQueue().getTopic());
+        connectStatsManager.incSourceRecordWriteTotalNums();
+        connectStatsManager.incSourceRecordWriteNums(taskConfigSnapshot.getTaskId());
+        completeSend(pendingSend.ack);
+    }
+
+    private void onSendException(PendingSend pendingSend, Throwable throwable) {
+        log.error("Source task send record failed ,error msg {}. message {}", throwable.getMessage(), JSON.toJSONString(pendingSend.message), throwable);
+        connectStatsManager.incSourceRecordWriteTotalFailNums();
+        connectStatsManager.incSourceRecordWriteFailNums(taskConfigSnapshot.getTaskId());
+    }
+
+    /**
+     * Count a retry of a failed send and set when it is due, or fail the task if the send has no retries left.
+     *
+     * @return false if the task failed
+     */
+    private boolean scheduleRetry(PendingSend pendingSend) {
+        if (pendingSend.retries >= sendRetryMax) {
+            log.error("Source task send record failed after {} retries, message {}", pendingSend.retries, JSON.toJSONString(pendingSend.message));
+            releaseSendWindow(pendingSend.messageBytes);
+            failSend();
+            return false;
+        }
+        pendingSend.retries++;
+        pendingSend.dueTimestamp = System.currentTimeMillis() + retryBackoffMs(pendingSend.retries);
+        return true;
+    }
+
+    /**
+     * Resend the failed records whose backoff elapsed.
+     */
+    private void resendFailedSends() throws InterruptedException {
+        PendingSend pendingSend;
+        while (WorkerTaskState.ERROR != state.get() && null != (pendingSend = failedSends.poll())) {
+            if (null == pendingSend.queue) {
+                sendAsync(pendingSend);
+            } else {
+                sendToQueue(pendingSend);
+            }
+        }
+    }
+
+    /**
+     * @return the backoff before the given retry of a failed send
+     */
+    private static long retryBackoffMs(int retries) {
+        return Math.min(SEND_RETRY_MAX_BACKOFF_MS, SEND_RETRY_BACKOFF_MS << Math.min(retries - 1, 16));
+    }
+
+    /**
+     * Admit a message into the send window, blocking the task, and so the next poll, while the window is full.
+     *
+     * @return false if the task stopped while waiting
+     */
+    private boolean acquireSendWindow(int messageBytes) throws InterruptedException {
+        if (null == sendWindow) {
+            return true;
+        }
+        boolean blocked = false;
+        while (!sendWindow.acquire(messageBytes, SEND_WINDOW_WAIT_MS)) {
+            // failed sends hold their share of the window until they are resent
+            resendFailedSends();
+            if (!blocked) {
+                blocked = true;
+                connectStatsManager.incSourceSendWindowFullNums(taskConfigSnapshot.getTaskId());
+                log.warn("Source task send window is full, inflight records {}, inflight bytes {}", sendWindow.getInflightRecords(), sendWindow.getInflightBytes());
+            }
+            if (WorkerState.STARTED != workerState.get() || WorkerTaskState.RUNNING != state.get()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void releaseSendWindow(int messageBytes) {
+        if (null != sendWindow) {
+            sendWindow.release(messageBytes);
+        }
+    }
+
+    /**
+     * Send list of sourceDataEntries to MQ as batch messages, one batch per topic, or per queue if ordered send is
+     * enabled, split at {@link RuntimeConfigDefine#MAX_MESSAGE_SIZE}. Positions of a batch are updated once the batch
+     * is acked. A failed batch is retried in place, and fails the task once it has no retries left.
+     */
+    private void sendRecordBatch() throws InterruptedException {
+        Map<Object, List<ConnectRecord>> groupRecords = new LinkedHashMap<>();
+        Map<Object, List<Message>> groupMessages = new LinkedHashMap<>();
+        for (ConnectRecord sourceDataEntry : toSendRecord) {
+            String topic = resolveTopic(sourceDataEntry);
+            if (null == topic) {
+                return;
+            }
+            Message sourceMessage = buildMessage(sourceDataEntry, topic);
+            if (null == sourceMessage) {
+                continue;
+            }
+            Object group = topic;
+            if (sendOrderEnable) {
+                group = selectQueue(topic, sourceDataEntry);
+                if (null == group) {
                     return;
                 }
-                topic = (String) o;
-            }
-            if (StringUtils.isBlank(topic)) {
-                throw new ConnectException("source connect lack of topic config");
-            }
-            sourceMessage.setTopic(topic);
-            if (null == recordConverter || recordConverter instanceof RocketMQConverter) {
-                putExtendMsgProperty(sourceDataEntry, sourceMessage, topic);
-                Object payload = sourceDataEntry.getData();
-                if (null != payload) {
-                    final byte[] messageBody = (String.valueOf(payload)).getBytes();
-                    if (messageBody.length > RuntimeConfigDefine.MAX_MESSAGE_SIZE) {
-                        log.error("Send record, message size is greater than {} bytes, sourceDataEntry: {}", RuntimeConfigDefine.MAX_MESSAGE_SIZE, JSON.toJSONString(sourceDataEntry));
-                        continue;
-                    }
-                    sourceMessage.setBody(messageBody);
-                }
-            } else {
-                final byte[] messageBody = JSON.toJSONString(sourceDataEntry).getBytes();
-                if (messageBody.length > RuntimeConfigDefine.MAX_MESSAGE_SIZE) {
-                    log.error("Send record, message size is greater than {} bytes, sourceDataEntry: {}", RuntimeConfigDefine.MAX_MESSAGE_SIZE, JSON.toJSONString(sourceDataEntry));
-                    continue;
+            }
+            groupRecords.computeIfAbsent(group, k -> new ArrayList<>()).add(sourceDataEntry);
+            groupMessages.computeIfAbsent(group, k -> new ArrayList<>()).add(sourceMessage);
+        }
+        for (Map.Entry<Object, List<Message>> entry : groupMessages.entrySet()) {
+            List<ConnectRecord> records = groupRecords.get(entry.getKey());
+            List<Message> messages = entry.getValue();
+            MessageQueue queue = entry.getKey() instanceof MessageQueue ? (MessageQueue) entry.getKey() : null;
+            int batchBegin = 0;
+            int batchBytes = 0;
+            for (int i = 0; i < messages.size(); i++) {
+                int messageBytes = messageSize(messages.get(i));
+                if (i > batchBegin && batchBytes + messageBytes > RuntimeConfigDefine.MAX_MESSAGE_SIZE) {
+                    sendBatch(records.subList(batchBegin, i), messages.subList(batchBegin, i), queue);
+                    batchBegin = i;
+                    batchBytes = 0;
                 }
-                sourceMessage.setBody(messageBody);
+                batchBytes += messageBytes;
+            }
+            sendBatch(records.subList(batchBegin, messages.size()), messages.subList(batchBegin, messages.size()), queue);
+            if (WorkerTaskState.ERROR == state.get()) {
+                return;
             }
+        }
+        toSendRecord = null;
+    }
+
+    /**
+     * Select the publish queue of a record for ordered sends, the same for single and batch sends. Fetching the
+     * queues of the topic is retried like a failed send, records are never sent without order.
+     *
+     * @return null if the task failed
+     */
+    private MessageQueue selectQueue(String topic, ConnectRecord sourceDataEntry) throws InterruptedException {
+        for (int retries = 0; ; retries++) {
             try {
-                producer.send(sourceMessage, new SendCallback() {
-                    @Override public void onSuccess(org.apache.rocketmq.client.producer.SendResult result) {
-                        log.info("Successful send message to RocketMQ:{}, Topic {}", result.getMsgId(), result.getMessageQueue().getTopic());
-                        connectStatsManager.incSourceRecordWriteTotalNums();
-                        connectStatsManager.incSourceRecordWriteNums(taskConfig.getString(RuntimeConfigDefine.TASK_ID));
-                        RecordPartition partition = position.getPartition();
-                        try {
-                            if (null != partition && null != position) {
-                                Map<String, String> offsetMap = (Map<String, String>) offset.getOffset();
-                                offsetMap.put(RuntimeConfigDefine.UPDATE_TIMESTAMP, String.valueOf(sourceDataEntry.getTimestamp()));
-                                positionManagementService.putPosition(partition, offset);
-                            }
-
-                        } catch (Exception e) {
-                            log.error("Source task save position info failed. partition {}, offset {}", JSON.toJSONString(partition), JSON.toJSONString(offset), e);
-                        }
-                    }
+                return SourceRecordQueueSelector.select(publishQueues(topic), orderHash(sourceDataEntry));
+            } catch (MQClientException e) {
+                log.error("Fetch publish queues of topic {} failed, retries {}", topic, retries, e);
+                if (retries >= sendRetryMax) {
+                    failSend();
+                    return null;
+                }
+                Thread.sleep(retryBackoffMs(retries + 1));
+            }
+        }
+    }
 
-                    @Override public void onException(Throwable throwable) {
-                        log.error("Source task send record failed ,error msg {}. message {}", throwable.getMessage(), JSON.toJSONString(sourceMessage), throwable);
-                        connectStatsManager.incSourceRecordWriteTotalFailNums();
-                        connectStatsManager.incSourceRecordWriteFailNums(taskConfig.getString(RuntimeConfigDefine.TASK_ID));
-                    }
-                });
+    /**
+     * Get the sorted publish queues of a topic. The queues fetched before are kept if a refresh fails.
+     */
+    private List<MessageQueue> publishQueues(String topic) throws MQClientException {
+        Long timestamp = topicQueuesTimestamps.get(topic);
+        long now = System.currentTimeMillis();
+        if (null == timestamp || now - timestamp > TOPIC_QUEUES_REFRESH_MS) {
+            try {
+                List<MessageQueue> queues = new ArrayList<>(producer.fetchPublishMessageQueues(topic));
+                if (queues.isEmpty()) {
+                    throw new MQClientException("No publish queues of topic " + topic, null);
+                }
+                Collections.sort(queues);
+                topicQueues.put(topic, queues);
             } catch (MQClientException e) {
-                log.error("Send message MQClientException. message: {}, error info: {}.", sourceMessage, e);
-                connectStatsManager.incSourceRecordWriteTotalFailNums();
-                connectStatsManager.incSourceRecordWriteFailNums(taskConfig.getString(RuntimeConfigDefine.TASK_ID));
-            } catch (RemotingException e) {
-                log.error("Send message RemotingException. message: {}, error info: {}.", sourceMessage, e);
-                connectStatsManager.incSourceRecordWriteTotalFailNums();
-                connectStatsManager.incSourceRecordWriteFailNums(taskConfig.getString(RuntimeConfigDefine.TASK_ID));
+                if (!topicQueues.containsKey(topic)) {
+                    throw e;
+                }
+                log.warn("Refresh publish queues of topic {} failed, keep the queues fetched before.", topic, e);
+            }
+            topicQueuesTimestamps.put(topic, now);
+        }
+        return topicQueues.get(topic);
+    }
+
+    /**
+     * Hash of the order key of a record, the extension value of {@link #SEND_ORDER_KEY_CONFIG} if the record has it,
+     * otherwise the source partition.
+     */
+    private int orderHash(ConnectRecord sourceDataEntry) {
+        if (null != orderKey && null != sourceDataEntry.getExtensions()) {
+            String orderValue = sourceDataEntry.getExtensions().getString(orderKey);
+            if (null != orderValue) {
+                return orderValue.hashCode();
+            }
+        }
+        RecordPosition position = sourceDataEntry.getPosition();
+        return null == position || null == position.getPartition() ? 0 : Objects.hashCode(position.getPartition().getPartition());
+    }
+
+    private void sendBatch(List<ConnectRecord> records, List<Message> messages,
+        MessageQueue queue) throws InterruptedException {
+        String taskId = taskConfigSnapshot.getTaskId();
+        List<SourcePositionTracker.Ack> acks = new ArrayList<>(records.size());
+        for (ConnectRecord record : records) {
+            acks.add(positionTracker.track(record));
+        }
+        for (int retries = 0; ; retries++) {
+            try {
+                SendResult result = null == queue ? producer.send(messages) : producer.send(messages, queue);
+                log.info("Successful send batch message to RocketMQ:{}, Topic {}, size {}", result.getMsgId(), result.getMessageQueue().getTopic(), messages.size());
+                connectStatsManager.incSourceRecordWriteTotalNums(messages.size());
+                connectStatsManager.incSourceRecordWriteNums(taskId, messages.size());
+                break;
+            } catch (MQClientException | RemotingException | MQBrokerException e) {
+                log.error("Send batch message failed. topic: {}, size: {}, retries: {}, error info: {}.", messages.get(0).getTopic(), messages.size(), retries, e);
+                connectStatsManager.incSourceRecordWriteTotalFailNums(messages.size());
+                connectStatsManager.incSourceRecordWriteFailNums(taskId, messages.size());
+                if (retries >= sendRetryMax) {
+                    failSend();
+                    return;
+                }
+                Thread.sleep(retryBackoffMs(retries + 1));
             } catch (InterruptedException e) {
-                log.error("Send message InterruptedException. message: {}, error info: {}.", sourceMessage, e);
-                connectStatsManager.incSourceRecordWriteTotalFailNums();
-                connectStatsManager.incSourceRecordWriteFailNums(taskConfig.getString(RuntimeConfigDefine.TASK_ID));
+                failSend();
+                log.error("Send batch message InterruptedException. topic: {}, size: {}, error info: {}.", messages.get(0).getTopic(), messages.size(), e);
+                connectStatsManager.incSourceRecordWriteTotalFailNums(messages.size());
+                connectStatsManager.incSourceRecordWriteFailNums(taskId, messages.size());
                 throw e;
             }
         }
-        toSendRecord = null;
+        for (SourcePositionTracker.Ack ack : acks) {
+            completeSend(ack);
+        }
+    }
+
+    /**
+     * Encoded size of a message, as in a batch, see {@link org.apache.rocketmq.common.message.MessageBatch#encode()}.
+     */
+    private static int messageSize(Message message) {
+        int propertiesLength = MessageDecoder.messageProperties2String(message.getProperties()).getBytes(StandardCharsets.UTF_8).length;
+        int bodyLength = null == message.getBody() ? 0 : message.getBody().length;
+        return BATCH_MESSAGE_OVERHEAD + bodyLength + propertiesLength;
+    }
+
+    /**
+     * Get the topic to send the record to, null if the topic can not be decided.
+     */
+    private String resolveTopic(ConnectRecord sourceDataEntry) {
+        String topic = taskConfigSnapshot.getString(RuntimeConfigDefine.CONNECT_TOPICNAME);
+        if (StringUtils.isBlank(topic)) {
+            RecordPosition recordPosition = sourceDataEntry.getPosition();
+            if (null == recordPosition) {
+                log.error("connect-topicname config is null and recordPosition is null , lack of topic config");
+                return null;
+            }
+            RecordPartition partition = recordPosition.getPartition();
+            if (null == partition) {
+                log.error("connect-topicname config is null and partition is null , lack of topic config");
+                return null;
+            }
+            Map<String, ?> partitionMap = partition.getPartition();
+            if (null == partitionMap) {
+                log.error("connect-topicname config is null and partitionMap is null , lack of topic config");
+                return null;
+            }
+            Object o = partitionMap.get(TOPIC);
+            if (null == o) {
+                log.error("connect-topicname config is null and partitionMap.get is null , lack of topic config");
+                return null;
+            }
+            topic = (String) o;
+        }
+        if (StringUtils.isBlank(topic)) {
+            throw new ConnectException("source connect lack of topic config");
+        }
+        return topic;
+    }
+
+    /**
+     * Convert the record to a message, null if the message is too large to send.
+     */
+    private Message buildMessage(ConnectRecord sourceDataEntry, String topic) {
+        Message sourceMessage = new Message();
+        sourceMessage.setTopic(topic);
+        if (null == recordConverter || recordConverter instanceof RocketMQConverter) {
+            putExtendMsgProperty(sourceDataEntry, sourceMessage, topic);
+            putSchemaIdProperty(sourceDataEntry, sourceMessage);
+            Object payload = sourceDataEntry.getData();
+            if (null != payload) {
+                final byte[] messageBody = (String.valueOf(payload)).getBytes();
+                if (messageBody.length > RuntimeConfigDefine.MAX_MESSAGE_SIZE) {
+                    log.error("Send record, message size is greater than {} bytes, sourceDataEntry: {}", RuntimeConfigDefine.MAX_MESSAGE_SIZE, JSON.toJSONString(sourceDataEntry));
+                    return null;
+                }
+                sourceMessage.setBody(messageBody);
+            }
+        } else {
+            final byte[] messageBody = JSON.toJSONString(sourceDataEntry).getBytes();
+            if (messageBody.length > RuntimeConfigDefine.MAX_MESSAGE_SIZE) {
+                log.error("Send record, message size is greater than {} bytes, sourceDataEntry: {}", RuntimeConfigDefine.MAX_MESSAGE_SIZE, JSON.toJSONString(sourceDataEntry));
+                return null;
+            }
+            sourceMessage.setBody(messageBody);
+        }
+        return sourceMessage;
+    }
+
+    /**
+     * Complete the send of a record once the broker acked it.
+     */
+    private void completeSend(SourcePositionTracker.Ack ack) {
+        if (null != ack) {
+            ack.complete();
+        }
+    }
+
+    /**
+     * Fail the task after a send failed and has no retries left. The ack of the failed record is never completed, so
+     * the position stays before it and the record is polled again once the task is restarted.
+     */
+    private void failSend() {
+        state.set(WorkerTaskState.ERROR);
+    }
+
+    /**
+     * Put the positions of the acked prefix of each source partition, at most once per flush interval unless forced.
+     */
+    private void flushPositions(boolean force) {
+        long now = System.currentTimeMillis();
+        if (!force && now - lastPositionFlushTimestamp < positionFlushIntervalMs) {
+            return;
+        }
+        lastPositionFlushTimestamp = now;
+        Map<RecordPartition, ConnectRecord> advanced = positionTracker.advance();
+        if (advanced.isEmpty()) {
+            return;
+        }
+        Map<RecordPartition, RecordOffset> positions = new HashMap<>(advanced.size() * 2);
+        for (Map.Entry<RecordPartition, ConnectRecord> entry : advanced.entrySet()) {
+            ConnectRecord sourceDataEntry = entry.getValue();
+            RecordOffset offset = sourceDataEntry.getPosition().getOffset();
+            try {
+                Map<String, String> offsetMap = (Map<String, String>) offset.getOffset();
+                offsetMap.put(RuntimeConfigDefine.UPDATE_TIMESTAMP, String.valueOf(sourceDataEntry.getTimestamp()));
+                positions.put(entry.getKey(), offset);
+            } catch (Exception e) {
+                log.error("Source task save position info failed. partition {}, offset {}", JSON.toJSONString(entry.getKey()), JSON.toJSONString(offset), e);
+            }
+        }
+        positionManagementService.putPosition(positions);
     }
 
     private void putExtendMsgProperty(ConnectRecord sourceDataEntry, Message sourceMessage, String topic) {
@@ -355,11 +911,28 @@ public class WorkerSourceTask implements WorkerTask {
         }
     }
 
+    private void putSchemaIdProperty(ConnectRecord sourceDataEntry, Message sourceMessage) {
+        Schema schema = sourceDataEntry.getSchema();
+        if (null == schemaRegistryService || null == schema) {
+            return;
+        }
+        if (schema != lastSchema) {
+            lastSchemaId = schemaRegistryService.registerSchema(schema);
+            lastSchema = schema;
+        }
+        MessageAccessor.putProperty(sourceMessage, RuntimeConfigDefine.CONNECT_SCHEMA_ID, lastSchemaId);
+    }
+
     @Override
     public WorkerTaskState getState() {
         return this.state.get();
     }
 
+    @Override
+    public void setStateListener(TaskStateListener listener) {
+        this.state.setListener(listener);
+    }
+
     @Override
     public String getConnectorName() {
         return connectorName;
@@ -370,6 +943,11 @@ public class WorkerSourceTask implements WorkerTask {
         return taskConfig;
     }
 
+    @Override
+    public TaskConfigSnapshot getTaskConfigSnapshot() {
+        return taskConfigSnapshot;
+    }
+
     @Override
     public void timeout() {
         this.state.set(WorkerTaskState.ERROR);
@@ -391,6 +969,58 @@ public class WorkerSourceTask implements WorkerTask {
         obj.put("connectorName", connectorName);
         obj.put("configs", JSON.toJSONString(taskConfig));
         obj.put("state", state.get().toString());
+        if (null != sendWindow) {
+            obj.put("inflightRecords", sendWindow.getInflightRecords());
+            obj.put("inflightBytes", sendWindow.getInflightBytes());
+        }
         return obj;
     }
+
+    /**
+     * Ordered sends of a publish queue, at most one of them in flight.
+     */
+    private static final class OrderedSendQueue {
+
+        private final ArrayDeque<PendingSend> waiting = new ArrayDeque<>();
+
+        private boolean inflight;
+    }
+
+    /**
+     * A record sent, or waiting to be resent, together with its ack and its share of the send window.
+     */
+    private static final class PendingSend implements Delayed {
+
+        private final Message message;
+
+        /**
+         * Null if the record is sent without order.
+         */
+        private final MessageQueue queue;
+
+        private final SourcePositionTracker.Ack ack;
+
+        private final int messageBytes;
+
+        private int retries;
+
+        private long dueTimestamp;
+
+        private PendingSend(Message message, MessageQueue queue, SourcePositionTracker.Ack ack, int messageBytes) {
+            this.message = message;
+            this.queue = queue;
+            this.ack = ack;
+            this.messageBytes = messageBytes;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueTimestamp - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            return Long.compare(dueTimestamp, ((PendingSend) o).dueTimestamp);
+        }
+    }
 }
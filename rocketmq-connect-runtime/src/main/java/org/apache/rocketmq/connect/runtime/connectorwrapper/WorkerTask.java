@@ -16,6 +16,7 @@
  */
 package org.apache.rocketmq.connect.runtime.connectorwrapper;
 import org.apache.rocketmq.connect.runtime.common.ConnectKeyValue;
+import org.apache.rocketmq.connect.runtime.common.TaskConfigSnapshot;
 
 /**
  * Should we use callable here ?
@@ -32,7 +33,14 @@ public interface WorkerTask extends Runnable {
 
     public ConnectKeyValue getTaskConfig();
 
+    /**
+     * @return the snapshot of the task config taken when the task was created
+     */
+    public TaskConfigSnapshot getTaskConfigSnapshot();
+
     public Object getJsonObject();
 
     public void timeout();
+
+    public void setStateListener(TaskStateListener listener);
 }
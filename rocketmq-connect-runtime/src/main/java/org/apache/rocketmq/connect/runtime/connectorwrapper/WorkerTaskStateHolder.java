@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.rocketmq.connect.runtime.connectorwrapper;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Atomic state of a task which publishes every change to the listener, so the worker reacts to state changes instead
+ * of polling them.
+ */
+public class WorkerTaskStateHolder {
+
+    private final WorkerTask workerTask;
+
+    private final AtomicReference<WorkerTaskState> state = new AtomicReference<>(WorkerTaskState.NEW);
+
+    private volatile TaskStateListener listener;
+
+    public WorkerTaskStateHolder(WorkerTask workerTask) {
+        this.workerTask = workerTask;
+    }
+
+    public WorkerTaskState get() {
+        return state.get();
+    }
+
+    public void set(WorkerTaskState newState) {
+        WorkerTaskState oldState = state.getAndSet(newState);
+        if (oldState != newState) {
+            publish(oldState, newState);
+        }
+    }
+
+    public boolean compareAndSet(WorkerTaskState expect, WorkerTaskState update) {
+        if (!state.compareAndSet(expect, update)) {
+            return false;
+        }
+        if (expect != update) {
+            publish(expect, update);
+        }
+        return true;
+    }
+
+    public void setListener(TaskStateListener listener) {
+        this.listener = listener;
+    }
+
+    private void publish(WorkerTaskState from, WorkerTaskState to) {
+        TaskStateListener stateListener = listener;
+        if (null != stateListener) {
+            stateListener.onStateChange(workerTask, from, to);
+        }
+    }
+}
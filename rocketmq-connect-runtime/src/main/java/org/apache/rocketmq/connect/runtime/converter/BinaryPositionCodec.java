@@ -0,0 +1,302 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.rocketmq.connect.runtime.converter;
+
+import com.alibaba.fastjson.JSON;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.rocketmq.connect.runtime.config.RuntimeConfigDefine;
+
+/**
+ * Binary format of partitions and offsets, used instead of json to keep sync messages and stores small.
+ *
+ * <p>An encoded value starts with {@link #MAGIC} and {@link #VERSION}. A map is written as a varint entry count plus
+ * one, 0 standing for null, followed by the entries. A key is a varint index into {@link #DICTIONARY} plus one, or 0
+ * followed by the literal string. A value is a type byte followed by its content, strings of canonical decimal numbers
+ * like {@code "42"} are written as varints. Strings are varint length prefixed UTF-8.
+ *
+ * <p>{@link #MAGIC} is not a valid first byte of UTF-8 json, so decoders can tell binary data from json data written
+ * before the codec was enabled.
+ */
+public final class BinaryPositionCodec {
+
+    public static final byte MAGIC = (byte) 0xC5;
+
+    public static final byte VERSION = 1;
+
+    /**
+     * Value of {@code positionCodec} in the worker config selecting this codec.
+     */
+    public static final String CODEC_NAME = "binary";
+
+    /**
+     * Well known keys of partitions and offsets. The index is part of the format, new keys can only be appended.
+     */
+    static final String[] DICTIONARY = {
+        "topic",
+        "brokerName",
+        "queueId",
+        "queueOffset",
+        RuntimeConfigDefine.POSITION_VERSION,
+        RuntimeConfigDefine.UPDATE_TIMESTAMP,
+        "partition",
+        "offset",
+        "position",
+        "filename",
+        "binlog_file",
+        "next_position"
+    };
+
+    private static final Map<String, Integer> DICTIONARY_INDEX = new HashMap<>();
+
+    static {
+        for (int i = 0; i < DICTIONARY.length; i++) {
+            DICTIONARY_INDEX.put(DICTIONARY[i], i);
+        }
+    }
+
+    private static final byte TYPE_NULL = 0;
+
+    private static final byte TYPE_STRING = 1;
+
+    private static final byte TYPE_DECIMAL_STRING = 2;
+
+    private static final byte TYPE_INT = 3;
+
+    private static final byte TYPE_LONG = 4;
+
+    private static final byte TYPE_JSON = 5;
+
+    private BinaryPositionCodec() {
+    }
+
+    public static boolean isBinary(byte[] bytes) {
+        return null != bytes && bytes.length >= 2 && MAGIC == bytes[0];
+    }
+
+    public static byte[] encodeMap(Map<String, ?> map) {
+        Output output = new Output();
+        output.writeHeader();
+        output.writeMap(map);
+        return output.toByteArray();
+    }
+
+    public static Map<String, Object> decodeMap(byte[] bytes) {
+        Input input = new Input(bytes);
+        input.readHeader();
+        return input.readMap();
+    }
+
+    /**
+     * Growable output of the binary format.
+     */
+    public static final class Output {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+
+        public void writeHeader() {
+            out.write(MAGIC);
+            out.write(VERSION);
+        }
+
+        public void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+
+        public void writeBytes(byte[] bytes) {
+            writeVarint(bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+
+        public void writeString(String value) {
+            writeBytes(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public void writeMap(Map<String, ?> map) {
+            if (null == map) {
+                writeVarint(0);
+                return;
+            }
+            writeVarint(map.size() + 1L);
+            for (Map.Entry<String, ?> entry : map.entrySet()) {
+                Integer index = DICTIONARY_INDEX.get(entry.getKey());
+                if (null != index) {
+                    writeVarint(index + 1L);
+                } else {
+                    writeVarint(0);
+                    writeString(entry.getKey());
+                }
+                writeValue(entry.getValue());
+            }
+        }
+
+        private void writeValue(Object value) {
+            if (null == value) {
+                out.write(TYPE_NULL);
+            } else if (value instanceof String) {
+                String string = (String) value;
+                Long decimal = parseCanonicalDecimal(string);
+                if (null != decimal) {
+                    out.write(TYPE_DECIMAL_STRING);
+                    writeVarint(zigZag(decimal));
+                } else {
+                    out.write(TYPE_STRING);
+                    writeString(string);
+                }
+            } else if (value instanceof Integer) {
+                out.write(TYPE_INT);
+                writeVarint(zigZag((Integer) value));
+            } else if (value instanceof Long) {
+                out.write(TYPE_LONG);
+                writeVarint(zigZag((Long) value));
+            } else {
+                out.write(TYPE_JSON);
+                writeString(JSON.toJSONString(value));
+            }
+        }
+
+        public byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Input of the binary format.
+     */
+    public static final class Input {
+
+        private final byte[] bytes;
+
+        private int position;
+
+        public Input(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        public void readHeader() {
+            if (!isBinary(bytes)) {
+                throw new IllegalArgumentException("Not binary encoded data");
+            }
+            if (bytes[1] > VERSION) {
+                throw new IllegalArgumentException("Unsupported binary format version " + bytes[1]);
+            }
+            position = 2;
+        }
+
+        public long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint at " + position);
+        }
+
+        public byte[] readBytes() {
+            int length = (int) readVarint();
+            if (length < 0 || position + length > bytes.length) {
+                throw new IllegalArgumentException("Malformed length " + length + " at " + position);
+            }
+            byte[] result = new byte[length];
+            System.arraycopy(bytes, position, result, 0, length);
+            position += length;
+            return result;
+        }
+
+        public String readString() {
+            return new String(readBytes(), StandardCharsets.UTF_8);
+        }
+
+        public Map<String, Object> readMap() {
+            long count = readVarint();
+            if (0 == count) {
+                return null;
+            }
+            Map<String, Object> map = new HashMap<>((int) (count * 2));
+            for (long i = 1; i < count; i++) {
+                int index = (int) readVarint();
+                String key = 0 == index ? readString() : DICTIONARY[index - 1];
+                map.put(key, readValue());
+            }
+            return map;
+        }
+
+        private Object readValue() {
+            byte type = bytes[position++];
+            switch (type) {
+                case TYPE_NULL:
+                    return null;
+                case TYPE_STRING:
+                    return readString();
+                case TYPE_DECIMAL_STRING:
+                    return Long.toString(unZigZag(readVarint()));
+                case TYPE_INT:
+                    return (int) unZigZag(readVarint());
+                case TYPE_LONG:
+                    return unZigZag(readVarint());
+                case TYPE_JSON:
+                    return JSON.parse(readString());
+                default:
+                    throw new IllegalArgumentException("Unknown value type " + type + " at " + (position - 1));
+            }
+        }
+
+        public boolean hasRemaining() {
+            return position < bytes.length;
+        }
+    }
+
+    /**
+     * @return the number if the string is exactly what {@link Long#toString(long)} returns for it, null otherwise
+     */
+    static Long parseCanonicalDecimal(String value) {
+        int length = value.length();
+        if (0 == length || length > 20) {
+            return null;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if ((c < '0' || c > '9') && !(0 == i && '-' == c)) {
+                return null;
+            }
+        }
+        try {
+            long number = Long.parseLong(value);
+            return Long.toString(number).equals(value) ? number : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
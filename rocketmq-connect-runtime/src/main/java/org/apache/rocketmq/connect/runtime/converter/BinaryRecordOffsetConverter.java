@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.rocketmq.connect.runtime.converter;
+
+import io.openmessaging.connector.api.data.Converter;
+import io.openmessaging.connector.api.data.RecordOffset;
+import org.apache.rocketmq.connect.runtime.common.LoggerName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * RecordOffset converter of {@link BinaryPositionCodec}, json written by {@link RecordOffsetConverter} is still
+ * readable.
+ */
+public class BinaryRecordOffsetConverter implements Converter<RecordOffset> {
+
+    private static final Logger log = LoggerFactory.getLogger(LoggerName.ROCKETMQ_RUNTIME);
+
+    private final RecordOffsetConverter jsonConverter = new RecordOffsetConverter();
+
+    @Override
+    public byte[] objectToByte(RecordOffset recordOffset) {
+        try {
+            return BinaryPositionCodec.encodeMap(null == recordOffset ? null : recordOffset.getOffset());
+        } catch (Exception e) {
+            log.error("BinaryRecordOffsetConverter#objectToByte failed", e);
+        }
+        return new byte[0];
+    }
+
+    @Override
+    public RecordOffset byteToObject(byte[] bytes) {
+        if (!BinaryPositionCodec.isBinary(bytes)) {
+            return jsonConverter.byteToObject(bytes);
+        }
+        try {
+            return new RecordOffset(BinaryPositionCodec.decodeMap(bytes));
+        } catch (Exception e) {
+            log.error("BinaryRecordOffsetConverter#byteToObject failed", e);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.rocketmq.connect.runtime.converter;
+
+import io.openmessaging.connector.api.data.Converter;
+import io.openmessaging.connector.api.data.RecordPartition;
+import org.apache.rocketmq.connect.runtime.common.LoggerName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * RecordPartition converter of {@link BinaryPositionCodec}, json written by {@link RecordPartitionConverter} is still
+ * readable.
+ */
+public class BinaryRecordPartitionConverter implements Converter<RecordPartition> {
+
+    private static final Logger log = LoggerFactory.getLogger(LoggerName.ROCKETMQ_RUNTIME);
+
+    private final RecordPartitionConverter jsonConverter = new RecordPartitionConverter();
+
+    @Override
+    public byte[] objectToByte(RecordPartition recordPartition) {
+        try {
+            return BinaryPositionCodec.encodeMap(null == recordPartition ? null : recordPartition.getPartition());
+        } catch (Exception e) {
+            log.error("BinaryRecordPartitionConverter#objectToByte failed", e);
+        }
+        return new byte[0];
+    }
+
+    @Override
+    public RecordPartition byteToObject(byte[] bytes) {
+        if (!BinaryPositionCodec.isBinary(bytes)) {
+            return jsonConverter.byteToObject(bytes);
+        }
+        try {
+            return new RecordPartition(BinaryPositionCodec.decodeMap(bytes));
+        } catch (Exception e) {
+            log.error("BinaryRecordPartitionConverter#byteToObject failed", e);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.rocketmq.connect.runtime.converter;
+
+import io.openmessaging.connector.api.data.Converter;
+import io.openmessaging.connector.api.data.RecordOffset;
+import io.openmessaging.connector.api.data.RecordPartition;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.rocketmq.connect.runtime.common.LoggerName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Position map converter of {@link BinaryPositionCodec}, written as a varint entry count followed by the partition and
+ * offset maps of every entry. Json written by {@link RecordPositionMapConverter} is still readable.
+ */
+public class BinaryRecordPositionMapConverter implements Converter<Map<RecordPartition, RecordOffset>> {
+
+    private static final Logger log = LoggerFactory.getLogger(LoggerName.ROCKETMQ_RUNTIME);
+
+    private final RecordPositionMapConverter jsonConverter = new RecordPositionMapConverter();
+
+    @Override
+    public byte[] objectToByte(Map<RecordPartition, RecordOffset> map) {
+        try {
+            BinaryPositionCodec.Output output = new BinaryPositionCodec.Output();
+            output.writeHeader();
+            output.writeVarint(map.size());
+            for (Map.Entry<RecordPartition, RecordOffset> entry : map.entrySet()) {
+                output.writeMap(null == entry.getKey() ? null : entry.getKey().getPartition());
+                output.writeMap(null == entry.getValue() ? null : entry.getValue().getOffset());
+            }
+            return output.toByteArray();
+        } catch (Exception e) {
+            log.error("BinaryRecordPositionMapConverter#objectToByte failed", e);
+        }
+        return new byte[0];
+    }
+
+    @Override
+    public Map<RecordPartition, RecordOffset> byteToObject(byte[] bytes) {
+        if (!BinaryPositionCodec.isBinary(bytes)) {
+            return jsonConverter.byteToObject(bytes);
+        }
+        Map<RecordPartition, RecordOffset> resultMap = new HashMap<>();
+        try {
+            BinaryPositionCodec.Input input = new BinaryPositionCodec.Input(bytes);
+            input.readHeader();
+            long size = input.readVarint();
+            for (long i = 0; i < size; i++) {
+                RecordPartition partition = new RecordPartition(input.readMap());
+                resultMap.put(partition, new RecordOffset(input.readMap()));
+            }
+        } catch (Exception e) {
+            log.error("BinaryRecordPositionMapConverter#byteToObject failed", e);
+        }
+        return resultMap;
+    }
+}
@@ -28,6 +28,7 @@ import java.util.Set;
 import org.apache.rocketmq.connect.runtime.ConnectController;
 import org.apache.rocketmq.connect.runtime.common.ConnectKeyValue;
 import org.apache.rocketmq.connect.runtime.common.LoggerName;
+import org.apache.rocketmq.connect.runtime.connectorwrapper.TaskHistory;
 import org.apache.rocketmq.connect.runtime.connectorwrapper.WorkerConnector;
 import org.apache.rocketmq.connect.runtime.connectorwrapper.WorkerTask;
 import org.slf4j.Logger;
@@ -89,20 +90,22 @@ public class RestHandler {
     private void getAllocatedTasks(Context context) {
         StringBuilder sb = new StringBuilder();
 
-        Set<Runnable> allErrorTasks = new HashSet<>();
-        allErrorTasks.addAll(connectController.getWorker().getErrorTasks());
-        allErrorTasks.addAll(connectController.getWorker().getCleanedErrorTasks());
+        Set<Object> allErrorTasks = convertWorkerTaskToString(connectController.getWorker().getErrorTasks());
+        for (TaskHistory.TaskSummary summary : connectController.getWorker().getCleanedErrorTasks()) {
+            allErrorTasks.add(summary.getJsonObject());
+        }
 
-        Set<Runnable> allStoppedTasks = new HashSet<>();
-        allStoppedTasks.addAll(connectController.getWorker().getStoppedTasks());
-        allStoppedTasks.addAll(connectController.getWorker().getCleanedStoppedTasks());
+        Set<Object> allStoppedTasks = convertWorkerTaskToString(connectController.getWorker().getStoppedTasks());
+        for (TaskHistory.TaskSummary summary : connectController.getWorker().getCleanedStoppedTasks()) {
+            allStoppedTasks.add(summary.getJsonObject());
+        }
 
         Map<String, Object> formatter = new HashMap<>();
         formatter.put("pendingTasks", convertWorkerTaskToString(connectController.getWorker().getPendingTasks()));
         formatter.put("runningTasks",  convertWorkerTaskToString(connectController.getWorker().getWorkingTasks()));
         formatter.put("stoppingTasks",  convertWorkerTaskToString(connectController.getWorker().getStoppingTasks()));
-        formatter.put("stoppedTasks",  convertWorkerTaskToString(allStoppedTasks));
-        formatter.put("errorTasks",  convertWorkerTaskToString(allErrorTasks));
+        formatter.put("stoppedTasks",  allStoppedTasks);
+        formatter.put("errorTasks",  allErrorTasks);
 
         context.result(JSON.toJSONString(formatter));
     }
@@ -34,8 +34,8 @@ import org.apache.rocketmq.connect.runtime.connectorwrapper.Worker;
 import org.apache.rocketmq.connect.runtime.converter.ConnAndTaskConfigConverter;
 import org.apache.rocketmq.connect.runtime.converter.JsonConverter;
 import org.apache.rocketmq.connect.runtime.converter.ListConverter;
-import org.apache.rocketmq.connect.runtime.store.FileBaseKeyValueStore;
 import org.apache.rocketmq.connect.runtime.store.KeyValueStore;
+import org.apache.rocketmq.connect.runtime.store.KeyValueStoreFactory;
 import org.apache.rocketmq.connect.runtime.utils.ConnectUtil;
 import org.apache.rocketmq.connect.runtime.utils.FilePathConfigUtil;
 import org.apache.rocketmq.connect.runtime.utils.Plugin;
@@ -81,11 +81,11 @@ public class ConfigManagementServiceImpl implements ConfigManagementService {
             new ConfigChangeCallback(),
             new JsonConverter(),
             new ConnAndTaskConfigConverter());
-        this.connectorKeyValueStore = new FileBaseKeyValueStore<>(
+        this.connectorKeyValueStore = KeyValueStoreFactory.create(connectConfig,
             FilePathConfigUtil.getConnectorConfigPath(connectConfig.getStorePathRootDir()),
             new JsonConverter(),
             new JsonConverter(ConnectKeyValue.class));
-        this.taskKeyValueStore = new FileBaseKeyValueStore<>(
+        this.taskKeyValueStore = KeyValueStoreFactory.create(connectConfig,
             FilePathConfigUtil.getTaskConfigPath(connectConfig.getStorePathRootDir()),
             new JsonConverter(),
             new ListConverter(ConnectKeyValue.class));
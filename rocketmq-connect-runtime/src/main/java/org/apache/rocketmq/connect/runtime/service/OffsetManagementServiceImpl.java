@@ -20,18 +20,22 @@ package org.apache.rocketmq.connect.runtime.service;
 import io.netty.util.internal.ConcurrentSet;
 import io.openmessaging.connector.api.data.RecordOffset;
 import io.openmessaging.connector.api.data.RecordPartition;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 import org.apache.rocketmq.connect.runtime.config.ConnectConfig;
+import org.apache.rocketmq.connect.runtime.converter.BinaryPositionCodec;
+import org.apache.rocketmq.connect.runtime.converter.BinaryRecordOffsetConverter;
+import org.apache.rocketmq.connect.runtime.converter.BinaryRecordPartitionConverter;
+import org.apache.rocketmq.connect.runtime.converter.BinaryRecordPositionMapConverter;
 import org.apache.rocketmq.connect.runtime.converter.JsonConverter;
 import org.apache.rocketmq.connect.runtime.converter.RecordOffsetConverter;
 import org.apache.rocketmq.connect.runtime.converter.RecordPartitionConverter;
 import org.apache.rocketmq.connect.runtime.converter.RecordPositionMapConverter;
-import org.apache.rocketmq.connect.runtime.store.FileBaseKeyValueStore;
 import org.apache.rocketmq.connect.runtime.store.KeyValueStore;
+import org.apache.rocketmq.connect.runtime.store.KeyValueStoreFactory;
 import org.apache.rocketmq.connect.runtime.utils.ConnectUtil;
 import org.apache.rocketmq.connect.runtime.utils.FilePathConfigUtil;
 import org.apache.rocketmq.connect.runtime.utils.datasync.BrokerBasedLog;
@@ -65,15 +69,18 @@ public class OffsetManagementServiceImpl implements PositionManagementService {
 
     public OffsetManagementServiceImpl(ConnectConfig connectConfig) {
 
-        this.offsetStore = new FileBaseKeyValueStore<>(FilePathConfigUtil.getOffsetPath(connectConfig.getStorePathRootDir()),
-            new RecordPartitionConverter(),
-            new RecordOffsetConverter());
+        boolean binaryCodec = BinaryPositionCodec.CODEC_NAME.equalsIgnoreCase(connectConfig.getPositionCodec());
+        this.offsetStore = KeyValueStoreFactory.createPositionStore(connectConfig, FilePathConfigUtil.getOffsetPath(connectConfig.getStorePathRootDir()),
+            binaryCodec ? new BinaryRecordPartitionConverter() : new RecordPartitionConverter(),
+            binaryCodec ? new BinaryRecordOffsetConverter() : new RecordOffsetConverter());
         this.dataSynchronizer = new BrokerBasedLog(connectConfig,
             connectConfig.getOffsetStoreTopic(),
             ConnectUtil.createGroupName(offsetManagePrefix, connectConfig.getWorkerId()),
             new OffsetChangeCallback(),
             new JsonConverter(),
-            new RecordPositionMapConverter());
+            binaryCodec ? new BinaryRecordPositionMapConverter() : new RecordPositionMapConverter(),
+            binaryCodec,
+            connectConfig.isPositionSyncCompressEnable());
         this.offsetUpdateListener = new HashSet<>();
         this.needSyncPartition = new ConcurrentSet<>();
     }
@@ -154,9 +161,12 @@ public class OffsetManagementServiceImpl implements PositionManagementService {
         this.offsetUpdateListener.add(listener);
     }
 
+    /**
+     * Announce the current instance, receivers answer with their tables and never read the announced one.
+     */
     private void sendOnlineOffsetInfo() {
 
-        dataSynchronizer.send(OffsetChangeEnum.ONLINE_KEY.name(), offsetStore.getKVMap());
+        dataSynchronizer.send(OffsetChangeEnum.ONLINE_KEY.name(), new HashMap<>());
     }
 
 
@@ -164,9 +174,16 @@ public class OffsetManagementServiceImpl implements PositionManagementService {
 
         Set<RecordPartition> needSyncPartitionTmp = needSyncPartition;
         needSyncPartition = new ConcurrentSet<>();
-        Map<RecordPartition, RecordOffset> needSyncOffset = offsetStore.getKVMap().entrySet().stream()
-            .filter(entry -> needSyncPartitionTmp.contains(entry.getKey()))
-            .collect(Collectors.toMap(entry -> entry.getKey(), entry -> entry.getValue()));
+        Map<RecordPartition, RecordOffset> needSyncOffset = new HashMap<>(needSyncPartitionTmp.size() * 2);
+        for (RecordPartition partition : needSyncPartitionTmp) {
+            RecordOffset offset = offsetStore.get(partition);
+            if (null != offset) {
+                needSyncOffset.put(partition, offset);
+            }
+        }
+        if (needSyncOffset.isEmpty()) {
+            return;
+        }
 
         dataSynchronizer.send(OffsetChangeEnum.OFFSET_CHANG_KEY.name(), needSyncOffset);
     }
@@ -207,7 +224,7 @@ public class OffsetManagementServiceImpl implements PositionManagementService {
     }
 
     /**
-     * Merge new received offset info with local store.
+     * Merge new received offset info with local store. Each received entry costs one lookup in the store.
      *
      * @param result
      * @return
@@ -220,18 +237,11 @@ public class OffsetManagementServiceImpl implements PositionManagementService {
         }
 
         for (Map.Entry<RecordPartition, RecordOffset> newEntry : result.entrySet()) {
-            boolean find = false;
-            for (Map.Entry<RecordPartition, RecordOffset> existedEntry : offsetStore.getKVMap().entrySet()) {
-                if (newEntry.getKey().equals(existedEntry.getKey())) {
-                    find = true;
-                    if (!newEntry.getValue().equals(existedEntry.getValue())) {
-                        changed = true;
-                        existedEntry.setValue(newEntry.getValue());
-                    }
-                    break;
-                }
-            }
-            if (!find) {
+            RecordOffset existedOffset = offsetStore.get(newEntry.getKey());
+            if (null == existedOffset) {
+                offsetStore.put(newEntry.getKey(), newEntry.getValue());
+            } else if (!newEntry.getValue().equals(existedOffset)) {
+                changed = true;
                 offsetStore.put(newEntry.getKey(), newEntry.getValue());
             }
         }
@@ -20,18 +20,27 @@ package org.apache.rocketmq.connect.runtime.service;
 import io.netty.util.internal.ConcurrentSet;
 import io.openmessaging.connector.api.data.RecordOffset;
 import io.openmessaging.connector.api.data.RecordPartition;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.rocketmq.common.consumer.ConsumeFromWhere;
 import org.apache.rocketmq.connect.runtime.config.ConnectConfig;
+import org.apache.rocketmq.connect.runtime.config.RuntimeConfigDefine;
+import org.apache.rocketmq.connect.runtime.converter.BinaryPositionCodec;
+import org.apache.rocketmq.connect.runtime.converter.BinaryRecordOffsetConverter;
+import org.apache.rocketmq.connect.runtime.converter.BinaryRecordPartitionConverter;
+import org.apache.rocketmq.connect.runtime.converter.BinaryRecordPositionMapConverter;
 import org.apache.rocketmq.connect.runtime.converter.JsonConverter;
 import org.apache.rocketmq.connect.runtime.converter.RecordOffsetConverter;
 import org.apache.rocketmq.connect.runtime.converter.RecordPartitionConverter;
 import org.apache.rocketmq.connect.runtime.converter.RecordPositionMapConverter;
-import org.apache.rocketmq.connect.runtime.store.FileBaseKeyValueStore;
 import org.apache.rocketmq.connect.runtime.store.KeyValueStore;
+import org.apache.rocketmq.connect.runtime.store.KeyValueStoreFactory;
 import org.apache.rocketmq.connect.runtime.utils.ConnectUtil;
 import org.apache.rocketmq.connect.runtime.utils.FilePathConfigUtil;
 import org.apache.rocketmq.connect.runtime.utils.datasync.BrokerBasedLog;
@@ -60,19 +69,49 @@ public class PositionManagementServiceImpl implements PositionManagementService
      */
     private Set<PositionUpdateListener> positionUpdateListener;
 
+    /**
+     * Logical clock of position versions. It never goes backwards and is advanced past every version received from
+     * other workers, so a local update always wins over the updates this worker has already seen.
+     */
+    private final AtomicLong positionClock = new AtomicLong();
+
+    /**
+     * Id of this boot of the service, carried by its online announcement.
+     */
+    private final String bootId = UUID.randomUUID().toString();
+
+    /**
+     * Whether the own online announcement was consumed back. Announcements consumed before it are replayed history of
+     * the position topic and need no answer. Unlike comparing timestamps, this does not depend on the clocks of other
+     * workers.
+     */
+    private volatile boolean announced;
+
     private final String positionManagePrefix = "PositionManage";
 
+    /**
+     * Partition key carrying the boot id in an online announcement.
+     */
+    private static final String BOOT_ID = "worker-boot-id";
+
     public PositionManagementServiceImpl(ConnectConfig connectConfig) {
 
-        this.positionStore = new FileBaseKeyValueStore<>(FilePathConfigUtil.getPositionPath(connectConfig.getStorePathRootDir()),
-            new RecordPartitionConverter(),
-            new RecordOffsetConverter());
-        this.dataSynchronizer = new BrokerBasedLog(connectConfig,
+        boolean binaryCodec = BinaryPositionCodec.CODEC_NAME.equalsIgnoreCase(connectConfig.getPositionCodec());
+        this.positionStore = KeyValueStoreFactory.createPositionStore(connectConfig, FilePathConfigUtil.getPositionPath(connectConfig.getStorePathRootDir()),
+            binaryCodec ? new BinaryRecordPartitionConverter() : new RecordPartitionConverter(),
+            binaryCodec ? new BinaryRecordOffsetConverter() : new RecordOffsetConverter());
+        BrokerBasedLog positionLog = new BrokerBasedLog(connectConfig,
             connectConfig.getPositionStoreTopic(),
             ConnectUtil.createGroupName(positionManagePrefix, connectConfig.getWorkerId()),
             new PositionChangeCallback(),
             new JsonConverter(),
-            new RecordPositionMapConverter());
+            binaryCodec ? new BinaryRecordPositionMapConverter() : new RecordPositionMapConverter(),
+            binaryCodec,
+            connectConfig.isPositionSyncCompressEnable());
+        // A worker without a local store rebuilds it from the snapshots other workers answer its announcement with,
+        // plus a replay of the retained deltas. Versions keep both safe to merge in any order.
+        positionLog.setConsumeFromWhere(ConsumeFromWhere.CONSUME_FROM_FIRST_OFFSET);
+        this.dataSynchronizer = positionLog;
         this.positionUpdateListener = new HashSet<>();
         this.needSyncPartition = new ConcurrentSet<>();
     }
@@ -81,6 +120,9 @@ public class PositionManagementServiceImpl implements PositionManagementService
     public void start() {
 
         positionStore.load();
+        for (RecordOffset position : positionStore.getKVMap().values()) {
+            positionClock.accumulateAndGet(getVersion(position), Math::max);
+        }
         dataSynchronizer.start();
         sendOnlinePositionInfo();
     }
@@ -112,26 +154,35 @@ public class PositionManagementServiceImpl implements PositionManagementService
     @Override
     public Map<RecordPartition, RecordOffset> getPositionTable() {
 
-        return positionStore.getKVMap();
+        Map<RecordPartition, RecordOffset> positionTable = positionStore.getKVMap();
+        Map<RecordPartition, RecordOffset> positions = new HashMap<>(positionTable.size() * 2);
+        for (Map.Entry<RecordPartition, RecordOffset> entry : positionTable.entrySet()) {
+            positions.put(entry.getKey(), withoutVersion(entry.getValue()));
+        }
+        return positions;
     }
 
     @Override
     public RecordOffset getPosition(RecordPartition partition) {
 
-        return positionStore.get(partition);
+        return withoutVersion(positionStore.get(partition));
     }
 
     @Override
     public void putPosition(Map<RecordPartition, RecordOffset> positions) {
 
-        positionStore.putAll(positions);
+        Map<RecordPartition, RecordOffset> versionedPositions = new HashMap<>(positions.size() * 2);
+        for (Map.Entry<RecordPartition, RecordOffset> entry : positions.entrySet()) {
+            versionedPositions.put(entry.getKey(), withVersion(entry.getValue(), nextVersion()));
+        }
+        positionStore.putAll(versionedPositions);
         needSyncPartition.addAll(positions.keySet());
     }
 
     @Override
     public void putPosition(RecordPartition partition, RecordOffset position) {
 
-        positionStore.put(partition, position);
+        positionStore.put(partition, withVersion(position, nextVersion()));
         needSyncPartition.add(partition);
     }
 
@@ -154,9 +205,14 @@ public class PositionManagementServiceImpl implements PositionManagementService
         this.positionUpdateListener.add(listener);
     }
 
+    /**
+     * Announce the current instance with its boot id only, running workers answer with their whole table.
+     */
     private void sendOnlinePositionInfo() {
 
-        dataSynchronizer.send(PositionChangeEnum.ONLINE_KEY.name(), positionStore.getKVMap());
+        Map<RecordPartition, RecordOffset> announcement = new HashMap<>(2);
+        announcement.put(new RecordPartition(Collections.singletonMap(BOOT_ID, bootId)), new RecordOffset(new HashMap<>()));
+        dataSynchronizer.send(PositionChangeEnum.ONLINE_KEY.name(), announcement);
     }
 
 
@@ -164,16 +220,46 @@ public class PositionManagementServiceImpl implements PositionManagementService
 
         Set<RecordPartition> needSyncPartitionTmp = needSyncPartition;
         needSyncPartition = new ConcurrentSet<>();
-        Map<RecordPartition, RecordOffset> needSyncPosition = positionStore.getKVMap().entrySet().stream()
-            .filter(entry -> needSyncPartitionTmp.contains(entry.getKey()))
-            .collect(Collectors.toMap(entry -> entry.getKey(), entry -> entry.getValue()));
+        Map<RecordPartition, RecordOffset> needSyncPosition = new HashMap<>(needSyncPartitionTmp.size() * 2);
+        for (RecordPartition partition : needSyncPartitionTmp) {
+            RecordOffset position = positionStore.get(partition);
+            if (null != position) {
+                needSyncPosition.put(partition, position);
+            }
+        }
+        if (needSyncPosition.isEmpty()) {
+            return;
+        }
 
         dataSynchronizer.send(PositionChangeEnum.POSITION_CHANG_KEY.name(), needSyncPosition);
     }
 
-    private void sendSynchronizePosition() {
+    /**
+     * Send the whole versioned table as a snapshot, so a worker coming online also learns the positions of idle
+     * partitions and of partitions whose deltas are no longer retained by the position topic.
+     */
+    private void sendSnapshotPosition() {
 
-        dataSynchronizer.send(PositionChangeEnum.POSITION_CHANG_KEY.name(), positionStore.getKVMap());
+        Map<RecordPartition, RecordOffset> snapshot = new HashMap<>(positionStore.getKVMap());
+        if (snapshot.isEmpty()) {
+            return;
+        }
+        dataSynchronizer.send(PositionChangeEnum.POSITION_CHANG_KEY.name(), snapshot);
+    }
+
+    /**
+     * @return the boot id carried by an online announcement, or null if it was sent by a worker without boot ids
+     */
+    private static String getBootId(Map<RecordPartition, RecordOffset> announcement) {
+        if (null == announcement) {
+            return null;
+        }
+        for (RecordPartition partition : announcement.keySet()) {
+            if (null != partition && null != partition.getPartition() && null != partition.getPartition().get(BOOT_ID)) {
+                return String.valueOf(partition.getPartition().get(BOOT_ID));
+            }
+        }
+        return null;
     }
 
     private class PositionChangeCallback implements DataSynchronizerCallback<String, Map<RecordPartition, RecordOffset>> {
@@ -184,8 +270,12 @@ public class PositionManagementServiceImpl implements PositionManagementService
             boolean changed = false;
             switch (PositionChangeEnum.valueOf(key)) {
                 case ONLINE_KEY:
-                    changed = true;
-                    sendSynchronizePosition();
+                    String announcedBootId = getBootId(result);
+                    if (bootId.equals(announcedBootId)) {
+                        announced = true;
+                    } else if (announced) {
+                        sendSnapshotPosition();
+                    }
                     break;
                 case POSITION_CHANG_KEY:
                     changed = mergePositionInfo(result);
@@ -207,10 +297,12 @@ public class PositionManagementServiceImpl implements PositionManagementService
     }
 
     /**
-     * Merge new received position info with local store.
+     * Merge new received position info with local store. Each received entry costs one lookup in the store. When both
+     * sides carry a version, an entry only replaces the local one if its version is newer. Unversioned entries from
+     * older workers never replace a versioned one, and otherwise keep the previous last-arrival-wins behavior.
      *
      * @param result
-     * @return
+     * @return whether any local position was added or replaced
      */
     private boolean mergePositionInfo(Map<RecordPartition, RecordOffset> result) {
 
@@ -220,24 +312,74 @@ public class PositionManagementServiceImpl implements PositionManagementService
         }
 
         for (Map.Entry<RecordPartition, RecordOffset> newEntry : result.entrySet()) {
-            boolean find = false;
-            for (Map.Entry<RecordPartition, RecordOffset> existedEntry : positionStore.getKVMap().entrySet()) {
-                if (newEntry.getKey().equals(existedEntry.getKey())) {
-                    find = true;
-                    if (!newEntry.getValue().equals(existedEntry.getValue())) {
-                        changed = true;
-                        existedEntry.setValue(newEntry.getValue());
-                    }
-                    break;
-                }
+            RecordOffset newPosition = newEntry.getValue();
+            long newVersion = getVersion(newPosition);
+            if (newVersion > 0) {
+                positionClock.accumulateAndGet(newVersion, Math::max);
             }
-            if (!find) {
-                positionStore.put(newEntry.getKey(), newEntry.getValue());
+            RecordOffset existedPosition = positionStore.get(newEntry.getKey());
+            if (null != existedPosition) {
+                long existedVersion = getVersion(existedPosition);
+                if (existedVersion > 0 && newVersion <= existedVersion) {
+                    continue;
+                }
+                if (existedPosition.equals(newPosition)) {
+                    continue;
+                }
             }
+            positionStore.put(newEntry.getKey(), newPosition);
+            changed = true;
         }
         return changed;
     }
 
+    private long nextVersion() {
+        return positionClock.updateAndGet(current -> Math.max(current + 1, System.currentTimeMillis()));
+    }
+
+    /**
+     * Copy the position with the version stamped in, leaving the offset map owned by the task untouched.
+     */
+    private static RecordOffset withVersion(RecordOffset position, long version) {
+        if (null == position) {
+            return null;
+        }
+        Map<String, Object> offset = null == position.getOffset() ? new HashMap<>() : new HashMap<>(position.getOffset());
+        offset.put(RuntimeConfigDefine.POSITION_VERSION, String.valueOf(version));
+        return new RecordOffset(offset);
+    }
+
+    /**
+     * Copy the position without its version, the version is runtime metadata that connectors must not see in their
+     * own offsets.
+     */
+    private static RecordOffset withoutVersion(RecordOffset position) {
+        if (null == position || null == position.getOffset() || !position.getOffset().containsKey(RuntimeConfigDefine.POSITION_VERSION)) {
+            return position;
+        }
+        Map<String, Object> offset = new HashMap<>(position.getOffset());
+        offset.remove(RuntimeConfigDefine.POSITION_VERSION);
+        return new RecordOffset(offset);
+    }
+
+    /**
+     * @return the version of the position, or 0 if it was written by a worker that does not version positions
+     */
+    static long getVersion(RecordOffset position) {
+        if (null == position || null == position.getOffset()) {
+            return 0;
+        }
+        Object version = position.getOffset().get(RuntimeConfigDefine.POSITION_VERSION);
+        if (null == version) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(String.valueOf(version));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
     private enum PositionChangeEnum {
 
         /**
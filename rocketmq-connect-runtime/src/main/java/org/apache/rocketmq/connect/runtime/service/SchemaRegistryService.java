@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.rocketmq.connect.runtime.service;
+
+import io.openmessaging.connector.api.data.Schema;
+
+/**
+ * Interface for schema registry, maps a compact schema id to the JSON text of the schema.
+ */
+public interface SchemaRegistryService {
+
+    /**
+     * Start the registry.
+     */
+    void start();
+
+    /**
+     * Stop the registry.
+     */
+    void stop();
+
+    /**
+     * Persist schemas in a persist store.
+     */
+    void persist();
+
+    /**
+     * Register a schema, and synchronize it to other nodes if it is new.
+     *
+     * @param schema
+     * @return the schema id, a fingerprint of the schema text
+     */
+    String registerSchema(Schema schema);
+
+    /**
+     * Get the schema text of a schema id, waiting for the schema to be synchronized from other nodes if it is unknown.
+     *
+     * @param schemaId
+     * @return the schema text, null if the schema is still unknown after waiting
+     */
+    String getSchema(String schemaId);
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.rocketmq.connect.runtime.service;
+
+import com.alibaba.fastjson.JSON;
+import com.google.common.hash.Hashing;
+import io.openmessaging.connector.api.data.Schema;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.rocketmq.connect.runtime.common.LoggerName;
+import org.apache.rocketmq.connect.runtime.config.ConnectConfig;
+import org.apache.rocketmq.connect.runtime.converter.JsonConverter;
+import org.apache.rocketmq.connect.runtime.store.FileBaseKeyValueStore;
+import org.apache.rocketmq.connect.runtime.store.KeyValueStore;
+import org.apache.rocketmq.connect.runtime.utils.ConnectUtil;
+import org.apache.rocketmq.connect.runtime.utils.FilePathConfigUtil;
+import org.apache.rocketmq.connect.runtime.utils.datasync.BrokerBasedLog;
+import org.apache.rocketmq.connect.runtime.utils.datasync.DataSynchronizer;
+import org.apache.rocketmq.connect.runtime.utils.datasync.DataSynchronizerCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local first schema registry. Schemas are registered in the local store and synchronized to other workers through
+ * the schema topic, a worker coming online asks the others to send all their schemas.
+ */
+public class SchemaRegistryServiceImpl implements SchemaRegistryService {
+
+    private static final Logger log = LoggerFactory.getLogger(LoggerName.ROCKETMQ_RUNTIME);
+
+    /**
+     * Schema id to schema text.
+     */
+    private KeyValueStore<String, String> schemaStore;
+
+    /**
+     * Synchronize data with other workers.
+     */
+    private DataSynchronizer<String, Map<String, String>> dataSynchronizer;
+
+    /**
+     * Max time to wait for an unknown schema id.
+     */
+    private final long resolveTimeoutMillis;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Signalled when new schemas are added to the local store.
+     */
+    private final Condition schemaAdded = lock.newCondition();
+
+    private final String schemaRegistryPrefix = "SchemaRegistry";
+
+    public SchemaRegistryServiceImpl(ConnectConfig connectConfig) {
+
+        this.schemaStore = new FileBaseKeyValueStore<>(FilePathConfigUtil.getSchemaPath(connectConfig.getStorePathRootDir()),
+            new JsonConverter(String.class),
+            new JsonConverter(String.class));
+        this.dataSynchronizer = new BrokerBasedLog(connectConfig,
+            connectConfig.getSchemaStoreTopic(),
+            ConnectUtil.createGroupName(schemaRegistryPrefix, connectConfig.getWorkerId()),
+            new SchemaChangeCallback(),
+            new JsonConverter(),
+            new JsonConverter(Map.class));
+        this.resolveTimeoutMillis = connectConfig.getSchemaResolveTimeoutMillis();
+    }
+
+    @Override
+    public void start() {
+
+        schemaStore.load();
+        dataSynchronizer.start();
+        dataSynchronizer.send(SchemaChangeEnum.ONLINE_KEY.name(), schemaStore.getKVMap());
+    }
+
+    @Override
+    public void stop() {
+
+        schemaStore.persist();
+        dataSynchronizer.stop();
+    }
+
+    @Override
+    public void persist() {
+
+        schemaStore.persist();
+    }
+
+    @Override
+    public String registerSchema(Schema schema) {
+
+        String schemaText = JSON.toJSONString(schema);
+        String schemaId = Hashing.murmur3_128().hashString(schemaText, StandardCharsets.UTF_8).toString();
+        lock.lock();
+        try {
+            if (schemaStore.containsKey(schemaId)) {
+                return schemaId;
+            }
+            schemaStore.put(schemaId, schemaText);
+            schemaAdded.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        dataSynchronizer.send(SchemaChangeEnum.SCHEMA_CHANGE_KEY.name(), Collections.singletonMap(schemaId, schemaText));
+        return schemaId;
+    }
+
+    @Override
+    public String getSchema(String schemaId) {
+
+        String schemaText = schemaStore.get(schemaId);
+        if (null != schemaText) {
+            return schemaText;
+        }
+        long waitNanos = TimeUnit.MILLISECONDS.toNanos(resolveTimeoutMillis);
+        lock.lock();
+        try {
+            while (null == (schemaText = schemaStore.get(schemaId)) && waitNanos > 0) {
+                waitNanos = schemaAdded.awaitNanos(waitNanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+        if (null == schemaText) {
+            log.warn("Schema {} is unknown after waiting {} ms for the schema topic", schemaId, resolveTimeoutMillis);
+        }
+        return schemaText;
+    }
+
+    private class SchemaChangeCallback implements DataSynchronizerCallback<String, Map<String, String>> {
+
+        @Override
+        public void onCompletion(Throwable error, String key, Map<String, String> result) {
+
+            mergeSchemas(result);
+            if (SchemaChangeEnum.ONLINE_KEY == SchemaChangeEnum.valueOf(key)) {
+                dataSynchronizer.send(SchemaChangeEnum.SCHEMA_CHANGE_KEY.name(), schemaStore.getKVMap());
+            }
+        }
+    }
+
+    /**
+     * Merge received schemas with local store, schemas never change once registered so only new ids are added.
+     *
+     * @param result
+     */
+    private void mergeSchemas(Map<String, String> result) {
+
+        if (null == result || 0 == result.size()) {
+            return;
+        }
+        lock.lock();
+        try {
+            boolean added = false;
+            for (Map.Entry<String, String> entry : result.entrySet()) {
+                if (!schemaStore.containsKey(entry.getKey())) {
+                    schemaStore.put(entry.getKey(), entry.getValue());
+                    added = true;
+                }
+            }
+            if (added) {
+                schemaAdded.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private enum SchemaChangeEnum {
+
+        /**
+         * Insert schemas.
+         */
+        SCHEMA_CHANGE_KEY,
+
+        /**
+         * A worker online.
+         */
+        ONLINE_KEY
+    }
+}
@@ -68,6 +68,11 @@ public class ConnectStatsManager {
     public static final String SINK_RECORD_PUT_FAIL_RT = "SINK_RECORD_PUT_FAIL_RT";
     public static final String SINK_RECORD_PUT_TOTAL_FAIL_RT = "SINK_RECORD_PUT_TOTAL_FAIL_RT";
 
+    public static final String SOURCE_SEND_WINDOW_FULL_NUMS = "SOURCE_SEND_WINDOW_FULL_NUMS";
+
+    public static final String SINK_SCHEMA_CACHE_HIT_NUMS = "SINK_SCHEMA_CACHE_HIT_NUMS";
+    public static final String SINK_SCHEMA_CACHE_MISS_NUMS = "SINK_SCHEMA_CACHE_MISS_NUMS";
+
     /**
      * read disk follow stats
      */
@@ -119,6 +124,11 @@ public class ConnectStatsManager {
         this.statsTable.put(SINK_RECORD_PUT_TOTAL_RT, new StatsItemSet(SINK_RECORD_PUT_TOTAL_RT, this.scheduledExecutorService, log));
         this.statsTable.put(SINK_RECORD_PUT_FAIL_RT, new StatsItemSet(SINK_RECORD_PUT_FAIL_RT, this.scheduledExecutorService, log));
         this.statsTable.put(SINK_RECORD_PUT_TOTAL_FAIL_RT, new StatsItemSet(SINK_RECORD_PUT_TOTAL_FAIL_RT, this.scheduledExecutorService, log));
+
+        this.statsTable.put(SOURCE_SEND_WINDOW_FULL_NUMS, new StatsItemSet(SOURCE_SEND_WINDOW_FULL_NUMS, this.scheduledExecutorService, log));
+
+        this.statsTable.put(SINK_SCHEMA_CACHE_HIT_NUMS, new StatsItemSet(SINK_SCHEMA_CACHE_HIT_NUMS, this.scheduledExecutorService, log));
+        this.statsTable.put(SINK_SCHEMA_CACHE_MISS_NUMS, new StatsItemSet(SINK_SCHEMA_CACHE_MISS_NUMS, this.scheduledExecutorService, log));
     }
 
     public void start() {
@@ -166,6 +176,10 @@ public class ConnectStatsManager {
         this.statsTable.get(SOURCE_RECORD_WRITE_TOTAL_NUMS).addValue(worker, 1, 1);
     }
 
+    public void incSourceRecordWriteTotalNums(int incValue) {
+        this.statsTable.get(SOURCE_RECORD_WRITE_TOTAL_NUMS).addValue(worker, incValue, 1);
+    }
+
     public void incSourceRecordWriteNums(String taskId) {
         if (StringUtils.isBlank(taskId)) {
             return;
@@ -173,10 +187,21 @@ public class ConnectStatsManager {
         this.statsTable.get(SOURCE_RECORD_WRITE_NUMS).addValue(taskId, 1, 1);
     }
 
+    public void incSourceRecordWriteNums(String taskId, int incValue) {
+        if (StringUtils.isBlank(taskId)) {
+            return;
+        }
+        this.statsTable.get(SOURCE_RECORD_WRITE_NUMS).addValue(taskId, incValue, 1);
+    }
+
     public void incSourceRecordWriteTotalFailNums() {
         this.statsTable.get(SOURCE_RECORD_WRITE_TOTAL_FAIL_NUMS).addValue(worker, 1, 1);
     }
 
+    public void incSourceRecordWriteTotalFailNums(int incValue) {
+        this.statsTable.get(SOURCE_RECORD_WRITE_TOTAL_FAIL_NUMS).addValue(worker, incValue, 1);
+    }
+
     public void incSourceRecordWriteFailNums(String taskId) {
         if (StringUtils.isBlank(taskId)) {
             return;
@@ -184,6 +209,13 @@ public class ConnectStatsManager {
         this.statsTable.get(SOURCE_RECORD_WRITE_FAIL_NUMS).addValue(taskId, 1, 1);
     }
 
+    public void incSourceRecordWriteFailNums(String taskId, int incValue) {
+        if (StringUtils.isBlank(taskId)) {
+            return;
+        }
+        this.statsTable.get(SOURCE_RECORD_WRITE_FAIL_NUMS).addValue(taskId, incValue, 1);
+    }
+
     public void incSinkRecordPutTotalFailNums() {
         this.statsTable.get(SINK_RECORD_PUT_TOTAL_FAIL_NUMS).addValue(worker, 1, 1);
     }
@@ -281,4 +313,25 @@ public class ConnectStatsManager {
         }
         this.statsTable.get(SINK_RECORD_PUT_RT).addValue(taskId, (int) rt, 1);
     }
+
+    public void incSourceSendWindowFullNums(String taskId) {
+        if (StringUtils.isBlank(taskId)) {
+            return;
+        }
+        this.statsTable.get(SOURCE_SEND_WINDOW_FULL_NUMS).addValue(taskId, 1, 1);
+    }
+
+    public void incSinkSchemaCacheHitNums(String taskId, int incValue) {
+        if (StringUtils.isBlank(taskId)) {
+            return;
+        }
+        this.statsTable.get(SINK_SCHEMA_CACHE_HIT_NUMS).addValue(taskId, incValue, 1);
+    }
+
+    public void incSinkSchemaCacheMissNums(String taskId, int incValue) {
+        if (StringUtils.isBlank(taskId)) {
+            return;
+        }
+        this.statsTable.get(SINK_SCHEMA_CACHE_MISS_NUMS).addValue(taskId, incValue, 1);
+    }
 }
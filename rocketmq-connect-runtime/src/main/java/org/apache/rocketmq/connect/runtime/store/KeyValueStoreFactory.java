@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.rocketmq.connect.runtime.store;
+
+import io.openmessaging.connector.api.data.Converter;
+import org.apache.rocketmq.connect.runtime.config.ConnectConfig;
+
+/**
+ * Create the file backed key value stores of the runtime according to {@link ConnectConfig#getKeyValueStoreType()}.
+ */
+public class KeyValueStoreFactory {
+
+    public static final String STORE_TYPE_FILE = "file";
+
+    public static final String STORE_TYPE_LOG = "log";
+
+    public static <K, V> KeyValueStore<K, V> create(ConnectConfig connectConfig,
+        String configFilePath,
+        Converter keyConverter,
+        Converter valueConverter) {
+
+        if (STORE_TYPE_LOG.equalsIgnoreCase(connectConfig.getKeyValueStoreType())) {
+            return new LogBasedKeyValueStore<>(configFilePath, keyConverter, valueConverter,
+                connectConfig.isLogStoreSyncFlush(), connectConfig.getLogStoreCompactionThresholdBytes());
+        }
+        return new FileBaseKeyValueStore<>(configFilePath, keyConverter, valueConverter);
+    }
+
+    /**
+     * Create a store of source positions or sink offsets, which can be kept in a memory-mapped slot file when
+     * {@link ConnectConfig#isMappedPositionStoreEnable()} is set.
+     */
+    public static <K, V> KeyValueStore<K, V> createPositionStore(ConnectConfig connectConfig,
+        String configFilePath,
+        Converter keyConverter,
+        Converter valueConverter) {
+
+        if (connectConfig.isMappedPositionStoreEnable()) {
+            return new MappedKeyValueStore<>(configFilePath, keyConverter, valueConverter,
+                connectConfig.getMappedPositionSlotBytes(), connectConfig.isLogStoreSyncFlush());
+        }
+        return create(connectConfig, configFilePath, keyConverter, valueConverter);
+    }
+}
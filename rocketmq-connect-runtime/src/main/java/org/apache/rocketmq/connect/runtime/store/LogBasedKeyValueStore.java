@@ -0,0 +1,362 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.rocketmq.connect.runtime.store;
+
+import io.openmessaging.connector.api.data.Converter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+import org.apache.rocketmq.connect.runtime.common.LoggerName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Key value store backed by a snapshot file and an append-only log. Every persist appends only the entries changed
+ * since the last persist, and once the log grows past the compaction threshold the whole map is written to a new
+ * snapshot and the log starts over. Loading reads the snapshot and replays the log on top of it.
+ *
+ * <p>Both files start with a generation number. A log whose generation is older than the snapshot was already
+ * compacted into it and is skipped. Each record is {@code [length][crc32][type][key length][key][value length][value]},
+ * replay stops at the first torn or corrupted record and the log is truncated there.
+ *
+ * <p>If neither file exists, the json file written by {@link FileBaseKeyValueStore} at the same path is loaded, so a
+ * store can be switched over without losing data.
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class LogBasedKeyValueStore<K, V> extends MemoryBasedKeyValueStore<K, V> {
+
+    private static final Logger log = LoggerFactory.getLogger(LoggerName.ROCKETMQ_RUNTIME);
+
+    private static final byte RECORD_PUT = 1;
+
+    private static final byte RECORD_DELETE = 2;
+
+    /**
+     * crc32 + type + key length + value length.
+     */
+    private static final int RECORD_FIXED_BYTES = 4 + 1 + 4 + 4;
+
+    private static final int HEADER_BYTES = 8;
+
+    private final String configFilePath;
+
+    private final File snapshotFile;
+
+    private final File logFile;
+
+    private final Converter keyConverter;
+
+    private final Converter valueConverter;
+
+    private final boolean syncFlush;
+
+    private final long compactionThresholdBytes;
+
+    /**
+     * Keys put or removed since the last persist.
+     */
+    private final Set<K> dirtyKeys = ConcurrentHashMap.newKeySet();
+
+    private final ReentrantLock fileLock = new ReentrantLock();
+
+    private FileChannel logChannel;
+
+    private long generation;
+
+    public LogBasedKeyValueStore(String configFilePath,
+        Converter keyConverter,
+        Converter valueConverter,
+        boolean syncFlush,
+        long compactionThresholdBytes) {
+
+        super();
+        this.configFilePath = configFilePath;
+        this.snapshotFile = new File(configFilePath + ".snapshot");
+        this.logFile = new File(configFilePath + ".log");
+        this.keyConverter = keyConverter;
+        this.valueConverter = valueConverter;
+        this.syncFlush = syncFlush;
+        this.compactionThresholdBytes = compactionThresholdBytes;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        V old = super.put(key, value);
+        dirtyKeys.add(key);
+        return old;
+    }
+
+    @Override
+    public void putAll(Map<K, V> map) {
+        super.putAll(map);
+        dirtyKeys.addAll(map.keySet());
+    }
+
+    @Override
+    public V remove(K key) {
+        V old = super.remove(key);
+        dirtyKeys.add(key);
+        return old;
+    }
+
+    /**
+     * Changes must go through {@link #put} and {@link #remove} to be persisted, so the map is read only.
+     */
+    @Override
+    public Map<K, V> getKVMap() {
+        return Collections.unmodifiableMap(this.data);
+    }
+
+    @Override
+    public boolean load() {
+        fileLock.lock();
+        try {
+            closeLog();
+            data.clear();
+            dirtyKeys.clear();
+            if (!snapshotFile.exists() && !logFile.exists()) {
+                return loadLegacy();
+            }
+            generation = 0;
+            if (snapshotFile.exists()) {
+                generation = replay(snapshotFile, -1);
+            }
+            if (logFile.exists() && replay(logFile, generation) < generation) {
+                Files.delete(logFile.toPath());
+            }
+            log.info("load " + configFilePath + " OK, generation " + generation + ", " + data.size() + " entries");
+            return true;
+        } catch (Exception e) {
+            log.error("load " + configFilePath + " failed", e);
+            return false;
+        } finally {
+            fileLock.unlock();
+        }
+    }
+
+    /**
+     * Append the dirty keys to the log. A key is taken out of the dirty set before its value is read, so a concurrent
+     * update marks it dirty again, and all taken keys are marked dirty again if the write or the force fails.
+     */
+    @Override
+    public void persist() {
+        fileLock.lock();
+        List<K> writtenKeys = new ArrayList<>();
+        try {
+            if (dirtyKeys.isEmpty()) {
+                return;
+            }
+            FileChannel channel = openLog();
+            for (K key : dirtyKeys) {
+                dirtyKeys.remove(key);
+                writtenKeys.add(key);
+                V value = data.get(key);
+                channel.write(encodeRecord(null == value ? RECORD_DELETE : RECORD_PUT, key, value));
+            }
+            if (syncFlush) {
+                channel.force(false);
+            }
+            if (channel.size() >= compactionThresholdBytes) {
+                compact();
+            }
+        } catch (IOException e) {
+            dirtyKeys.addAll(writtenKeys);
+            log.error("persist file " + configFilePath + " exception", e);
+        } finally {
+            fileLock.unlock();
+        }
+    }
+
+    /**
+     * Write the whole map to a new snapshot and start a new, empty log of the same generation.
+     */
+    private void compact() throws IOException {
+        long nextGeneration = generation + 1;
+        File tmpFile = new File(snapshotFile.getPath() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmpFile.toPath(), StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.write(encodeHeader(nextGeneration));
+            for (Map.Entry<K, V> entry : data.entrySet()) {
+                channel.write(encodeRecord(RECORD_PUT, entry.getKey(), entry.getValue()));
+            }
+            channel.force(true);
+        }
+        Files.move(tmpFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        generation = nextGeneration;
+
+        closeLog();
+        FileChannel channel = openLog();
+        channel.truncate(0);
+        channel.write(encodeHeader(generation));
+        channel.force(true);
+        log.info("compact " + configFilePath + " OK, generation " + generation + ", " + data.size() + " entries");
+    }
+
+    /**
+     * Replay a snapshot or log file into the map.
+     *
+     * @param file file to replay
+     * @param minGeneration skip the file if its generation is older, -1 to accept any generation
+     * @return the generation of the file
+     */
+    private long replay(File file, long minGeneration) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            if (channel.read(header, 0) < HEADER_BYTES) {
+                log.warn("{} has no header, ignore it", file);
+                channel.truncate(0);
+                return minGeneration < 0 ? 0 : minGeneration;
+            }
+            header.flip();
+            long fileGeneration = header.getLong();
+            if (minGeneration >= 0 && fileGeneration < minGeneration) {
+                log.info("{} of generation {} is older than the snapshot, ignore it", file, fileGeneration);
+                return fileGeneration;
+            }
+
+            long position = HEADER_BYTES;
+            long size = channel.size();
+            ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+            while (position + 4 <= size) {
+                lengthBuffer.clear();
+                channel.read(lengthBuffer, position);
+                lengthBuffer.flip();
+                int length = lengthBuffer.getInt();
+                if (length < RECORD_FIXED_BYTES || position + 4 + length > size) {
+                    break;
+                }
+                ByteBuffer record = ByteBuffer.allocate(length);
+                channel.read(record, position + 4);
+                record.flip();
+                if (!applyRecord(record)) {
+                    break;
+                }
+                position += 4 + length;
+            }
+            if (position < size) {
+                log.warn("{} has a broken record at {}, truncate it from {} bytes", file, position, size);
+                channel.truncate(position);
+            }
+            return fileGeneration;
+        }
+    }
+
+    private boolean applyRecord(ByteBuffer record) {
+        int crc = record.getInt();
+        CRC32 crc32 = new CRC32();
+        crc32.update(record.array(), 4, record.limit() - 4);
+        if ((int) crc32.getValue() != crc) {
+            return false;
+        }
+        byte type = record.get();
+        byte[] keyBytes = new byte[record.getInt()];
+        record.get(keyBytes);
+        byte[] valueBytes = new byte[record.getInt()];
+        record.get(valueBytes);
+        K key = (K) keyConverter.byteToObject(keyBytes);
+        if (RECORD_DELETE == type) {
+            data.remove(key);
+        } else {
+            data.put(key, (V) valueConverter.byteToObject(valueBytes));
+        }
+        return true;
+    }
+
+    private ByteBuffer encodeRecord(byte type, K key, V value) {
+        byte[] keyBytes = keyConverter.objectToByte(key);
+        byte[] valueBytes = RECORD_DELETE == type ? new byte[0] : valueConverter.objectToByte(value);
+        int length = RECORD_FIXED_BYTES + keyBytes.length + valueBytes.length;
+        ByteBuffer buffer = ByteBuffer.allocate(4 + length);
+        buffer.putInt(length);
+        buffer.putInt(0);
+        buffer.put(type);
+        buffer.putInt(keyBytes.length);
+        buffer.put(keyBytes);
+        buffer.putInt(valueBytes.length);
+        buffer.put(valueBytes);
+        CRC32 crc32 = new CRC32();
+        crc32.update(buffer.array(), 8, length - 4);
+        buffer.putInt(4, (int) crc32.getValue());
+        buffer.flip();
+        return buffer;
+    }
+
+    private static ByteBuffer encodeHeader(long generation) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putLong(generation);
+        header.flip();
+        return header;
+    }
+
+    private FileChannel openLog() throws IOException {
+        if (null == logChannel) {
+            File parent = logFile.getParentFile();
+            if (null != parent && !parent.exists()) {
+                parent.mkdirs();
+            }
+            logChannel = FileChannel.open(logFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (0 == logChannel.size()) {
+                logChannel.write(encodeHeader(generation));
+            }
+            logChannel.position(logChannel.size());
+        }
+        return logChannel;
+    }
+
+    private void closeLog() {
+        if (null != logChannel) {
+            try {
+                logChannel.close();
+            } catch (IOException e) {
+                log.warn("close " + logFile + " failed", e);
+            }
+            logChannel = null;
+        }
+    }
+
+    /**
+     * Load the json file of {@link FileBaseKeyValueStore} and mark every entry dirty so the next persist writes it to
+     * the log.
+     */
+    private boolean loadLegacy() {
+        FileBaseKeyValueStore<K, V> legacyStore = new FileBaseKeyValueStore<>(configFilePath, keyConverter, valueConverter);
+        boolean loaded = legacyStore.load();
+        Map<K, V> legacyData = new HashMap<>(legacyStore.getKVMap());
+        if (!legacyData.isEmpty()) {
+            putAll(legacyData);
+            log.info("load {} entries of {} from the json file", legacyData.size(), configFilePath);
+        }
+        generation = 0;
+        return loaded;
+    }
+}
@@ -0,0 +1,489 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.rocketmq.connect.runtime.store;
+
+import io.openmessaging.connector.api.data.Converter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+import org.apache.rocketmq.connect.runtime.common.LoggerName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Key value store for positions and offsets, which keeps every entry in a fixed-size slot of a memory-mapped file and
+ * only a key to slot index on the heap. Puts update the slot in place, so persist is a {@code force()} of the mapping.
+ *
+ * <p>Each slot has two halves of {@code [version][length][crc32][kind][key length][key][value]}, a write goes to the
+ * half not holding the current version and writes the crc last, so a torn write fails its crc and the previous half is
+ * used on load. A removed entry is a half with length -1, and its slot is reused.
+ *
+ * <p>Entries too large for a slot keep their slot as a marker and store the value in an overflow
+ * {@link LogBasedKeyValueStore}. If the slot file does not exist yet, the json file written by
+ * {@link FileBaseKeyValueStore} at the same path is loaded.
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class MappedKeyValueStore<K, V> implements KeyValueStore<K, V> {
+
+    private static final Logger log = LoggerFactory.getLogger(LoggerName.ROCKETMQ_RUNTIME);
+
+    private static final int MAGIC = 0x434F5331;
+
+    private static final int FILE_HEADER_BYTES = 16;
+
+    /**
+     * version + length + crc32.
+     */
+    private static final int HALF_HEADER_BYTES = 8 + 4 + 4;
+
+    /**
+     * kind + key length.
+     */
+    private static final int ENTRY_HEADER_BYTES = 1 + 4;
+
+    private static final byte KIND_INLINE = 1;
+
+    private static final byte KIND_OVERFLOW = 2;
+
+    private static final int TOMBSTONE = -1;
+
+    private static final int INITIAL_SLOTS = 1024;
+
+    private final String configFilePath;
+
+    private final File slotFile;
+
+    private final Converter keyConverter;
+
+    private final Converter valueConverter;
+
+    private final KeyValueStore<K, V> overflowStore;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Map<K, Integer> slotIndex = new HashMap<>();
+
+    /**
+     * Slots whose value lives in the overflow store.
+     */
+    private final BitSet overflowSlots = new BitSet();
+
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+
+    private long[] versions = new long[0];
+
+    private int payloadBytes;
+
+    private int halfBytes;
+
+    private int capacity;
+
+    private int nextSlot;
+
+    private FileChannel channel;
+
+    private MappedByteBuffer buffer;
+
+    public MappedKeyValueStore(String configFilePath,
+        Converter keyConverter,
+        Converter valueConverter,
+        int slotPayloadBytes,
+        boolean overflowSyncFlush) {
+
+        this.configFilePath = configFilePath;
+        this.slotFile = new File(configFilePath + ".slots");
+        this.keyConverter = keyConverter;
+        this.valueConverter = valueConverter;
+        this.payloadBytes = slotPayloadBytes;
+        this.overflowStore = new LogBasedKeyValueStore<>(configFilePath + ".overflow", keyConverter, valueConverter,
+            overflowSyncFlush, 4 * 1024 * 1024);
+    }
+
+    /**
+     * @return always null, the previous value is not decoded to keep puts cheap
+     */
+    @Override
+    public V put(K key, V value) {
+        byte[] keyBytes = keyConverter.objectToByte(key);
+        byte[] valueBytes = valueConverter.objectToByte(value);
+        lock.lock();
+        try {
+            Integer slot = slotIndex.get(key);
+            if (null == slot) {
+                slot = allocateSlot();
+                slotIndex.put(key, slot);
+            }
+            if (ENTRY_HEADER_BYTES + keyBytes.length + valueBytes.length <= payloadBytes) {
+                writeHalf(slot, KIND_INLINE, keyBytes, valueBytes);
+                if (overflowSlots.get(slot)) {
+                    overflowSlots.clear(slot);
+                    overflowStore.remove(key);
+                }
+            } else {
+                // the marker must never point to an overflow entry that a crash could lose
+                overflowStore.put(key, value);
+                overflowStore.persist();
+                writeHalf(slot, KIND_OVERFLOW, keyBytes, new byte[0]);
+                overflowSlots.set(slot);
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void putAll(Map<K, V> map) {
+        for (Map.Entry<K, V> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public V remove(K key) {
+        lock.lock();
+        try {
+            V old = get(key);
+            Integer slot = slotIndex.remove(key);
+            if (null != slot) {
+                writeTombstone(slot);
+                if (overflowSlots.get(slot)) {
+                    overflowSlots.clear(slot);
+                    overflowStore.remove(key);
+                }
+                freeSlots.push(slot);
+            }
+            return old;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return slotIndex.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        lock.lock();
+        try {
+            return slotIndex.containsKey(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public V get(K key) {
+        lock.lock();
+        try {
+            Integer slot = slotIndex.get(key);
+            if (null == slot) {
+                return null;
+            }
+            if (overflowSlots.get(slot)) {
+                return overflowStore.get(key);
+            }
+            return readValue(slot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Decode every entry into a new map. Not recommend to use this method when the data set is large.
+     */
+    @Override
+    public Map<K, V> getKVMap() {
+        lock.lock();
+        try {
+            Map<K, V> result = new HashMap<>(slotIndex.size() * 2);
+            for (K key : slotIndex.keySet()) {
+                V value = get(key);
+                if (null != value) {
+                    result.put(key, value);
+                }
+            }
+            return Collections.unmodifiableMap(result);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean load() {
+        lock.lock();
+        try {
+            close();
+            slotIndex.clear();
+            overflowSlots.clear();
+            freeSlots.clear();
+            boolean exists = slotFile.exists() && slotFile.length() >= FILE_HEADER_BYTES;
+            File parent = slotFile.getParentFile();
+            if (null != parent && !parent.exists()) {
+                parent.mkdirs();
+            }
+            channel = FileChannel.open(slotFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+            overflowStore.load();
+            if (!exists) {
+                halfBytes = HALF_HEADER_BYTES + payloadBytes;
+                map(INITIAL_SLOTS);
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, payloadBytes);
+                return loadLegacy();
+            }
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES);
+            channel.read(header, 0);
+            header.flip();
+            if (MAGIC != header.getInt()) {
+                log.error("load " + slotFile + " failed, not a slot file");
+                return false;
+            }
+            int filePayloadBytes = header.getInt();
+            if (filePayloadBytes != payloadBytes) {
+                log.warn("{} has slots of {} bytes, ignore the configured {} bytes", slotFile, filePayloadBytes, payloadBytes);
+                payloadBytes = filePayloadBytes;
+            }
+            halfBytes = HALF_HEADER_BYTES + payloadBytes;
+            map((int) ((channel.size() - FILE_HEADER_BYTES) / (2L * halfBytes)));
+            recover();
+            log.info("load " + slotFile + " OK, " + slotIndex.size() + " entries in " + nextSlot + " slots");
+            return true;
+        } catch (Exception e) {
+            log.error("load " + configFilePath + " failed", e);
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void persist() {
+        lock.lock();
+        try {
+            overflowStore.persist();
+            if (null != buffer) {
+                buffer.force();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Rebuild the index from the latest valid half of every slot.
+     */
+    private void recover() {
+        BitSet usedSlots = new BitSet(capacity);
+        nextSlot = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            int half = latestHalf(slot);
+            if (half < 0) {
+                versions[slot] = 0;
+                continue;
+            }
+            int base = halfBase(slot, half);
+            versions[slot] = buffer.getLong(base);
+            nextSlot = slot + 1;
+            if (TOMBSTONE == buffer.getInt(base + 8)) {
+                continue;
+            }
+            byte kind = buffer.get(base + HALF_HEADER_BYTES);
+            byte[] keyBytes = new byte[buffer.getInt(base + HALF_HEADER_BYTES + 1)];
+            read(base + HALF_HEADER_BYTES + ENTRY_HEADER_BYTES, keyBytes);
+            slotIndex.put((K) keyConverter.byteToObject(keyBytes), slot);
+            usedSlots.set(slot);
+            if (KIND_OVERFLOW == kind) {
+                overflowSlots.set(slot);
+            }
+        }
+        for (int slot = nextSlot - 1; slot >= 0; slot--) {
+            if (!usedSlots.get(slot)) {
+                freeSlots.push(slot);
+            }
+        }
+    }
+
+    private int latestHalf(int slot) {
+        int latest = -1;
+        long latestVersion = 0;
+        for (int half = 0; half < 2; half++) {
+            int base = halfBase(slot, half);
+            long version = buffer.getLong(base);
+            if (version > latestVersion && isValid(base)) {
+                latest = half;
+                latestVersion = version;
+            }
+        }
+        return latest;
+    }
+
+    private boolean isValid(int base) {
+        int length = buffer.getInt(base + 8);
+        if (length != TOMBSTONE && (length < ENTRY_HEADER_BYTES || length > payloadBytes)) {
+            return false;
+        }
+        return buffer.getInt(base + 12) == crc(base, Math.max(length, 0));
+    }
+
+    private V readValue(int slot) {
+        int base = halfBase(slot, (int) (versions[slot] & 1));
+        int length = buffer.getInt(base + 8);
+        int keyLength = buffer.getInt(base + HALF_HEADER_BYTES + 1);
+        byte[] valueBytes = new byte[length - ENTRY_HEADER_BYTES - keyLength];
+        read(base + HALF_HEADER_BYTES + ENTRY_HEADER_BYTES + keyLength, valueBytes);
+        return (V) valueConverter.byteToObject(valueBytes);
+    }
+
+    private void writeHalf(int slot, byte kind, byte[] keyBytes, byte[] valueBytes) {
+        long version = versions[slot] + 1;
+        int base = halfBase(slot, (int) (version & 1));
+        int length = ENTRY_HEADER_BYTES + keyBytes.length + valueBytes.length;
+        ByteBuffer half = buffer.duplicate();
+        half.position(base + HALF_HEADER_BYTES);
+        half.put(kind);
+        half.putInt(keyBytes.length);
+        half.put(keyBytes);
+        half.put(valueBytes);
+        commitHalf(base, version, length);
+        versions[slot] = version;
+    }
+
+    private void writeTombstone(int slot) {
+        long version = versions[slot] + 1;
+        commitHalf(halfBase(slot, (int) (version & 1)), version, TOMBSTONE);
+        versions[slot] = version;
+    }
+
+    /**
+     * Write the header of a half whose payload is in place, the crc goes last so the half only becomes valid once it
+     * is complete.
+     */
+    private void commitHalf(int base, long version, int length) {
+        buffer.putInt(base + 8, length);
+        buffer.putLong(base, version);
+        buffer.putInt(base + 12, crc(base, Math.max(length, 0)));
+    }
+
+    private int crc(int base, int length) {
+        ByteBuffer half = buffer.duplicate();
+        half.position(base);
+        half.limit(base + 12);
+        CRC32 crc32 = new CRC32();
+        byte[] bytes = new byte[12 + length];
+        half.get(bytes, 0, 12);
+        half.limit(base + HALF_HEADER_BYTES + length);
+        half.position(base + HALF_HEADER_BYTES);
+        half.get(bytes, 12, length);
+        crc32.update(bytes, 0, bytes.length);
+        return (int) crc32.getValue();
+    }
+
+    private void read(int position, byte[] bytes) {
+        ByteBuffer half = buffer.duplicate();
+        half.position(position);
+        half.get(bytes);
+    }
+
+    private int halfBase(int slot, int half) {
+        return FILE_HEADER_BYTES + (slot * 2 + half) * halfBytes;
+    }
+
+    private int allocateSlot() {
+        Integer slot = freeSlots.poll();
+        if (null != slot) {
+            return slot;
+        }
+        if (nextSlot == capacity) {
+            try {
+                map(capacity * 2);
+            } catch (IOException e) {
+                throw new IllegalStateException("Grow " + slotFile + " failed", e);
+            }
+        }
+        return nextSlot++;
+    }
+
+    private void map(int slots) throws IOException {
+        int newCapacity = Math.max(slots, INITIAL_SLOTS);
+        long size = FILE_HEADER_BYTES + (long) newCapacity * 2 * halfBytes;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Slot file " + slotFile + " can not grow beyond 2GB");
+        }
+        if (null != buffer) {
+            buffer.force();
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        versions = Arrays.copyOf(versions, newCapacity);
+        capacity = newCapacity;
+    }
+
+    private void close() {
+        if (null != buffer) {
+            buffer.force();
+            buffer = null;
+        }
+        if (null != channel) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("close " + slotFile + " failed", e);
+            }
+            channel = null;
+        }
+        versions = new long[0];
+        capacity = 0;
+        nextSlot = 0;
+    }
+
+    /**
+     * Load the json file of {@link FileBaseKeyValueStore}, every entry is written to a slot right away.
+     */
+    private boolean loadLegacy() {
+        FileBaseKeyValueStore<K, V> legacyStore = new FileBaseKeyValueStore<>(configFilePath, keyConverter, valueConverter);
+        boolean loaded = legacyStore.load();
+        Map<K, V> legacyData = new HashMap<>(legacyStore.getKVMap());
+        if (!legacyData.isEmpty()) {
+            putAll(legacyData);
+            buffer.force();
+            log.info("load {} entries of {} from the json file", legacyData.size(), configFilePath);
+        }
+        return loaded;
+    }
+}
@@ -36,15 +36,15 @@ public class PositionStorageReaderImpl implements OffsetStorageReader {
     }
 
     @Override public <T> RecordOffset readOffset(RecordPartition partition) {
-        return positionManagementService.getPositionTable().get(partition);
+        return positionManagementService.getPosition(partition);
     }
 
     @Override public <T> Map<RecordPartition, RecordOffset> readOffsets(Collection<RecordPartition> partitions) {
         Map<RecordPartition, RecordOffset> result = new HashMap<>();
-        Map<RecordPartition, RecordOffset> allData = positionManagementService.getPositionTable();
         for (RecordPartition key : partitions) {
-            if (allData.containsKey(key)) {
-                result.put(key, allData.get(key));
+            RecordOffset offset = positionManagementService.getPosition(key);
+            if (null != offset) {
+                result.put(key, offset);
             }
         }
         return result;
@@ -39,6 +39,7 @@ import org.apache.rocketmq.common.consumer.ConsumeFromWhere;
 import org.apache.rocketmq.common.message.MessageQueue;
 import org.apache.rocketmq.common.subscription.SubscriptionGroupConfig;
 import org.apache.rocketmq.connect.runtime.common.ConnectKeyValue;
+import org.apache.rocketmq.connect.runtime.common.QueueOffsetMap;
 import org.apache.rocketmq.connect.runtime.config.ConnectConfig;
 import org.apache.rocketmq.connect.runtime.config.RuntimeConfigDefine;
 import org.apache.rocketmq.connect.runtime.service.strategy.AllocateConnAndTaskStrategy;
@@ -48,7 +49,7 @@ import org.apache.rocketmq.remoting.protocol.LanguageCode;
 import org.apache.rocketmq.tools.admin.DefaultMQAdminExt;
 import org.apache.rocketmq.tools.command.CommandUtil;
 
-import static org.apache.rocketmq.connect.runtime.connectorwrapper.WorkerSinkTask.QUEUE_OFFSET;
+import static org.apache.rocketmq.connect.runtime.common.QueueOffsetMap.QUEUE_OFFSET;
 
 public class ConnectUtil {
 
@@ -93,19 +94,27 @@ public class ConnectUtil {
         }
     }
 
-    public static DefaultMQProducer initDefaultMQProducer(ConnectConfig connectConfig) {
+    public static RPCHook initRPCHook(ConnectConfig connectConfig) {
         RPCHook rpcHook = null;
         if (connectConfig.getAclEnable()) {
             rpcHook = new AclClientRPCHook(new SessionCredentials(connectConfig.getAccessKey(), connectConfig.getSecretKey()));
         }
-        DefaultMQProducer producer = new DefaultMQProducer(rpcHook);
-        producer.setNamesrvAddr(connectConfig.getNamesrvAddr());
+        return rpcHook;
+    }
+
+    public static DefaultMQProducer initDefaultMQProducer(ConnectConfig connectConfig) {
+        DefaultMQProducer producer = new DefaultMQProducer(initRPCHook(connectConfig));
+        configDefaultMQProducer(producer, connectConfig);
         producer.setInstanceName(createUniqInstance(connectConfig.getNamesrvAddr()));
+        return producer;
+    }
+
+    public static void configDefaultMQProducer(DefaultMQProducer producer, ConnectConfig connectConfig) {
+        producer.setNamesrvAddr(connectConfig.getNamesrvAddr());
         producer.setProducerGroup(connectConfig.getRmqProducerGroup());
         producer.setSendMsgTimeout(connectConfig.getOperationTimeout());
         producer.setMaxMessageSize(RuntimeConfigDefine.MAX_MESSAGE_SIZE);
         producer.setLanguage(LanguageCode.JAVA);
-        return producer;
     }
 
     public static DefaultMQPullConsumer initDefaultMQPullConsumer(ConnectConfig connectConfig) {
@@ -158,13 +167,7 @@ public class ConnectUtil {
         DefaultMQAdminExt defaultMQAdminExt = null;
         try {
             defaultMQAdminExt = startMQAdminTool(connectConfig);
-            SubscriptionGroupConfig initConfig = new SubscriptionGroupConfig();
-            initConfig.setGroupName(subGroup);
-
-            Set<String> masterSet = CommandUtil.fetchMasterAddrByClusterName(defaultMQAdminExt, connectConfig.getClusterName());
-            for (String addr : masterSet) {
-                defaultMQAdminExt.createAndUpdateSubscriptionGroupConfig(addr, initConfig);
-            }
+            createAndUpdateSubGroup(defaultMQAdminExt, connectConfig.getClusterName(), subGroup);
         } catch (Exception e) {
             throw new IllegalArgumentException("create subGroup: " + subGroup + " failed", e);
         } finally {
@@ -175,6 +178,17 @@ public class ConnectUtil {
         return subGroup;
     }
 
+    public static void createAndUpdateSubGroup(DefaultMQAdminExt defaultMQAdminExt, String clusterName,
+        String subGroup) throws Exception {
+        SubscriptionGroupConfig initConfig = new SubscriptionGroupConfig();
+        initConfig.setGroupName(subGroup);
+
+        Set<String> masterSet = CommandUtil.fetchMasterAddrByClusterName(defaultMQAdminExt, clusterName);
+        for (String addr : masterSet) {
+            defaultMQAdminExt.createAndUpdateSubscriptionGroupConfig(addr, initConfig);
+        }
+    }
+
 
     public static RecordPartition convertToRecordPartition(MessageQueue messageQueue) {
         Map<String, String> map = new HashMap<>();
@@ -186,16 +200,16 @@ public class ConnectUtil {
     }
 
     public static RecordOffset convertToRecordOffset(Long offset) {
-        Map<String, String> offsetMap = new HashMap<>();
-        offsetMap.put(QUEUE_OFFSET, offset + "");
-        RecordOffset recordOffset = new RecordOffset(offsetMap);
-        return recordOffset;
+        return new RecordOffset(new QueueOffsetMap(offset));
     }
 
     public static Long convertToOffset(RecordOffset recordOffset) {
         if (null == recordOffset || null == recordOffset.getOffset()) {
             return null;
         }
+        if (recordOffset.getOffset() instanceof QueueOffsetMap) {
+            return ((QueueOffsetMap) recordOffset.getOffset()).getQueueOffset();
+        }
         Map<String, ?> offsetMap = (Map<String, String>) recordOffset.getOffset();
         Object offsetObject = offsetMap.get(QUEUE_OFFSET);
         if (null == offsetObject) {
@@ -217,12 +231,14 @@ public class ConnectUtil {
 
 
     public static DefaultMQPullConsumer initDefaultMQPullConsumer(ConnectConfig connectConfig, String connectorName, ConnectKeyValue keyValue) {
-        RPCHook rpcHook = null;
-        if (connectConfig.getAclEnable()) {
-            rpcHook = new AclClientRPCHook(new SessionCredentials(connectConfig.getAccessKey(), connectConfig.getSecretKey()));
-        }
-        DefaultMQPullConsumer consumer = new DefaultMQPullConsumer(rpcHook);
+        DefaultMQPullConsumer consumer = new DefaultMQPullConsumer(initRPCHook(connectConfig));
         consumer.setInstanceName(createInstance(connectorName));
+        configDefaultMQPullConsumer(consumer, connectConfig, connectorName, keyValue);
+        return consumer;
+    }
+
+    public static void configDefaultMQPullConsumer(DefaultMQPullConsumer consumer, ConnectConfig connectConfig,
+        String connectorName, ConnectKeyValue keyValue) {
         String taskGroupId = keyValue.getString("task-group-id");
         if (StringUtils.isNotBlank(taskGroupId)) {
             consumer.setConsumerGroup(taskGroupId);
@@ -232,7 +248,6 @@ public class ConnectUtil {
         if (StringUtils.isNotBlank(connectConfig.getNamesrvAddr())) {
             consumer.setNamesrvAddr(connectConfig.getNamesrvAddr());
         }
-        return consumer;
     }
 
 }
@@ -36,4 +36,8 @@ public class FilePathConfigUtil {
     public static String getOffsetPath(final String rootDir) {
         return rootDir + File.separator + "config" + File.separator + "offset.json";
     }
+
+    public static String getSchemaPath(final String rootDir) {
+        return rootDir + File.separator + "config" + File.separator + "schema.json";
+    }
 }
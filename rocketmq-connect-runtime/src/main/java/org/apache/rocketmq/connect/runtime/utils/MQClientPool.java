@@ -0,0 +1,310 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.rocketmq.connect.runtime.utils;
+
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.rocketmq.client.consumer.DefaultMQPullConsumer;
+import org.apache.rocketmq.client.exception.MQClientException;
+import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import org.apache.rocketmq.connect.runtime.common.ConnectKeyValue;
+import org.apache.rocketmq.connect.runtime.common.LoggerName;
+import org.apache.rocketmq.connect.runtime.config.ConnectConfig;
+import org.apache.rocketmq.remoting.RPCHook;
+import org.apache.rocketmq.tools.admin.DefaultMQAdminExt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shares RocketMQ client instances between the tasks of a worker. Clients with the same name server and ACL
+ * credentials get the same instance name, so they share one {@code MQClientInstance} with its netty client,
+ * heartbeat and route refresh threads. An instance can hold a group only once, so a consumer whose group is already
+ * in an instance takes the next one. Source tasks all use the same producer group, so they share the producer
+ * itself, which is started by the first task and shut down by the last.
+ */
+public class MQClientPool {
+
+    private static final Logger log = LoggerFactory.getLogger(LoggerName.ROCKETMQ_RUNTIME);
+
+    private static final String INSTANCE_PREFIX = "connect-";
+
+    private static final String PRODUCER_GROUP_PREFIX = "producer:";
+
+    private static final String CONSUMER_GROUP_PREFIX = "consumer:";
+
+    /**
+     * Client key to the groups registered in each of its instances, index in the list is the instance slot.
+     */
+    private final Map<String, List<Set<String>>> instanceGroups = new HashMap<>();
+
+    /**
+     * Client key and producer group to the shared producer.
+     */
+    private final Map<String, SharedMQProducer> producers = new HashMap<>();
+
+    /**
+     * Client key to the started admin client, kept until the pool shuts down.
+     */
+    private final Map<String, DefaultMQAdminExt> adminClients = new HashMap<>();
+
+    /**
+     * Client key and group of the subscription groups created by this worker.
+     */
+    private final Set<String> createdSubGroups = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Get the shared producer of the worker config, the caller starts it and shuts it down once when done.
+     *
+     * @param connectConfig
+     * @return
+     */
+    public synchronized DefaultMQProducer acquireProducer(ConnectConfig connectConfig) {
+        String clientKey = clientKey(connectConfig.getNamesrvAddr(), connectConfig);
+        String producerKey = clientKey + "@" + connectConfig.getRmqProducerGroup();
+        SharedMQProducer producer = producers.get(producerKey);
+        if (null == producer) {
+            producer = new SharedMQProducer(producerKey, clientKey, ConnectUtil.initRPCHook(connectConfig));
+            ConnectUtil.configDefaultMQProducer(producer, connectConfig);
+            producers.put(producerKey, producer);
+        }
+        producer.refs++;
+        return producer;
+    }
+
+    /**
+     * Create a pull consumer of a sink task, it takes an instance slot when started and gives it back on shutdown.
+     *
+     * @param connectConfig
+     * @param connectorName
+     * @param keyValue
+     * @return
+     */
+    public DefaultMQPullConsumer newPullConsumer(ConnectConfig connectConfig, String connectorName,
+        ConnectKeyValue keyValue) {
+        PooledMQPullConsumer consumer = new PooledMQPullConsumer(clientKey(connectConfig.getNamesrvAddr(), connectConfig),
+            ConnectUtil.initRPCHook(connectConfig));
+        ConnectUtil.configDefaultMQPullConsumer(consumer, connectConfig, connectorName, keyValue);
+        return consumer;
+    }
+
+    /**
+     * Create the subscription group on the masters of the cluster once, through a cached admin client.
+     *
+     * @param connectConfig
+     * @param subGroup
+     */
+    public void createSubGroup(ConnectConfig connectConfig, String subGroup) {
+        String clientKey = clientKey(connectConfig.getNamesrvAddr(), connectConfig);
+        String subGroupKey = clientKey + "@" + subGroup;
+        if (createdSubGroups.contains(subGroupKey)) {
+            return;
+        }
+        try {
+            ConnectUtil.createAndUpdateSubGroup(getAdminClient(clientKey, connectConfig), connectConfig.getClusterName(), subGroup);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("create subGroup: " + subGroup + " failed", e);
+        }
+        createdSubGroups.add(subGroupKey);
+    }
+
+    private synchronized DefaultMQAdminExt getAdminClient(String clientKey,
+        ConnectConfig connectConfig) throws MQClientException {
+        DefaultMQAdminExt defaultMQAdminExt = adminClients.get(clientKey);
+        if (null == defaultMQAdminExt) {
+            defaultMQAdminExt = ConnectUtil.startMQAdminTool(connectConfig);
+            adminClients.put(clientKey, defaultMQAdminExt);
+        }
+        return defaultMQAdminExt;
+    }
+
+    /**
+     * Shut down the cached admin clients, producers and consumers are shut down by their tasks.
+     */
+    public synchronized void shutdown() {
+        for (DefaultMQAdminExt defaultMQAdminExt : adminClients.values()) {
+            defaultMQAdminExt.shutdown();
+        }
+        adminClients.clear();
+        createdSubGroups.clear();
+    }
+
+    /**
+     * @return number of client instances holding at least one group
+     */
+    public synchronized int instanceNums() {
+        int nums = 0;
+        for (List<Set<String>> slots : instanceGroups.values()) {
+            for (Set<String> groups : slots) {
+                if (!groups.isEmpty()) {
+                    nums++;
+                }
+            }
+        }
+        return nums;
+    }
+
+    synchronized String acquireInstance(String clientKey, String group) {
+        List<Set<String>> slots = instanceGroups.computeIfAbsent(clientKey, key -> new ArrayList<>());
+        int slot = 0;
+        while (slot < slots.size() && slots.get(slot).contains(group)) {
+            slot++;
+        }
+        if (slot == slots.size()) {
+            slots.add(new HashSet<>());
+        }
+        slots.get(slot).add(group);
+        return INSTANCE_PREFIX + clientKey + "-" + slot;
+    }
+
+    synchronized void releaseInstance(String clientKey, String instanceName, String group) {
+        List<Set<String>> slots = instanceGroups.get(clientKey);
+        if (null == slots) {
+            return;
+        }
+        int slot = Integer.parseInt(instanceName.substring(instanceName.lastIndexOf('-') + 1));
+        if (slot < slots.size()) {
+            slots.get(slot).remove(group);
+        }
+        while (!slots.isEmpty() && slots.get(slots.size() - 1).isEmpty()) {
+            slots.remove(slots.size() - 1);
+        }
+        if (slots.isEmpty()) {
+            instanceGroups.remove(clientKey);
+        }
+    }
+
+    private void releaseProducer(SharedMQProducer producer) {
+        synchronized (this) {
+            if (--producer.refs > 0) {
+                return;
+            }
+            producers.remove(producer.producerKey);
+        }
+        producer.close();
+    }
+
+    /**
+     * Hash of name server and ACL credentials, the credentials are part of the key as the first client of an
+     * instance decides the rpc hook of all of them.
+     */
+    static String clientKey(String namesrvAddr, ConnectConfig connectConfig) {
+        StringBuilder sb = new StringBuilder(StringUtils.defaultString(namesrvAddr));
+        if (connectConfig.getAclEnable()) {
+            sb.append('|').append(connectConfig.getAccessKey()).append('|').append(connectConfig.getSecretKey());
+        }
+        return Hashing.murmur3_32().hashString(sb.toString(), StandardCharsets.UTF_8).toString();
+    }
+
+    private class SharedMQProducer extends DefaultMQProducer {
+
+        private final String producerKey;
+
+        private final String clientKey;
+
+        /**
+         * Tasks holding the producer, guarded by the pool.
+         */
+        private int refs;
+
+        private boolean started;
+
+        private SharedMQProducer(String producerKey, String clientKey, RPCHook rpcHook) {
+            super(rpcHook);
+            this.producerKey = producerKey;
+            this.clientKey = clientKey;
+        }
+
+        @Override
+        public synchronized void start() throws MQClientException {
+            if (started) {
+                return;
+            }
+            setInstanceName(acquireInstance(clientKey, PRODUCER_GROUP_PREFIX + getProducerGroup()));
+            try {
+                super.start();
+            } catch (MQClientException e) {
+                releaseInstance(clientKey, getInstanceName(), PRODUCER_GROUP_PREFIX + getProducerGroup());
+                throw e;
+            }
+            started = true;
+            log.info("Shared producer {} started on instance {}", getProducerGroup(), getInstanceName());
+        }
+
+        @Override
+        public void shutdown() {
+            releaseProducer(this);
+        }
+
+        private synchronized void close() {
+            if (!started) {
+                return;
+            }
+            super.shutdown();
+            releaseInstance(clientKey, getInstanceName(), PRODUCER_GROUP_PREFIX + getProducerGroup());
+            started = false;
+            log.info("Shared producer {} shutdown on instance {}", getProducerGroup(), getInstanceName());
+        }
+    }
+
+    private class PooledMQPullConsumer extends DefaultMQPullConsumer {
+
+        private final String clientKey;
+
+        private String instanceGroup;
+
+        private PooledMQPullConsumer(String clientKey, RPCHook rpcHook) {
+            super(rpcHook);
+            this.clientKey = clientKey;
+        }
+
+        @Override
+        public synchronized void start() throws MQClientException {
+            if (null == instanceGroup) {
+                instanceGroup = CONSUMER_GROUP_PREFIX + getConsumerGroup();
+                setInstanceName(acquireInstance(clientKey, instanceGroup));
+            }
+            try {
+                super.start();
+            } catch (MQClientException e) {
+                release();
+                throw e;
+            }
+        }
+
+        @Override
+        public synchronized void shutdown() {
+            super.shutdown();
+            release();
+        }
+
+        private void release() {
+            if (null != instanceGroup) {
+                releaseInstance(clientKey, getInstanceName(), instanceGroup);
+                instanceGroup = null;
+            }
+        }
+    }
+}
@@ -19,6 +19,7 @@ package org.apache.rocketmq.connect.runtime.utils.datasync;
 
 import com.alibaba.fastjson.JSON;
 import io.openmessaging.connector.api.data.Converter;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
@@ -30,10 +31,13 @@ import org.apache.rocketmq.client.consumer.listener.MessageListenerConcurrently;
 import org.apache.rocketmq.client.exception.MQClientException;
 import org.apache.rocketmq.client.producer.DefaultMQProducer;
 import org.apache.rocketmq.client.producer.SendCallback;
+import org.apache.rocketmq.common.UtilAll;
+import org.apache.rocketmq.common.consumer.ConsumeFromWhere;
 import org.apache.rocketmq.common.message.Message;
 import org.apache.rocketmq.common.message.MessageExt;
 import org.apache.rocketmq.connect.runtime.common.LoggerName;
 import org.apache.rocketmq.connect.runtime.config.ConnectConfig;
+import org.apache.rocketmq.connect.runtime.converter.BinaryPositionCodec;
 import org.apache.rocketmq.connect.runtime.utils.ConnectUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,6 +54,13 @@ public class BrokerBasedLog<K, V> implements DataSynchronizer<K, V> {
 
     private static final Logger log = LoggerFactory.getLogger(LoggerName.ROCKETMQ_RUNTIME);
 
+    /**
+     * First byte of a message whose body is a zlib compressed message.
+     */
+    private static final byte COMPRESSED_MAGIC = (byte) 0xC6;
+
+    private static final int COMPRESS_LEVEL = 5;
+
     /**
      * A callback to receive data from other workers.
      */
@@ -80,6 +91,17 @@ public class BrokerBasedLog<K, V> implements DataSynchronizer<K, V> {
      */
     private Converter valueConverter;
 
+    /**
+     * Whether messages are sent as a binary envelope instead of a json map of Base64 strings. Both are accepted when
+     * receiving.
+     */
+    private final boolean binaryEncoding;
+
+    /**
+     * Whether message bodies are compressed. Compressed messages are accepted when receiving either way.
+     */
+    private final boolean compressEnable;
+
     public BrokerBasedLog(ConnectConfig connectConfig,
         String topicName,
         String workId,
@@ -87,6 +109,20 @@ public class BrokerBasedLog<K, V> implements DataSynchronizer<K, V> {
         Converter keyConverter,
         Converter valueConverter) {
 
+        this(connectConfig, topicName, workId, dataSynchronizerCallback, keyConverter, valueConverter, false, false);
+    }
+
+    public BrokerBasedLog(ConnectConfig connectConfig,
+        String topicName,
+        String workId,
+        DataSynchronizerCallback<K, V> dataSynchronizerCallback,
+        Converter keyConverter,
+        Converter valueConverter,
+        boolean binaryEncoding,
+        boolean compressEnable) {
+
+        this.binaryEncoding = binaryEncoding;
+        this.compressEnable = compressEnable;
         this.topicName = topicName;
         this.dataSynchronizerCallback = dataSynchronizerCallback;
         this.producer = ConnectUtil.initDefaultMQProducer(connectConfig);
@@ -127,12 +163,25 @@ public class BrokerBasedLog<K, V> implements DataSynchronizer<K, V> {
         consumer.shutdown();
     }
 
+    /**
+     * Where a consumer group without a committed offset starts, set before {@link #start()}.
+     *
+     * @param consumeFromWhere
+     */
+    public void setConsumeFromWhere(ConsumeFromWhere consumeFromWhere) {
+        consumer.setConsumeFromWhere(consumeFromWhere);
+    }
+
     @Override
     public void send(K key, V value) {
 
         try {
             byte[] messageBody = encodeKeyValue(key, value);
             if (messageBody.length > MAX_MESSAGE_SIZE) {
+                if (value instanceof Map && ((Map) value).size() > 1) {
+                    sendInBatches(key, (Map) value, messageBody.length);
+                    return;
+                }
                 log.error("Message size is greater than {} bytes, key: {}, value {}", MAX_MESSAGE_SIZE, key, value);
                 return;
             }
@@ -152,10 +201,52 @@ public class BrokerBasedLog<K, V> implements DataSynchronizer<K, V> {
         }
     }
 
+    /**
+     * Split a map value too large for one message into batches of about half the size limit, batches still too large
+     * are split again when sent.
+     */
+    private void sendInBatches(K key, Map<?, ?> value, int encodedSize) {
+        int batchNums = (int) Math.min(value.size(), (long) encodedSize * 2 / MAX_MESSAGE_SIZE + 1);
+        int batchSize = (value.size() + batchNums - 1) / batchNums;
+        log.info("Message of {} bytes is greater than {} bytes, split {} entries into {} batches, key: {}",
+            encodedSize, MAX_MESSAGE_SIZE, value.size(), batchNums, key);
+        List<Map<Object, Object>> batches = new ArrayList<>(batchNums);
+        Map<Object, Object> batch = null;
+        for (Map.Entry<?, ?> entry : value.entrySet()) {
+            if (null == batch || batch.size() >= batchSize) {
+                batch = new HashMap<>(batchSize * 2);
+                batches.add(batch);
+            }
+            batch.put(entry.getKey(), entry.getValue());
+        }
+        for (Map<Object, Object> part : batches) {
+            send(key, (V) part);
+        }
+    }
+
     private byte[] encodeKeyValue(K key, V value) throws Exception {
+        byte[] body = encodeUncompressed(key, value);
+        if (!compressEnable) {
+            return body;
+        }
+        byte[] compressed = UtilAll.compress(body, COMPRESS_LEVEL);
+        byte[] result = new byte[compressed.length + 1];
+        result[0] = COMPRESSED_MAGIC;
+        System.arraycopy(compressed, 0, result, 1, compressed.length);
+        return result;
+    }
+
+    private byte[] encodeUncompressed(K key, V value) throws Exception {
 
         byte[] keyByte = keyConverter.objectToByte(key);
         byte[] valueByte = valueConverter.objectToByte(value);
+        if (binaryEncoding) {
+            BinaryPositionCodec.Output output = new BinaryPositionCodec.Output();
+            output.writeHeader();
+            output.writeBytes(keyByte);
+            output.writeBytes(valueByte);
+            return output.toByteArray();
+        }
         Map<String, String> map = new HashMap<>();
         map.put(Base64.getEncoder().encodeToString(keyByte), Base64.getEncoder().encodeToString(valueByte));
 
@@ -164,7 +255,22 @@ public class BrokerBasedLog<K, V> implements DataSynchronizer<K, V> {
 
     private Map<K, V> decodeKeyValue(byte[] bytes) throws Exception {
 
+        if (bytes.length > 0 && COMPRESSED_MAGIC == bytes[0]) {
+            byte[] compressed = new byte[bytes.length - 1];
+            System.arraycopy(bytes, 1, compressed, 0, compressed.length);
+            return decodeKeyValue(UtilAll.uncompress(compressed));
+        }
         Map<K, V> resultMap = new HashMap<>();
+        if (BinaryPositionCodec.isBinary(bytes)) {
+            BinaryPositionCodec.Input input = new BinaryPositionCodec.Input(bytes);
+            input.readHeader();
+            while (input.hasRemaining()) {
+                K decodeKey = (K) keyConverter.byteToObject(input.readBytes());
+                V decodeValue = (V) valueConverter.byteToObject(input.readBytes());
+                resultMap.put(decodeKey, decodeValue);
+            }
+            return resultMap;
+        }
         String rawString = new String(bytes, "UTF-8");
         Map<String, String> map = JSON.parseObject(rawString, Map.class);
         for (String key : map.keySet()) {
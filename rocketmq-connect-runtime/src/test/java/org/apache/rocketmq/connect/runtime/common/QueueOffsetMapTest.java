@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.rocketmq.connect.runtime.common;
+
+import com.alibaba.fastjson.JSON;
+import io.openmessaging.connector.api.data.RecordOffset;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.rocketmq.connect.runtime.utils.ConnectUtil;
+import org.junit.Test;
+
+import static org.apache.rocketmq.connect.runtime.common.QueueOffsetMap.QUEUE_OFFSET;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class QueueOffsetMapTest {
+
+    @Test
+    public void testEqualsStringOffsetMap() {
+        Map<String, String> offsetMap = new HashMap<>();
+        offsetMap.put(QUEUE_OFFSET, "100");
+
+        QueueOffsetMap queueOffsetMap = new QueueOffsetMap(100L);
+
+        assertThat(queueOffsetMap.get(QUEUE_OFFSET)).isEqualTo("100");
+        assertThat(queueOffsetMap).isEqualTo(offsetMap);
+        assertThat(queueOffsetMap.hashCode()).isEqualTo(offsetMap.hashCode());
+        assertThat(new RecordOffset(queueOffsetMap)).isEqualTo(new RecordOffset(offsetMap));
+    }
+
+    @Test
+    public void testConvertOffset() {
+        RecordOffset recordOffset = ConnectUtil.convertToRecordOffset(100L);
+        assertThat(ConnectUtil.convertToOffset(recordOffset)).isEqualTo(100L);
+
+        Map<String, String> offsetMap = new HashMap<>();
+        offsetMap.put(QUEUE_OFFSET, "100");
+        assertThat(ConnectUtil.convertToOffset(new RecordOffset(offsetMap))).isEqualTo(100L);
+        assertThat(JSON.toJSONString(recordOffset.getOffset())).isEqualTo(JSON.toJSONString(offsetMap));
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.rocketmq.connect.runtime.common;
+
+import org.apache.rocketmq.connect.runtime.config.RuntimeConfigDefine;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TaskConfigSnapshotTest {
+
+    private ConnectKeyValue keyValue;
+
+    @Before
+    public void before() {
+        keyValue = new ConnectKeyValue();
+        keyValue.put(RuntimeConfigDefine.TASK_ID, "task-1");
+        keyValue.put(RuntimeConfigDefine.CONNECTOR_ID, "connector-1");
+        keyValue.put("int-key", 12);
+        keyValue.put("long-key", 34L);
+        keyValue.put("bool-key", "true");
+    }
+
+    @Test
+    public void testTypedGets() {
+        TaskConfigSnapshot snapshot = new TaskConfigSnapshot(keyValue);
+        assertThat(snapshot.getTaskId()).isEqualTo("task-1");
+        assertThat(snapshot.getConnectorId()).isEqualTo("connector-1");
+        assertThat(snapshot.getInt("int-key")).isEqualTo(12);
+        assertThat(snapshot.getInt("int-key", 5)).isEqualTo(12);
+        assertThat(snapshot.getInt("missing-key", 5)).isEqualTo(5);
+        assertThat(snapshot.getLong("long-key", 0L)).isEqualTo(34L);
+        assertThat(snapshot.getBoolean("bool-key", false)).isTrue();
+        assertThat(snapshot.getBoolean("missing-key", true)).isTrue();
+        assertThat(snapshot.getString("missing-key", "default")).isEqualTo("default");
+    }
+
+    @Test
+    public void testSnapshotIsDetached() {
+        TaskConfigSnapshot snapshot = new TaskConfigSnapshot(keyValue);
+        keyValue.put("int-key", 99);
+        assertThat(snapshot.getInt("int-key")).isEqualTo(12);
+        assertThat(snapshot).isNotEqualTo(new TaskConfigSnapshot(keyValue));
+    }
+
+    @Test
+    public void testNumbersAreParsedUpFront() {
+        keyValue.put("double-key", "1.5");
+        keyValue.put("big-key", String.valueOf(Long.MAX_VALUE));
+        TaskConfigSnapshot snapshot = new TaskConfigSnapshot(keyValue);
+        assertThat(snapshot.getDouble("double-key")).isEqualTo(1.5);
+        assertThat(snapshot.getDouble("int-key")).isEqualTo(12.0);
+        assertThat(snapshot.getLong("big-key")).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testMalformedNumberIsRejected() {
+        new TaskConfigSnapshot(keyValue).getInt("bool-key", 1);
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testOutOfRangeIntIsRejected() {
+        keyValue.put("big-key", String.valueOf(Long.MAX_VALUE));
+        new TaskConfigSnapshot(keyValue).getInt("big-key", 1);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testPutIsRejected() {
+        new TaskConfigSnapshot(keyValue).put("int-key", 1);
+    }
+
+    @Test
+    public void testHashMatchesKeyValue() {
+        TaskConfigSnapshot snapshot = new TaskConfigSnapshot(keyValue);
+        assertThat(snapshot.hashCode()).isEqualTo(keyValue.hashCode());
+        assertThat(snapshot).isEqualTo(new TaskConfigSnapshot(keyValue));
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.rocketmq.connect.runtime.connectorwrapper;
+
+import io.openmessaging.connector.api.data.ConnectRecord;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DirectRecordRingBufferTest {
+
+    @Test
+    public void testPutAndDrainAcrossWrap() throws InterruptedException {
+        DirectRecordRingBuffer ringBuffer = new DirectRecordRingBuffer(3);
+        List<ConnectRecord> drained = new ArrayList<>();
+        for (long i = 0; i < 3; i++) {
+            assertThat(ringBuffer.put(newRecord(i), 0)).isTrue();
+        }
+        assertThat(ringBuffer.put(newRecord(3), 10)).isFalse();
+
+        assertThat(ringBuffer.drainTo(drained, 2, 0)).isEqualTo(2);
+        assertThat(ringBuffer.put(newRecord(3), 0)).isTrue();
+        assertThat(ringBuffer.put(newRecord(4), 0)).isTrue();
+        assertThat(ringBuffer.drainTo(drained, 10, 0)).isEqualTo(3);
+        assertThat(ringBuffer.drainTo(drained, 10, 10)).isEqualTo(0);
+        assertThat(drained).extracting(ConnectRecord::getTimestamp).containsExactly(0L, 1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    public void testFullBufferBlocksUntilDrained() throws InterruptedException {
+        DirectRecordRingBuffer ringBuffer = new DirectRecordRingBuffer(1);
+        assertThat(ringBuffer.put(newRecord(0), 0)).isTrue();
+        Thread drainThread = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+                ringBuffer.drainTo(new ArrayList<>(), 1, 0);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        drainThread.start();
+        assertThat(ringBuffer.put(newRecord(1), 5000)).isTrue();
+        assertThat(ringBuffer.size()).isEqualTo(1);
+        drainThread.join();
+    }
+
+    private ConnectRecord newRecord(long timestamp) {
+        return new ConnectRecord(null, null, timestamp, null, "data-" + timestamp);
+    }
+}
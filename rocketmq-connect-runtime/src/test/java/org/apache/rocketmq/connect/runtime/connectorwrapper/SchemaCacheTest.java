@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.rocketmq.connect.runtime.connectorwrapper;
+
+import com.alibaba.fastjson.JSON;
+import io.openmessaging.connector.api.data.Schema;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SchemaCacheTest {
+
+    @Test
+    public void testSharedSchemaAndEviction() {
+        SchemaCache schemaCache = new SchemaCache(1);
+        String first = schemaString("first");
+        String second = schemaString("second");
+
+        Schema schema = schemaCache.get(first);
+        assertThat(schema.getName()).isEqualTo("first");
+        assertThat(schemaCache.get(first)).isSameAs(schema);
+        assertThat(schemaCache.hitCount()).isEqualTo(1);
+        assertThat(schemaCache.missCount()).isEqualTo(1);
+
+        assertThat(schemaCache.get(second).getName()).isEqualTo("second");
+        assertThat(schemaCache.size()).isEqualTo(1);
+        assertThat(schemaCache.get(first)).isNotSameAs(schema);
+        assertThat(schemaCache.missCount()).isEqualTo(3);
+    }
+
+    private String schemaString(String name) {
+        Schema schema = new Schema();
+        schema.setName(name);
+        return JSON.toJSONString(schema);
+    }
+}
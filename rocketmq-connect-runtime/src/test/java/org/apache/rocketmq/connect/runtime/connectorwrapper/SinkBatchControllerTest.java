@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.rocketmq.connect.runtime.connectorwrapper;
+
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SinkBatchControllerTest {
+
+    private final MessageQueue messageQueue0 = new MessageQueue("TEST-TOPIC", "broker-a", 0);
+
+    private final MessageQueue messageQueue1 = new MessageQueue("TEST-TOPIC", "broker-a", 1);
+
+    @Test
+    public void testGrowPullSizeWithBacklog() {
+        SinkBatchController batchController = new SinkBatchController(1, 256, 1024 * 1024, 1000, 32);
+        batchController.onPull(messageQueue0, 32, 1000);
+        assertThat(batchController.getPullBatchSize(messageQueue0)).isEqualTo(64);
+        for (int i = 0; i < 10; i++) {
+            batchController.onPull(messageQueue0, batchController.getPullBatchSize(messageQueue0), 1000);
+        }
+        assertThat(batchController.getPullBatchSize(messageQueue0)).isEqualTo(256);
+    }
+
+    @Test
+    public void testShrinkPullSizeWhenCaughtUp() {
+        SinkBatchController batchController = new SinkBatchController(4, 256, 1024 * 1024, 1000, 32);
+        batchController.onPull(messageQueue0, 3, 0);
+        assertThat(batchController.getPullBatchSize(messageQueue0)).isEqualTo(16);
+        for (int i = 0; i < 10; i++) {
+            batchController.onPull(messageQueue0, 1, 0);
+        }
+        assertThat(batchController.getPullBatchSize(messageQueue0)).isEqualTo(4);
+    }
+
+    @Test
+    public void testPullSizeIsPerQueue() {
+        SinkBatchController batchController = new SinkBatchController(1, 256, 1024 * 1024, 1000, 32);
+        for (int i = 0; i < 3; i++) {
+            batchController.onPull(messageQueue0, batchController.getPullBatchSize(messageQueue0), 1000);
+            batchController.onPull(messageQueue1, 0, 0);
+        }
+        assertThat(batchController.getPullBatchSize(messageQueue0)).isEqualTo(256);
+        assertThat(batchController.getPullBatchSize(messageQueue1)).isEqualTo(4);
+
+        batchController.removeTopic("TEST-TOPIC");
+        assertThat(batchController.getPullBatchSize(messageQueue0)).isEqualTo(32);
+    }
+
+    @Test
+    public void testPutBatchSizeFollowsPutLatency() {
+        SinkBatchController batchController = new SinkBatchController(1, 1024, 1024 * 1024, 100, 32);
+        batchController.onPut(32, 10);
+        assertThat(batchController.getPutBatchSize()).isEqualTo(64);
+        batchController.onPut(16, 10);
+        assertThat(batchController.getPutBatchSize()).isEqualTo(64);
+        for (int i = 0; i < 5; i++) {
+            batchController.onPut(64, 1000);
+        }
+        assertThat(batchController.getPutBatchSize()).isLessThan(64);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRange() {
+        new SinkBatchController(10, 1, 1024, 1000, 32);
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.rocketmq.connect.runtime.connectorwrapper;
+
+import io.openmessaging.KeyValue;
+import io.openmessaging.connector.api.component.task.sink.SinkTask;
+import io.openmessaging.connector.api.data.ConnectRecord;
+import io.openmessaging.connector.api.errors.RetriableException;
+import io.openmessaging.internal.DefaultKeyValue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.apache.rocketmq.connect.runtime.connectorwrapper.testimpl.TestSinkTask;
+import org.apache.rocketmq.connect.runtime.utils.ConnectUtil;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SinkDeliveryLanesTest {
+
+    private final MessageQueue messageQueue0 = new MessageQueue("TEST-TOPIC", "broker-a", 0);
+
+    private final MessageQueue messageQueue1 = new MessageQueue("TEST-TOPIC", "broker-a", 1);
+
+    private final TestSinkTask laneSinkTask0 = new TestSinkTask();
+
+    private final TestSinkTask laneSinkTask1 = new TestSinkTask();
+
+    private SinkDeliveryLanes deliveryLanes;
+
+    @After
+    public void destroy() {
+        deliveryLanes.shutdown();
+    }
+
+    @Test
+    public void testRecordsOfOneQueueStayInOneLaneInOrder() throws Exception {
+        deliveryLanes = new SinkDeliveryLanes(Arrays.asList(laneSinkTask0, laneSinkTask1), null, 16, "test-lane-", SinkTask::put);
+        int lane0 = deliveryLanes.laneOf(newRecord(messageQueue0, 0));
+        for (long offset = 0; offset < 10; offset += 2) {
+            List<ConnectRecord> records = new ArrayList<>();
+            records.add(newRecord(messageQueue0, offset));
+            records.add(newRecord(messageQueue0, offset + 1));
+            deliveryLanes.dispatch(records, Collections.singletonMap(messageQueue0, offset + 2));
+        }
+        List<Map<MessageQueue, Long>> completed = pollAllCompleted(5);
+
+        assertThat(completed).extracting(offsets -> offsets.get(messageQueue0)).containsExactly(2L, 4L, 6L, 8L, 10L);
+        TestSinkTask laneSinkTask = lane0 == 0 ? laneSinkTask0 : laneSinkTask1;
+        assertThat(laneSinkTask.getRecords()).extracting(record -> record.getData()).containsExactly(
+            "0", "1", "2", "3", "4", "5", "6", "7", "8", "9");
+        assertThat(lane0 == 0 ? laneSinkTask1.getRecords() : laneSinkTask0.getRecords()).isEmpty();
+    }
+
+    @Test
+    public void testRecordsAreHashedByLaneKey() throws Exception {
+        deliveryLanes = new SinkDeliveryLanes(Arrays.asList(laneSinkTask0, laneSinkTask1), "key", 16, "test-lane-", SinkTask::put);
+        KeyValue extensions = new DefaultKeyValue();
+        extensions.put("key", "order-1");
+        ConnectRecord record = newRecord(messageQueue0, 0);
+        record.addExtension(extensions);
+        ConnectRecord sameKeyRecord = newRecord(messageQueue1, 0);
+        sameKeyRecord.addExtension(extensions);
+
+        assertThat(deliveryLanes.laneOf(record)).isEqualTo(deliveryLanes.laneOf(sameKeyRecord));
+    }
+
+    @Test
+    public void testFailedDeliveryIsReported() throws Exception {
+        deliveryLanes = new SinkDeliveryLanes(Arrays.asList(laneSinkTask0, laneSinkTask1), null, 16, "test-lane-", (sinkTask, records) -> {
+            throw new RetriableException("put failed");
+        });
+        deliveryLanes.dispatch(Collections.singletonList(newRecord(messageQueue0, 0)), Collections.singletonMap(messageQueue0, 1L));
+        deliveryLanes.dispatch(Collections.singletonList(newRecord(messageQueue1, 0)), Collections.singletonMap(messageQueue1, 1L));
+
+        assertThatThrownBy(() -> pollAllCompleted(1)).isInstanceOf(RetriableException.class);
+        assertThat(deliveryLanes.isIdle()).isTrue();
+    }
+
+    @Test
+    public void testFailedDeliveryDrainsOtherLanes() throws Exception {
+        CountDownLatch blockedPutStarted = new CountDownLatch(1);
+        CountDownLatch releaseBlockedPut = new CountDownLatch(1);
+        AtomicBoolean blockedPutFinished = new AtomicBoolean();
+        deliveryLanes = new SinkDeliveryLanes(Arrays.asList(laneSinkTask0, laneSinkTask1), null, 16, "test-lane-", (sinkTask, records) -> {
+            if (sinkTask == laneSinkTask0) {
+                throw new RetriableException("put failed");
+            }
+            blockedPutStarted.countDown();
+            try {
+                releaseBlockedPut.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sinkTask.put(records);
+            blockedPutFinished.set(true);
+        });
+        ConnectRecord failedRecord = newRecordOfLane(0);
+        ConnectRecord laterRecord = newRecordOfLane(1);
+        deliveryLanes.dispatch(Collections.singletonList(failedRecord), Collections.singletonMap(messageQueue0, 1L));
+        deliveryLanes.dispatch(Collections.singletonList(laterRecord), Collections.singletonMap(messageQueue1, 1L));
+        deliveryLanes.dispatch(Collections.singletonList(laterRecord), Collections.singletonMap(messageQueue1, 2L));
+        assertThat(blockedPutStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            releaseBlockedPut.countDown();
+        }).start();
+
+        assertThatThrownBy(() -> pollAllCompleted(1)).isInstanceOf(RetriableException.class);
+        assertThat(blockedPutFinished.get()).isTrue();
+        assertThat(laneSinkTask1.getRecords()).hasSize(1);
+        assertThat(deliveryLanes.isIdle()).isTrue();
+    }
+
+    @Test
+    public void testDeliveryCompletedAfterResetKeepsResetOffset() throws Exception {
+        CountDownLatch releasePut = new CountDownLatch(1);
+        deliveryLanes = new SinkDeliveryLanes(Arrays.asList(laneSinkTask0, laneSinkTask1), null, 16, "test-lane-", (sinkTask, records) -> {
+            try {
+                releasePut.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sinkTask.put(records);
+        });
+        Map<MessageQueue, Long> offsets = new HashMap<>();
+        offsets.put(messageQueue0, 2L);
+        offsets.put(messageQueue1, 1L);
+        deliveryLanes.dispatch(Arrays.asList(newRecord(messageQueue0, 0), newRecord(messageQueue0, 1), newRecord(messageQueue1, 0)), offsets);
+
+        deliveryLanes.discardOffsets(messageQueue0);
+        releasePut.countDown();
+        List<Map<MessageQueue, Long>> completed = pollAllCompleted(1);
+
+        assertThat(completed).hasSize(1);
+        assertThat(completed.get(0)).containsOnlyKeys(messageQueue1);
+        assertThat(offsets).containsKey(messageQueue0);
+    }
+
+    private ConnectRecord newRecordOfLane(int lane) {
+        for (int queueId = 0; ; queueId++) {
+            ConnectRecord record = newRecord(new MessageQueue("TEST-TOPIC", "broker-a", queueId), 0);
+            if (deliveryLanes.laneOf(record) == lane) {
+                return record;
+            }
+        }
+    }
+
+    private List<Map<MessageQueue, Long>> pollAllCompleted(int expected) throws InterruptedException {
+        List<Map<MessageQueue, Long>> completed = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (completed.size() < expected && System.currentTimeMillis() < deadline) {
+            completed.addAll(deliveryLanes.pollCompleted());
+            Thread.sleep(10);
+        }
+        return completed;
+    }
+
+    private ConnectRecord newRecord(MessageQueue messageQueue, long offset) {
+        return new ConnectRecord(ConnectUtil.convertToRecordPartition(messageQueue), ConnectUtil.convertToRecordOffset(offset),
+            System.currentTimeMillis(), null, String.valueOf(offset));
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.rocketmq.connect.runtime.connectorwrapper;
+
+import io.openmessaging.connector.api.data.ConnectRecord;
+import java.util.Arrays;
+import java.util.Collections;
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SinkLingerBatchTest {
+
+    private final MessageQueue messageQueue0 = new MessageQueue("TEST-TOPIC", "broker-a", 0);
+
+    private final MessageQueue messageQueue1 = new MessageQueue("TEST-TOPIC", "broker-a", 1);
+
+    private final ConnectRecord record0 = new ConnectRecord(null, null, 0L, null, null);
+
+    private final ConnectRecord record1 = new ConnectRecord(null, null, 1L, null, null);
+
+    private final ConnectRecord record2 = new ConnectRecord(null, null, 2L, null, null);
+
+    @Test
+    public void testRemoveQueueKeepsOtherQueues() {
+        SinkLingerBatch lingerBatch = new SinkLingerBatch(3, 1024, 60000);
+        lingerBatch.add(messageQueue0, Collections.singletonList(record0), 600, 1L);
+        lingerBatch.add(messageQueue1, Collections.singletonList(record1), 100, 5L);
+        lingerBatch.add(messageQueue0, Collections.singletonList(record2), 600, 2L);
+        assertThat(lingerBatch.isFull()).isTrue();
+
+        lingerBatch.removeQueue(messageQueue0);
+
+        assertThat(lingerBatch.getRecords()).containsExactly(record1);
+        assertThat(lingerBatch.getOffsets()).containsOnlyKeys(messageQueue1);
+        assertThat(lingerBatch.isFull()).isFalse();
+        assertThat(lingerBatch.isDue(System.currentTimeMillis())).isFalse();
+    }
+
+    @Test
+    public void testRemoveLastQueueEmptiesBatch() {
+        SinkLingerBatch lingerBatch = new SinkLingerBatch(4, 1024, 60000);
+        lingerBatch.add(messageQueue0, Arrays.asList(record0, record1), 100, 2L);
+
+        lingerBatch.removeQueue(messageQueue1);
+        assertThat(lingerBatch.getRecords()).hasSize(2);
+
+        lingerBatch.removeQueue(messageQueue0);
+        assertThat(lingerBatch.isEmpty()).isTrue();
+        assertThat(lingerBatch.getRecords()).isEmpty();
+        assertThat(lingerBatch.remainingLingerMs(System.currentTimeMillis(), 500)).isEqualTo(500);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.rocketmq.connect.runtime.connectorwrapper;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SourceSendWindowTest {
+
+    @Test
+    public void testRecordsCap() throws InterruptedException {
+        SourceSendWindow sendWindow = new SourceSendWindow(2, 1024);
+        assertThat(sendWindow.acquire(10, 0)).isTrue();
+        assertThat(sendWindow.acquire(10, 0)).isTrue();
+        assertThat(sendWindow.acquire(10, 10)).isFalse();
+
+        sendWindow.release(10);
+        assertThat(sendWindow.acquire(10, 0)).isTrue();
+        assertThat(sendWindow.getInflightRecords()).isEqualTo(2);
+        assertThat(sendWindow.getInflightBytes()).isEqualTo(20);
+    }
+
+    @Test
+    public void testBytesCap() throws InterruptedException {
+        SourceSendWindow sendWindow = new SourceSendWindow(16, 100);
+        assertThat(sendWindow.acquire(200, 0)).isTrue();
+        assertThat(sendWindow.acquire(1, 10)).isFalse();
+
+        Thread ackThread = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                return;
+            }
+            sendWindow.release(200);
+        });
+        ackThread.start();
+        assertThat(sendWindow.acquire(60, 5000)).isTrue();
+        assertThat(sendWindow.acquire(60, 0)).isFalse();
+        ackThread.join();
+    }
+}
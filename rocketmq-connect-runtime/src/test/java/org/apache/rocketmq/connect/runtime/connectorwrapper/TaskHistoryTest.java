@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.rocketmq.connect.runtime.connectorwrapper;
+
+import java.util.List;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TaskHistoryTest {
+
+    @Test
+    public void testEvictByCount() {
+        TaskHistory taskHistory = new TaskHistory(2, 60 * 1000);
+        taskHistory.add(new TaskHistory.TaskSummary("conn-1", "{}", WorkerTaskState.ERROR, 1000));
+        taskHistory.add(new TaskHistory.TaskSummary("conn-2", "{}", WorkerTaskState.STOPPED, 2000));
+        taskHistory.add(new TaskHistory.TaskSummary("conn-3", "{}", WorkerTaskState.ERROR, 3000));
+
+        List<TaskHistory.TaskSummary> errorTasks = taskHistory.getSummaries(WorkerTaskState.ERROR, 3000);
+        assertThat(errorTasks.size()).isEqualTo(1);
+        assertThat(errorTasks.get(0).getConnectorName()).isEqualTo("conn-3");
+        assertThat(taskHistory.getSummaries(WorkerTaskState.STOPPED, 3000).size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testEvictByAge() {
+        TaskHistory taskHistory = new TaskHistory(10, 1000);
+        taskHistory.add(new TaskHistory.TaskSummary("conn-1", "{}", WorkerTaskState.STOPPED, 1000));
+        taskHistory.add(new TaskHistory.TaskSummary("conn-2", "{}", WorkerTaskState.STOPPED, 2500));
+
+        List<TaskHistory.TaskSummary> stoppedTasks = taskHistory.getSummaries(WorkerTaskState.STOPPED, 3000);
+        assertThat(stoppedTasks.size()).isEqualTo(1);
+        assertThat(stoppedTasks.get(0).getConnectorName()).isEqualTo("conn-2");
+        assertThat(taskHistory.getSummaries(WorkerTaskState.STOPPED, 4000)).isEmpty();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.rocketmq.connect.runtime.connectorwrapper;
+
+import io.openmessaging.connector.api.data.ConnectRecord;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.rocketmq.connect.runtime.common.ConnectKeyValue;
+import org.apache.rocketmq.connect.runtime.connectorwrapper.testimpl.TestSinkTask;
+import org.apache.rocketmq.connect.runtime.connectorwrapper.testimpl.TestSourceTask;
+import org.apache.rocketmq.connect.runtime.service.PositionManagementService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class WorkerDirectTaskTest {
+
+    @Mock
+    private PositionManagementService positionManagementService;
+
+    @Test
+    public void testPipeline() throws Exception {
+        ConnectKeyValue taskConfig = new ConnectKeyValue();
+        taskConfig.put(WorkerSinkTask.PIPELINE_ENABLE_CONFIG, "true");
+        taskConfig.put(WorkerDirectTask.PIPELINE_BUFFER_SIZE_CONFIG, 16);
+        taskConfig.put(WorkerSourceTask.POSITION_FLUSH_INTERVAL_MS_CONFIG, 0);
+        TestSinkTask sinkTask = new TestSinkTask();
+        WorkerDirectTask workerDirectTask = new WorkerDirectTask("TEST-CONN-0", new TestSourceTask(), sinkTask,
+            taskConfig, positionManagementService, new AtomicReference<>(WorkerState.STARTED));
+
+        Thread taskThread = new Thread(workerDirectTask);
+        taskThread.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (sinkTask.getPutTimes() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        workerDirectTask.stop();
+        taskThread.join(5000);
+
+        assertThat(sinkTask.getPutTimes()).isGreaterThanOrEqualTo(3);
+        assertThat(workerDirectTask.getState()).isEqualTo(WorkerTaskState.STOPPED);
+        verify(positionManagementService, atLeastOnce()).putPosition(anyMap());
+    }
+
+    @Test
+    public void testPipelinePutFailureKeepsPositions() throws Exception {
+        ConnectKeyValue taskConfig = new ConnectKeyValue();
+        taskConfig.put(WorkerSinkTask.PIPELINE_ENABLE_CONFIG, "true");
+        taskConfig.put(WorkerDirectTask.PIPELINE_BUFFER_SIZE_CONFIG, 16);
+        taskConfig.put(WorkerSourceTask.POSITION_FLUSH_INTERVAL_MS_CONFIG, 0);
+        TestSinkTask sinkTask = new TestSinkTask() {
+            @Override
+            public void put(List<ConnectRecord> sinkRecords) {
+                throw new IllegalStateException("put failed");
+            }
+        };
+        WorkerDirectTask workerDirectTask = new WorkerDirectTask("TEST-CONN-0", new TestSourceTask(), sinkTask,
+            taskConfig, positionManagementService, new AtomicReference<>(WorkerState.STARTED));
+
+        Thread taskThread = new Thread(workerDirectTask);
+        taskThread.start();
+        taskThread.join(5000);
+
+        assertThat(workerDirectTask.getState()).isEqualTo(WorkerTaskState.ERROR);
+        verify(positionManagementService, never()).putPosition(anyMap());
+    }
+}
@@ -0,0 +1,381 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.rocketmq.connect.runtime.connectorwrapper;
+
+import io.openmessaging.connector.api.data.ConnectRecord;
+import io.openmessaging.connector.api.data.RecordPartition;
+import io.openmessaging.connector.api.errors.RetriableException;
+import io.openmessaging.internal.DefaultKeyValue;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.rocketmq.client.consumer.DefaultMQPullConsumer;
+import org.apache.rocketmq.client.consumer.PullCallback;
+import org.apache.rocketmq.client.consumer.PullResult;
+import org.apache.rocketmq.client.consumer.PullStatus;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.apache.rocketmq.connect.runtime.common.ConnectKeyValue;
+import org.apache.rocketmq.connect.runtime.common.QueueState;
+import org.apache.rocketmq.connect.runtime.config.RuntimeConfigDefine;
+import org.apache.rocketmq.connect.runtime.connectorwrapper.testimpl.TestSinkTask;
+import org.apache.rocketmq.connect.runtime.stats.ConnectStatsManager;
+import org.apache.rocketmq.connect.runtime.stats.ConnectStatsService;
+import org.apache.rocketmq.connect.runtime.utils.ConnectUtil;
+import org.apache.rocketmq.connect.runtime.utils.Plugin;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class WorkerSinkTaskTest {
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private DefaultMQPullConsumer consumer;
+
+    @Mock
+    private ConnectStatsManager connectStatsManager;
+
+    @Mock
+    private ConnectStatsService connectStatsService;
+
+    @Mock
+    private Plugin plugin;
+
+    private TestSinkTask sinkTask;
+
+    private WorkerSinkTask workerSinkTask;
+
+    private Map<MessageQueue, Long> messageQueuesOffsetMap;
+
+    private final MessageQueue busyQueue = new MessageQueue("TEST-TOPIC", "broker-a", 0);
+
+    private final MessageQueue idleQueue = new MessageQueue("TEST-TOPIC", "broker-a", 1);
+
+    @Before
+    public void init() throws Exception {
+        ConnectKeyValue taskConfig = new ConnectKeyValue();
+        taskConfig.put(WorkerSinkTask.PULL_ASYNC_ENABLE_CONFIG, "true");
+        workerSinkTask = newWorkerSinkTask(taskConfig);
+    }
+
+    @Test
+    public void testIdleQueueDoesNotBlockBusyQueue() throws Exception {
+        doAnswer(invocation -> {
+            PullCallback pullCallback = invocation.getArgument(4);
+            pullCallback.onSuccess(newFoundResult(busyQueue, invocation.getArgument(2), 2));
+            return null;
+        }).when(consumer).pullBlockIfNotFound(eq(busyQueue), anyString(), any(Long.class), anyInt(), any(PullCallback.class));
+
+        pullMessageFromQueuesAsync();
+        pullMessageFromQueuesAsync();
+
+        assertThat(sinkTask.getRecords()).hasSize(4);
+        assertThat(messageQueuesOffsetMap.get(busyQueue)).isEqualTo(4L);
+        assertThat(messageQueuesOffsetMap.get(idleQueue)).isEqualTo(0L);
+        verify(consumer, times(1)).pullBlockIfNotFound(eq(idleQueue), anyString(), eq(0L), anyInt(), any(PullCallback.class));
+        verify(consumer, times(2)).pullBlockIfNotFound(eq(busyQueue), anyString(), any(Long.class), anyInt(), any(PullCallback.class));
+    }
+
+    @Test
+    public void testDiscardStaleAsyncPullResult() throws Exception {
+        messageQueuesOffsetMap.remove(idleQueue);
+        ArgumentCaptor<PullCallback> pullCallbackCaptor = ArgumentCaptor.forClass(PullCallback.class);
+
+        pullMessageFromQueuesAsync();
+        verify(consumer).pullBlockIfNotFound(eq(busyQueue), anyString(), eq(0L), anyInt(), pullCallbackCaptor.capture());
+
+        // the queue is reset while the request is outstanding
+        messageQueuesOffsetMap.put(busyQueue, 10L);
+        pullCallbackCaptor.getValue().onSuccess(newFoundResult(busyQueue, 0L, 2));
+        pullMessageFromQueuesAsync();
+        pullMessageFromQueuesAsync();
+
+        assertThat(sinkTask.getRecords()).isEmpty();
+        assertThat(messageQueuesOffsetMap.get(busyQueue)).isEqualTo(10L);
+        verify(consumer).pullBlockIfNotFound(eq(busyQueue), anyString(), eq(10L), anyInt(), any(PullCallback.class));
+    }
+
+    @Test
+    public void testPrefetchPausesFullQueueUntilDelivered() throws Exception {
+        ConnectKeyValue taskConfig = new ConnectKeyValue();
+        taskConfig.put(WorkerSinkTask.PIPELINE_ENABLE_CONFIG, "true");
+        taskConfig.put(WorkerSinkTask.PREFETCH_MAX_RECORDS_CONFIG, "2");
+        workerSinkTask = newWorkerSinkTask(taskConfig);
+        Map<MessageQueue, Long> deliveredOffsetMap = getField("deliveredOffsetMap");
+        deliveredOffsetMap.put(busyQueue, 0L);
+        deliveredOffsetMap.put(idleQueue, 0L);
+        Set<MessageQueue> prefetchPausedQueues = getField("prefetchPausedQueues");
+
+        final Method handlePullResultMethod = WorkerSinkTask.class.getDeclaredMethod("handlePullResult", MessageQueue.class, long.class, PullResult.class, long.class);
+        handlePullResultMethod.setAccessible(true);
+        handlePullResultMethod.invoke(workerSinkTask, busyQueue, 0L, newFoundResult(busyQueue, 0L, 2), System.currentTimeMillis());
+
+        assertThat(sinkTask.getRecords()).isEmpty();
+        assertThat(messageQueuesOffsetMap.get(busyQueue)).isEqualTo(2L);
+        assertThat(deliveredOffsetMap.get(busyQueue)).isEqualTo(0L);
+        assertThat(prefetchPausedQueues).contains(busyQueue);
+
+        final Method deliverMethod = WorkerSinkTask.class.getDeclaredMethod("deliverPrefetchedMessages");
+        deliverMethod.setAccessible(true);
+        deliverMethod.invoke(workerSinkTask);
+
+        assertThat(sinkTask.getRecords()).hasSize(2);
+        assertThat(deliveredOffsetMap.get(busyQueue)).isEqualTo(2L);
+        assertThat(prefetchPausedQueues).doesNotContain(busyQueue);
+    }
+
+    @Test
+    public void testPrefetchResumeKeepsConnectorPause() throws Exception {
+        ConnectKeyValue taskConfig = new ConnectKeyValue();
+        taskConfig.put(WorkerSinkTask.PIPELINE_ENABLE_CONFIG, "true");
+        taskConfig.put(WorkerSinkTask.PREFETCH_MAX_RECORDS_CONFIG, "2");
+        workerSinkTask = newWorkerSinkTask(taskConfig);
+        Map<MessageQueue, Long> deliveredOffsetMap = getField("deliveredOffsetMap");
+        deliveredOffsetMap.put(busyQueue, 0L);
+        Map<MessageQueue, QueueState> messageQueuesStateMap = getField("messageQueuesStateMap");
+        messageQueuesStateMap.put(busyQueue, QueueState.PAUSE);
+
+        final Method handlePullResultMethod = WorkerSinkTask.class.getDeclaredMethod("handlePullResult", MessageQueue.class, long.class, PullResult.class, long.class);
+        handlePullResultMethod.setAccessible(true);
+        handlePullResultMethod.invoke(workerSinkTask, busyQueue, 0L, newFoundResult(busyQueue, 0L, 2), System.currentTimeMillis());
+        final Method deliverMethod = WorkerSinkTask.class.getDeclaredMethod("deliverPrefetchedMessages");
+        deliverMethod.setAccessible(true);
+        deliverMethod.invoke(workerSinkTask);
+
+        Set<MessageQueue> prefetchPausedQueues = getField("prefetchPausedQueues");
+        assertThat(sinkTask.getRecords()).hasSize(2);
+        assertThat(prefetchPausedQueues).doesNotContain(busyQueue);
+        assertThat(messageQueuesStateMap).containsKey(busyQueue);
+    }
+
+    @Test
+    public void testPrefetchDuringResetIsDiscarded() throws Exception {
+        ConnectKeyValue taskConfig = new ConnectKeyValue();
+        taskConfig.put(WorkerSinkTask.PIPELINE_ENABLE_CONFIG, "true");
+        workerSinkTask = newWorkerSinkTask(taskConfig);
+        Map<MessageQueue, Long> deliveredOffsetMap = getField("deliveredOffsetMap");
+        deliveredOffsetMap.put(busyQueue, 0L);
+        final Method handlePullResultMethod = WorkerSinkTask.class.getDeclaredMethod("handlePullResult", MessageQueue.class, long.class, PullResult.class, long.class);
+        handlePullResultMethod.setAccessible(true);
+        final Method setQueueOffsetMethod = WorkerSinkTask.class.getDeclaredMethod("setQueueOffset");
+        setQueueOffsetMethod.setAccessible(true);
+        RecordPartitionRegistry recordPartitionRegistry = getField("recordPartitionRegistry");
+        WorkerSinkTaskContext sinkTaskContext = getField("sinkTaskContext");
+        sinkTaskContext.resetOffset(recordPartitionRegistry.get(busyQueue), ConnectUtil.convertToRecordOffset(10L));
+
+        // the pull result arrives while the reset holds the prefetch lock
+        ReentrantLock prefetchLock = getField("prefetchLock");
+        Thread prefetchThread;
+        prefetchLock.lock();
+        try {
+            prefetchThread = new Thread(() -> {
+                try {
+                    handlePullResultMethod.invoke(workerSinkTask, busyQueue, 0L, newFoundResult(busyQueue, 0L, 2), System.currentTimeMillis());
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            prefetchThread.start();
+            while (!prefetchLock.hasQueuedThread(prefetchThread)) {
+                Thread.sleep(1);
+            }
+            setQueueOffsetMethod.invoke(workerSinkTask);
+        } finally {
+            prefetchLock.unlock();
+        }
+        prefetchThread.join();
+
+        final Method deliverMethod = WorkerSinkTask.class.getDeclaredMethod("deliverPrefetchedMessages");
+        deliverMethod.setAccessible(true);
+        deliverMethod.invoke(workerSinkTask);
+
+        assertThat(sinkTask.getRecords()).isEmpty();
+        assertThat(messageQueuesOffsetMap.get(busyQueue)).isEqualTo(10L);
+        assertThat(deliveredOffsetMap.get(busyQueue)).isEqualTo(10L);
+    }
+
+    @Test
+    public void testLingerAcrossPullsUntilBatchIsFull() throws Exception {
+        ConnectKeyValue taskConfig = new ConnectKeyValue();
+        taskConfig.put(WorkerSinkTask.LINGER_MS_CONFIG, "60000");
+        taskConfig.put(WorkerSinkTask.LINGER_MAX_RECORDS_CONFIG, "4");
+        workerSinkTask = newWorkerSinkTask(taskConfig);
+        Map<MessageQueue, Long> deliveredOffsetMap = getField("deliveredOffsetMap");
+        deliveredOffsetMap.put(busyQueue, 0L);
+        deliveredOffsetMap.put(idleQueue, 0L);
+
+        final Method handlePullResultMethod = WorkerSinkTask.class.getDeclaredMethod("handlePullResult", MessageQueue.class, long.class, PullResult.class, long.class);
+        handlePullResultMethod.setAccessible(true);
+        handlePullResultMethod.invoke(workerSinkTask, busyQueue, 0L, newFoundResult(busyQueue, 0L, 2), System.currentTimeMillis());
+
+        assertThat(sinkTask.getRecords()).isEmpty();
+        assertThat(sinkTask.getPutTimes()).isEqualTo(0);
+        assertThat(messageQueuesOffsetMap.get(busyQueue)).isEqualTo(2L);
+        assertThat(deliveredOffsetMap.get(busyQueue)).isEqualTo(0L);
+
+        handlePullResultMethod.invoke(workerSinkTask, idleQueue, 0L, newFoundResult(idleQueue, 0L, 2), System.currentTimeMillis());
+
+        assertThat(sinkTask.getRecords()).hasSize(4);
+        assertThat(sinkTask.getPutTimes()).isEqualTo(1);
+        assertThat(deliveredOffsetMap.get(busyQueue)).isEqualTo(2L);
+        assertThat(deliveredOffsetMap.get(idleQueue)).isEqualTo(2L);
+    }
+
+    @Test
+    public void testFailedLingerFlushPutsPrefetchedBatchOnce() throws Exception {
+        ConnectKeyValue taskConfig = new ConnectKeyValue();
+        taskConfig.put(WorkerSinkTask.PIPELINE_ENABLE_CONFIG, "true");
+        taskConfig.put(WorkerSinkTask.LINGER_MS_CONFIG, "60000");
+        taskConfig.put(WorkerSinkTask.LINGER_MAX_RECORDS_CONFIG, "2");
+        workerSinkTask = newWorkerSinkTask(taskConfig);
+        Map<MessageQueue, Long> deliveredOffsetMap = getField("deliveredOffsetMap");
+        deliveredOffsetMap.put(busyQueue, 0L);
+
+        final Method handlePullResultMethod = WorkerSinkTask.class.getDeclaredMethod("handlePullResult", MessageQueue.class, long.class, PullResult.class, long.class);
+        handlePullResultMethod.setAccessible(true);
+        handlePullResultMethod.invoke(workerSinkTask, busyQueue, 0L, newFoundResult(busyQueue, 0L, 2), System.currentTimeMillis());
+        final Method deliverMethod = WorkerSinkTask.class.getDeclaredMethod("deliverPrefetchedMessages");
+        deliverMethod.setAccessible(true);
+        sinkTask.failNextPuts(1);
+        try {
+            deliverMethod.invoke(workerSinkTask);
+        } catch (InvocationTargetException e) {
+            assertThat(e.getCause()).isInstanceOf(RetriableException.class);
+        }
+        assertThat(sinkTask.getRecords()).isEmpty();
+
+        // the retried flush puts the lingering records, the prefetch buffer does not hand them out again
+        final Method flushMethod = WorkerSinkTask.class.getDeclaredMethod("flushLingerBatch");
+        flushMethod.setAccessible(true);
+        flushMethod.invoke(workerSinkTask);
+        deliverMethod.invoke(workerSinkTask);
+        flushMethod.invoke(workerSinkTask);
+
+        assertThat(sinkTask.getRecords()).hasSize(2);
+        assertThat(sinkTask.getPutTimes()).isEqualTo(1);
+        assertThat(deliveredOffsetMap.get(busyQueue)).isEqualTo(2L);
+    }
+
+    @Test
+    public void testResetOffsetDropsLingeringRecords() throws Exception {
+        ConnectKeyValue taskConfig = new ConnectKeyValue();
+        taskConfig.put(WorkerSinkTask.LINGER_MS_CONFIG, "60000");
+        taskConfig.put(WorkerSinkTask.LINGER_MAX_RECORDS_CONFIG, "4");
+        workerSinkTask = newWorkerSinkTask(taskConfig);
+        Map<MessageQueue, Long> deliveredOffsetMap = getField("deliveredOffsetMap");
+        deliveredOffsetMap.put(busyQueue, 0L);
+        deliveredOffsetMap.put(idleQueue, 0L);
+
+        final Method handlePullResultMethod = WorkerSinkTask.class.getDeclaredMethod("handlePullResult", MessageQueue.class, long.class, PullResult.class, long.class);
+        handlePullResultMethod.setAccessible(true);
+        handlePullResultMethod.invoke(workerSinkTask, busyQueue, 0L, newFoundResult(busyQueue, 0L, 2), System.currentTimeMillis());
+        handlePullResultMethod.invoke(workerSinkTask, idleQueue, 0L, newFoundResult(idleQueue, 0L, 1), System.currentTimeMillis());
+
+        RecordPartitionRegistry recordPartitionRegistry = getField("recordPartitionRegistry");
+        RecordPartition recordPartition = recordPartitionRegistry.get(busyQueue);
+        WorkerSinkTaskContext sinkTaskContext = getField("sinkTaskContext");
+        sinkTaskContext.resetOffset(recordPartition, ConnectUtil.convertToRecordOffset(0L));
+        final Method setQueueOffsetMethod = WorkerSinkTask.class.getDeclaredMethod("setQueueOffset");
+        setQueueOffsetMethod.setAccessible(true);
+        setQueueOffsetMethod.invoke(workerSinkTask);
+
+        SinkLingerBatch lingerBatch = getField("lingerBatch");
+        assertThat(sinkTask.getRecords()).isEmpty();
+        assertThat(lingerBatch.getRecords()).hasSize(1);
+        assertThat(lingerBatch.getOffsets()).containsOnlyKeys(idleQueue);
+        assertThat(messageQueuesOffsetMap.get(busyQueue)).isEqualTo(0L);
+        assertThat(deliveredOffsetMap.get(busyQueue)).isEqualTo(0L);
+    }
+
+    private WorkerSinkTask newWorkerSinkTask(ConnectKeyValue taskConfig) throws Exception {
+        taskConfig.put(RuntimeConfigDefine.TASK_ID, "TEST-TASK-0");
+        sinkTask = new TestSinkTask();
+        WorkerSinkTask workerSinkTask = new WorkerSinkTask("TEST-CONN-0",
+            sinkTask,
+            taskConfig,
+            null,
+            consumer,
+            new AtomicReference(WorkerState.STARTED),
+            connectStatsManager, connectStatsService, null,
+            new TransformChain<ConnectRecord>(new DefaultKeyValue(), plugin));
+
+        final Field stateField = WorkerSinkTask.class.getDeclaredField("state");
+        stateField.setAccessible(true);
+        ((WorkerTaskStateHolder) stateField.get(workerSinkTask)).set(WorkerTaskState.RUNNING);
+
+        final Field sinkTaskContextField = WorkerSinkTask.class.getDeclaredField("sinkTaskContext");
+        sinkTaskContextField.setAccessible(true);
+        sinkTaskContextField.set(workerSinkTask, new WorkerSinkTaskContext(taskConfig, workerSinkTask, consumer));
+
+        final Field offsetMapField = WorkerSinkTask.class.getDeclaredField("messageQueuesOffsetMap");
+        offsetMapField.setAccessible(true);
+        messageQueuesOffsetMap = (Map<MessageQueue, Long>) offsetMapField.get(workerSinkTask);
+        messageQueuesOffsetMap.put(busyQueue, 0L);
+        messageQueuesOffsetMap.put(idleQueue, 0L);
+        return workerSinkTask;
+    }
+
+    private <T> T getField(String name) throws Exception {
+        final Field field = WorkerSinkTask.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return (T) field.get(workerSinkTask);
+    }
+
+    private void pullMessageFromQueuesAsync() throws Exception {
+        final Method method = WorkerSinkTask.class.getDeclaredMethod("pullMessageFromQueuesAsync");
+        method.setAccessible(true);
+        method.invoke(workerSinkTask);
+    }
+
+    private PullResult newFoundResult(MessageQueue messageQueue, long offset, int size) {
+        List<MessageExt> messages = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            MessageExt message = new MessageExt();
+            message.setTopic(messageQueue.getTopic());
+            message.setBrokerName(messageQueue.getBrokerName());
+            message.setQueueId(messageQueue.getQueueId());
+            message.setQueueOffset(offset + i);
+            message.putUserProperty(RuntimeConfigDefine.CONNECT_TIMESTAMP, String.valueOf(System.currentTimeMillis()));
+            message.setBody(("test-" + (offset + i)).getBytes(StandardCharsets.UTF_8));
+            messages.add(message);
+        }
+        return new PullResult(PullStatus.FOUND, offset + size, 0, offset + size, messages);
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.rocketmq.connect.runtime.connectorwrapper;
+
+import io.openmessaging.connector.api.data.ConnectRecord;
+import io.openmessaging.connector.api.data.RecordOffset;
+import io.openmessaging.connector.api.data.RecordPartition;
+import io.openmessaging.internal.DefaultKeyValue;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.rocketmq.client.exception.MQClientException;
+import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import org.apache.rocketmq.client.producer.SendCallback;
+import org.apache.rocketmq.client.producer.SendResult;
+import org.apache.rocketmq.client.producer.SendStatus;
+import org.apache.rocketmq.common.message.Message;
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.apache.rocketmq.connect.runtime.common.ConnectKeyValue;
+import org.apache.rocketmq.connect.runtime.config.RuntimeConfigDefine;
+import org.apache.rocketmq.connect.runtime.connectorwrapper.testimpl.TestSourceTask;
+import org.apache.rocketmq.connect.runtime.service.PositionManagementService;
+import org.apache.rocketmq.connect.runtime.stats.ConnectStatsManager;
+import org.apache.rocketmq.connect.runtime.stats.ConnectStatsService;
+import org.apache.rocketmq.connect.runtime.utils.Plugin;
+import org.apache.rocketmq.remoting.exception.RemotingException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class WorkerSourceTaskTest {
+
+    @Mock
+    private DefaultMQProducer producer;
+
+    @Mock
+    private PositionManagementService positionManagementService;
+
+    @Mock
+    private ConnectStatsManager connectStatsManager;
+
+    @Mock
+    private ConnectStatsService connectStatsService;
+
+    @Mock
+    private Plugin plugin;
+
+    @Test
+    public void testSendRecordBatchByTopic() throws Exception {
+        ConnectKeyValue taskConfig = new ConnectKeyValue();
+        taskConfig.put(WorkerSourceTask.SEND_BATCH_ENABLE_CONFIG, "true");
+        WorkerSourceTask workerSourceTask = newWorkerSourceTask(taskConfig);
+        when(producer.send(anyCollection())).thenReturn(new SendResult(SendStatus.SEND_OK, "msgId", "offsetMsgId", new MessageQueue("TEST-TOPIC-A", "broker", 0), 0));
+
+        List<ConnectRecord> records = new ArrayList<>();
+        records.add(newRecord("TEST-TOPIC-A", 1));
+        records.add(newRecord("TEST-TOPIC-B", 2));
+        records.add(newRecord("TEST-TOPIC-A", 3));
+        sendRecord(workerSourceTask, records);
+
+        ArgumentCaptor<Collection<Message>> batchCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(producer, times(2)).send(batchCaptor.capture());
+        List<Collection<Message>> batches = batchCaptor.getAllValues();
+        assertThat(batches.get(0)).extracting(Message::getTopic).containsExactly("TEST-TOPIC-A", "TEST-TOPIC-A");
+        assertThat(batches.get(1)).extracting(Message::getTopic).containsExactly("TEST-TOPIC-B");
+
+        flushPositions(workerSourceTask);
+        ArgumentCaptor<Map<RecordPartition, RecordOffset>> positionsCaptor = ArgumentCaptor.forClass(Map.class);
+        verify(positionManagementService).putPosition(positionsCaptor.capture());
+        assertThat(positionsCaptor.getValue()).hasSize(2);
+        assertThat(positionsCaptor.getValue().get(newRecord("TEST-TOPIC-A", 3).getPosition().getPartition()).getOffset().get("offset")).isEqualTo("3");
+    }
+
+    @Test
+    public void testPositionAdvancesOverAckedPrefix() throws Exception {
+        WorkerSourceTask workerSourceTask = newWorkerSourceTask(new ConnectKeyValue());
+        List<SendCallback> callbacks = new ArrayList<>();
+        doAnswer(invocation -> callbacks.add(invocation.getArgument(1))).when(producer).send(any(Message.class), any(SendCallback.class));
+
+        List<ConnectRecord> records = new ArrayList<>();
+        records.add(newRecord("TEST-TOPIC-A", 1));
+        records.add(newRecord("TEST-TOPIC-A", 2));
+        sendRecord(workerSourceTask, records);
+        assertThat(callbacks).hasSize(2);
+
+        SendResult sendResult = new SendResult(SendStatus.SEND_OK, "msgId", "offsetMsgId", new MessageQueue("TEST-TOPIC-A", "broker", 0), 0);
+        callbacks.get(1).onSuccess(sendResult);
+        flushPositions(workerSourceTask);
+        verify(positionManagementService, never()).putPosition(anyMap());
+
+        callbacks.get(0).onSuccess(sendResult);
+        flushPositions(workerSourceTask);
+        ArgumentCaptor<Map<RecordPartition, RecordOffset>> positionsCaptor = ArgumentCaptor.forClass(Map.class);
+        verify(positionManagementService).putPosition(positionsCaptor.capture());
+        assertThat(positionsCaptor.getValue()).hasSize(1);
+        assertThat(positionsCaptor.getValue().values().iterator().next().getOffset().get("offset")).isEqualTo("2");
+    }
+
+    @Test
+    public void testFailedSendIsRetried() throws Exception {
+        WorkerSourceTask workerSourceTask = newWorkerSourceTask(new ConnectKeyValue());
+        List<SendCallback> callbacks = new ArrayList<>();
+        doAnswer(invocation -> callbacks.add(invocation.getArgument(1))).when(producer).send(any(Message.class), any(SendCallback.class));
+
+        List<ConnectRecord> records = new ArrayList<>();
+        records.add(newRecord("TEST-TOPIC-A", 1));
+        records.add(newRecord("TEST-TOPIC-A", 2));
+        sendRecord(workerSourceTask, records);
+        callbacks.get(0).onException(new RemotingException("send failed"));
+        SendResult sendResult = new SendResult(SendStatus.SEND_OK, "msgId", "offsetMsgId", new MessageQueue("TEST-TOPIC-A", "broker", 0), 0);
+        callbacks.get(1).onSuccess(sendResult);
+        assertThat(workerSourceTask.getState()).isNotEqualTo(WorkerTaskState.ERROR);
+        flushPositions(workerSourceTask);
+        verify(positionManagementService, never()).putPosition(anyMap());
+
+        Method resendFailedSendsMethod = WorkerSourceTask.class.getDeclaredMethod("resendFailedSends");
+        resendFailedSendsMethod.setAccessible(true);
+        long deadline = System.currentTimeMillis() + 3000;
+        while (callbacks.size() < 3 && System.currentTimeMillis() < deadline) {
+            resendFailedSendsMethod.invoke(workerSourceTask);
+            Thread.sleep(10);
+        }
+        assertThat(callbacks).hasSize(3);
+        callbacks.get(2).onSuccess(sendResult);
+        flushPositions(workerSourceTask);
+        ArgumentCaptor<Map<RecordPartition, RecordOffset>> positionsCaptor = ArgumentCaptor.forClass(Map.class);
+        verify(positionManagementService).putPosition(positionsCaptor.capture());
+        assertThat(positionsCaptor.getValue().values().iterator().next().getOffset().get("offset")).isEqualTo("2");
+    }
+
+    @Test
+    public void testFailedSendKeepsPosition() throws Exception {
+        ConnectKeyValue taskConfig = new ConnectKeyValue();
+        taskConfig.put(WorkerSourceTask.SEND_RETRY_MAX_CONFIG, 0);
+        WorkerSourceTask workerSourceTask = newWorkerSourceTask(taskConfig);
+        List<SendCallback> callbacks = new ArrayList<>();
+        doAnswer(invocation -> callbacks.add(invocation.getArgument(1))).when(producer).send(any(Message.class), any(SendCallback.class));
+
+        List<ConnectRecord> records = new ArrayList<>();
+        records.add(newRecord("TEST-TOPIC-A", 1));
+        records.add(newRecord("TEST-TOPIC-A", 2));
+        sendRecord(workerSourceTask, records);
+        callbacks.get(0).onException(new RemotingException("send failed"));
+        callbacks.get(1).onSuccess(new SendResult(SendStatus.SEND_OK, "msgId", "offsetMsgId", new MessageQueue("TEST-TOPIC-A", "broker", 0), 0));
+
+        flushPositions(workerSourceTask);
+        verify(positionManagementService, never()).putPosition(anyMap());
+        assertThat(workerSourceTask.getState()).isEqualTo(WorkerTaskState.ERROR);
+    }
+
+    @Test
+    public void testSendRecordBatchOrderedByPartition() throws Exception {
+        ConnectKeyValue taskConfig = new ConnectKeyValue();
+        taskConfig.put(WorkerSourceTask.SEND_BATCH_ENABLE_CONFIG, "true");
+        taskConfig.put(WorkerSourceTask.SEND_ORDER_ENABLE_CONFIG, "true");
+        taskConfig.put(RuntimeConfigDefine.CONNECT_TOPICNAME, "TEST-TOPIC");
+        WorkerSourceTask workerSourceTask = newWorkerSourceTask(taskConfig);
+        List<MessageQueue> queues = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            queues.add(new MessageQueue("TEST-TOPIC", "broker", i));
+        }
+        when(producer.fetchPublishMessageQueues("TEST-TOPIC")).thenReturn(queues);
+        when(producer.send(anyCollection(), any(MessageQueue.class))).thenReturn(new SendResult(SendStatus.SEND_OK, "msgId", "offsetMsgId", queues.get(0), 0));
+
+        List<ConnectRecord> records = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            records.add(newRecord("TEST-PARTITION-" + i % 2, i));
+        }
+        sendRecord(workerSourceTask, records);
+
+        ArgumentCaptor<Collection<Message>> batchCaptor = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<MessageQueue> queueCaptor = ArgumentCaptor.forClass(MessageQueue.class);
+        verify(producer, times(2)).send(batchCaptor.capture(), queueCaptor.capture());
+        for (Collection<Message> batch : batchCaptor.getAllValues()) {
+            assertThat(batch).hasSize(3);
+        }
+        assertThat(queueCaptor.getAllValues().get(0)).isNotEqualTo(queueCaptor.getAllValues().get(1));
+        assertThat(new ArrayList<>(batchCaptor.getAllValues().get(0))).extracting(message -> new String(message.getBody()))
+            .containsExactly("data-0", "data-2", "data-4");
+        verify(producer).fetchPublishMessageQueues("TEST-TOPIC");
+    }
+
+    @Test
+    public void testOrderedSendKeepsOneSendInFlightPerQueue() throws Exception {
+        ConnectKeyValue taskConfig = new ConnectKeyValue();
+        taskConfig.put(WorkerSourceTask.SEND_ORDER_ENABLE_CONFIG, "true");
+        taskConfig.put(RuntimeConfigDefine.CONNECT_TOPICNAME, "TEST-TOPIC");
+        WorkerSourceTask workerSourceTask = newWorkerSourceTask(taskConfig);
+        List<MessageQueue> queues = new ArrayList<>();
+        for (int i = 7; i >= 0; i--) {
+            queues.add(new MessageQueue("TEST-TOPIC", "broker", i));
+        }
+        when(producer.fetchPublishMessageQueues("TEST-TOPIC")).thenReturn(queues);
+        List<Message> sentMessages = new ArrayList<>();
+        List<MessageQueue> sentQueues = new ArrayList<>();
+        List<SendCallback> callbacks = new ArrayList<>();
+        doAnswer(invocation -> {
+            sentMessages.add(invocation.getArgument(0));
+            sentQueues.add(invocation.getArgument(1));
+            return callbacks.add(invocation.getArgument(2));
+        }).when(producer).send(any(Message.class), any(MessageQueue.class), any(SendCallback.class));
+
+        List<ConnectRecord> records = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            records.add(newRecord("TEST-PARTITION-" + i % 2, i));
+        }
+        sendRecord(workerSourceTask, records);
+
+        assertThat(sentMessages).extracting(message -> new String(message.getBody())).containsExactly("data-0", "data-1");
+        assertThat(sentQueues.get(0)).isNotEqualTo(sentQueues.get(1));
+        callbacks.get(0).onSuccess(new SendResult(SendStatus.SEND_OK, "msgId", "offsetMsgId", sentQueues.get(0), 0));
+        assertThat(sentMessages).extracting(message -> new String(message.getBody())).containsExactly("data-0", "data-1", "data-2");
+        assertThat(sentQueues.get(2)).isEqualTo(sentQueues.get(0));
+
+        // the batch path selects the same queue for the same partition
+        taskConfig.put(WorkerSourceTask.SEND_BATCH_ENABLE_CONFIG, "true");
+        WorkerSourceTask batchSourceTask = newWorkerSourceTask(taskConfig);
+        when(producer.send(anyCollection(), any(MessageQueue.class))).thenReturn(new SendResult(SendStatus.SEND_OK, "msgId", "offsetMsgId", queues.get(0), 0));
+        List<ConnectRecord> batchRecords = new ArrayList<>();
+        batchRecords.add(newRecord("TEST-PARTITION-0", 4));
+        sendRecord(batchSourceTask, batchRecords);
+        ArgumentCaptor<MessageQueue> queueCaptor = ArgumentCaptor.forClass(MessageQueue.class);
+        verify(producer).send(anyCollection(), queueCaptor.capture());
+        assertThat(queueCaptor.getValue()).isEqualTo(sentQueues.get(0));
+    }
+
+    @Test
+    public void testOrderedSendFailsWithoutPublishQueues() throws Exception {
+        ConnectKeyValue taskConfig = new ConnectKeyValue();
+        taskConfig.put(WorkerSourceTask.SEND_ORDER_ENABLE_CONFIG, "true");
+        taskConfig.put(WorkerSourceTask.SEND_RETRY_MAX_CONFIG, 0);
+        taskConfig.put(RuntimeConfigDefine.CONNECT_TOPICNAME, "TEST-TOPIC");
+        WorkerSourceTask workerSourceTask = newWorkerSourceTask(taskConfig);
+        when(producer.fetchPublishMessageQueues("TEST-TOPIC")).thenThrow(new MQClientException("no route", null));
+
+        List<ConnectRecord> records = new ArrayList<>();
+        records.add(newRecord("TEST-PARTITION-0", 1));
+        sendRecord(workerSourceTask, records);
+
+        verify(producer, never()).send(any(Message.class), any(SendCallback.class));
+        verify(producer, never()).send(any(Message.class), any(MessageQueue.class), any(SendCallback.class));
+        assertThat(workerSourceTask.getState()).isEqualTo(WorkerTaskState.ERROR);
+    }
+
+    private WorkerSourceTask newWorkerSourceTask(ConnectKeyValue taskConfig) {
+        taskConfig.put(RuntimeConfigDefine.TASK_ID, "TEST-TASK-0");
+        return new WorkerSourceTask("TEST-CONN-0",
+            new TestSourceTask(),
+            taskConfig,
+            positionManagementService,
+            null,
+            producer,
+            new AtomicReference(WorkerState.STARTED),
+            connectStatsManager, connectStatsService, null,
+            new TransformChain<ConnectRecord>(new DefaultKeyValue(), plugin));
+    }
+
+    private ConnectRecord newRecord(String topic, long offset) {
+        Map<String, String> partition = new HashMap<>();
+        partition.put(WorkerSinkTask.TOPIC, topic);
+        Map<String, String> position = new HashMap<>();
+        position.put("offset", String.valueOf(offset));
+        return new ConnectRecord(new RecordPartition(partition), new RecordOffset(position), offset, null, "data-" + offset);
+    }
+
+    private void flushPositions(WorkerSourceTask workerSourceTask) throws Exception {
+        Method flushPositionsMethod = WorkerSourceTask.class.getDeclaredMethod("flushPositions", boolean.class);
+        flushPositionsMethod.setAccessible(true);
+        flushPositionsMethod.invoke(workerSourceTask, true);
+    }
+
+    private void sendRecord(WorkerSourceTask workerSourceTask, List<ConnectRecord> records) throws Exception {
+        Field toSendRecordField = WorkerSourceTask.class.getDeclaredField("toSendRecord");
+        toSendRecordField.setAccessible(true);
+        toSendRecordField.set(workerSourceTask, records);
+        Method sendRecordMethod = WorkerSourceTask.class.getDeclaredMethod("sendRecord");
+        sendRecordMethod.setAccessible(true);
+        sendRecordMethod.invoke(workerSourceTask);
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.rocketmq.connect.runtime.connectorwrapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WorkerTaskStateHolderTest {
+
+    @Test
+    public void testPublishStateChanges() {
+        List<WorkerTaskState> changes = new ArrayList<>();
+        WorkerTaskStateHolder state = new WorkerTaskStateHolder(null);
+        state.setListener((workerTask, from, to) -> changes.add(to));
+
+        assertThat(state.compareAndSet(WorkerTaskState.NEW, WorkerTaskState.PENDING)).isTrue();
+        assertThat(state.compareAndSet(WorkerTaskState.NEW, WorkerTaskState.RUNNING)).isFalse();
+        state.set(WorkerTaskState.PENDING);
+        state.set(WorkerTaskState.ERROR);
+
+        assertThat(state.get()).isEqualTo(WorkerTaskState.ERROR);
+        assertThat(changes).containsExactly(WorkerTaskState.PENDING, WorkerTaskState.ERROR);
+    }
+}
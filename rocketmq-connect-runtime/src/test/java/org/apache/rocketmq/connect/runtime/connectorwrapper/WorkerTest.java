@@ -21,6 +21,7 @@ import io.openmessaging.connector.api.component.connector.ConnectorContext;
 import io.openmessaging.connector.api.data.ConnectRecord;
 import io.openmessaging.internal.DefaultKeyValue;
 import java.io.File;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -28,6 +29,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import org.apache.rocketmq.client.producer.DefaultMQProducer;
 import org.apache.rocketmq.connect.runtime.ConnectController;
@@ -93,6 +100,7 @@ public class WorkerTest {
         connectConfig.setHttpPort(8081);
         connectConfig.setStorePathRootDir(System.getProperty("user.home") + File.separator + "testConnectorStore");
         connectConfig.setNamesrvAddr("localhost:9876");
+        connectConfig.setTaskLifecycleThreadNums(2);
         worker = new Worker(connectConfig, positionManagementService, configManagementService, plugin, connectController);
 
         Set<WorkerConnector> workingConnectors = new HashSet<>();
@@ -117,7 +125,7 @@ public class WorkerTest {
                 new TestConverter(),
                 producer,
                 new AtomicReference(WorkerState.STARTED),
-                connectStatsManager, connectStatsService,
+                connectStatsManager, connectStatsService, null,
                 transformChain));
         }
         worker.setWorkingTasks(runnables);
@@ -184,5 +192,65 @@ public class WorkerTest {
             assertThat(connectorName).isIn("TEST-CONN-0", "TEST-CONN-1", "TEST-CONN-2", "TEST-CONN-3");
         }
     }
+
+    @Test
+    public void testMaintainTaskStateKeepsKnownTasks() throws Exception {
+        Map<String, List<ConnectKeyValue>> taskConfigs = new HashMap<>();
+        for (int i = 0; i < 3; i++) {
+            ConnectKeyValue connectKeyValue = new ConnectKeyValue();
+            connectKeyValue.getProperties().put("key1", "TEST-TASK-" + i + "1");
+            connectKeyValue.getProperties().put("key2", "TEST-TASK-" + i + "2");
+            List<ConnectKeyValue> connectKeyValues = new ArrayList<>();
+            connectKeyValues.add(connectKeyValue);
+            taskConfigs.put("TEST-CONN-" + i, connectKeyValues);
+        }
+
+        worker.startTasks(taskConfigs);
+        worker.maintainTaskState();
+
+        assertThat(worker.getPendingTasks()).isEmpty();
+        assertThat(worker.getWorkingTasks().size()).isEqualTo(3);
+    }
+
+    @Test
+    public void testTaskLifecycleActionsRunWithBoundedConcurrency() throws Exception {
+        CountDownLatch bothThreadsBusy = new CountDownLatch(2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger finished = new AtomicInteger();
+        List<Runnable> actions = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            actions.add(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                bothThreadsBusy.countDown();
+                try {
+                    bothThreadsBusy.await(3000, TimeUnit.MILLISECONDS);
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                finished.incrementAndGet();
+            });
+        }
+        Method runTaskLifecycleActions = Worker.class.getDeclaredMethod("runTaskLifecycleActions", List.class);
+        runTaskLifecycleActions.setAccessible(true);
+        runTaskLifecycleActions.invoke(worker, actions);
+
+        assertThat(finished.get()).isEqualTo(6);
+        assertThat(maxRunning.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testNewTaskExecutor() throws Exception {
+        ExecutorService platformExecutor = Worker.newTaskExecutor("platform");
+        assertThat(platformExecutor).isInstanceOf(ThreadPoolExecutor.class);
+        platformExecutor.shutdown();
+
+        ExecutorService executor = Worker.newTaskExecutor(Worker.TASK_EXECUTOR_MODE_VIRTUAL);
+        Future<String> future = executor.submit(() -> Thread.currentThread().getName());
+        assertThat(future.get(3000, TimeUnit.MILLISECONDS)).startsWith("task-Worker-Executor-");
+        executor.shutdown();
+    }
 }
 
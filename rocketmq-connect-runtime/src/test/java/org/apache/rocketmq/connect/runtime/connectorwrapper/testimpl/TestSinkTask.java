@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.rocketmq.connect.runtime.connectorwrapper.testimpl;
+
+import io.openmessaging.KeyValue;
+import io.openmessaging.connector.api.component.task.sink.SinkTask;
+import io.openmessaging.connector.api.component.task.sink.SinkTaskContext;
+import io.openmessaging.connector.api.data.ConnectRecord;
+import io.openmessaging.connector.api.errors.RetriableException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestSinkTask extends SinkTask {
+
+    private final List<ConnectRecord> records = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger putTimes = new AtomicInteger();
+
+    private final AtomicInteger putFailures = new AtomicInteger();
+
+    @Override
+    public void put(List<ConnectRecord> sinkRecords) {
+        if (putFailures.getAndUpdate(failures -> Math.max(0, failures - 1)) > 0) {
+            throw new RetriableException("put failure");
+        }
+        records.addAll(sinkRecords);
+        putTimes.incrementAndGet();
+    }
+
+    public List<ConnectRecord> getRecords() {
+        return records;
+    }
+
+    public int getPutTimes() {
+        return putTimes.get();
+    }
+
+    /**
+     * Fail the next put calls with a RetriableException.
+     */
+    public void failNextPuts(int failures) {
+        putFailures.set(failures);
+    }
+
+    @Override public void validate(KeyValue config) {
+
+    }
+
+    @Override public void init(KeyValue config) {
+
+    }
+
+    @Override public void start(SinkTaskContext sinkTaskContext) {
+
+    }
+
+    @Override
+    public void stop() {
+
+    }
+
+    @Override
+    public void pause() {
+
+    }
+
+    @Override
+    public void resume() {
+
+    }
+}
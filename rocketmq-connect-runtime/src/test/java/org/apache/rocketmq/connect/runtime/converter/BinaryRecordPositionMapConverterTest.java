@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.rocketmq.connect.runtime.converter;
+
+import io.openmessaging.connector.api.data.RecordOffset;
+import io.openmessaging.connector.api.data.RecordPartition;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.rocketmq.connect.runtime.common.QueueOffsetMap;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BinaryRecordPositionMapConverterTest {
+
+    private static RecordPartition queuePartition(int queueId) {
+        Map<String, String> partition = new HashMap<>();
+        partition.put("topic", "test-topic");
+        partition.put("brokerName", "broker-a");
+        partition.put("queueId", String.valueOf(queueId));
+        return new RecordPartition(partition);
+    }
+
+    @Test
+    public void testPositionMapRoundTrip() {
+        Map<RecordPartition, RecordOffset> positions = new HashMap<>();
+        for (int i = 0; i < 16; i++) {
+            Map<String, Object> offset = new HashMap<>();
+            offset.put("queueOffset", String.valueOf(100000L + i));
+            offset.put("custom-key", "value-" + i);
+            offset.put("int-value", -i);
+            offset.put("long-value", Long.MAX_VALUE - i);
+            offset.put("null-value", null);
+            positions.put(queuePartition(i), new RecordOffset(offset));
+        }
+
+        BinaryRecordPositionMapConverter converter = new BinaryRecordPositionMapConverter();
+        byte[] bytes = converter.objectToByte(positions);
+        assertThat(BinaryPositionCodec.isBinary(bytes)).isTrue();
+        assertThat(bytes.length).isLessThan(new RecordPositionMapConverter().objectToByte(positions).length / 2);
+        assertThat(converter.byteToObject(bytes)).isEqualTo(positions);
+    }
+
+    @Test
+    public void testReadsJson() {
+        Map<RecordPartition, RecordOffset> positions = new HashMap<>();
+        Map<String, String> offset = new HashMap<>();
+        offset.put("queueOffset", "12");
+        positions.put(queuePartition(1), new RecordOffset(offset));
+
+        byte[] json = new RecordPositionMapConverter().objectToByte(positions);
+        assertThat(new BinaryRecordPositionMapConverter().byteToObject(json)).isEqualTo(positions);
+
+        byte[] partitionJson = new RecordPartitionConverter().objectToByte(queuePartition(1));
+        assertThat(new BinaryRecordPartitionConverter().byteToObject(partitionJson)).isEqualTo(queuePartition(1));
+        byte[] offsetJson = new RecordOffsetConverter().objectToByte(new RecordOffset(offset));
+        assertThat(new BinaryRecordOffsetConverter().byteToObject(offsetJson)).isEqualTo(new RecordOffset(offset));
+    }
+
+    @Test
+    public void testQueueOffsetMap() {
+        BinaryRecordOffsetConverter converter = new BinaryRecordOffsetConverter();
+        RecordOffset offset = converter.byteToObject(converter.objectToByte(new RecordOffset(new QueueOffsetMap(42L))));
+        assertThat(offset.getOffset().get("queueOffset")).isEqualTo("42");
+    }
+
+    @Test
+    public void testCanonicalDecimal() {
+        assertThat(BinaryPositionCodec.parseCanonicalDecimal("0")).isEqualTo(0L);
+        assertThat(BinaryPositionCodec.parseCanonicalDecimal("-12")).isEqualTo(-12L);
+        assertThat(BinaryPositionCodec.parseCanonicalDecimal("012")).isNull();
+        assertThat(BinaryPositionCodec.parseCanonicalDecimal("-0")).isNull();
+        assertThat(BinaryPositionCodec.parseCanonicalDecimal("99999999999999999999")).isNull();
+        assertThat(BinaryPositionCodec.parseCanonicalDecimal("1a")).isNull();
+    }
+}
@@ -51,12 +51,16 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.mockito.stubbing.Answer;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 @RunWith(MockitoJUnitRunner.class)
 public class PositionManagementServiceImplTest {
@@ -170,6 +174,15 @@ public class PositionManagementServiceImplTest {
         assertNotNull(bytes);
     }
 
+    @Test
+    public void testReadPositionWithoutVersion() {
+        positionManagementService.putPosition(positions);
+
+        assertTrue(PositionManagementServiceImpl.getVersion(positionStore.get(sourcePartition)) > 0);
+        assertEquals(positions.get(sourcePartition).getOffset(), positionManagementService.getPosition(sourcePartition).getOffset());
+        assertEquals(positions.get(sourcePartition).getOffset(), positionManagementService.getPositionTable().get(sourcePartition).getOffset());
+    }
+
     @Test
     public void testPutPosition() throws Exception {
         RecordOffset bytes = positionStore.get(sourcePartition);
@@ -265,4 +278,70 @@ public class PositionManagementServiceImplTest {
         assertTrue(needSyncPartition.size() == 0);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testAnswerOnlyLiveAnnouncementsWithSnapshot() throws Exception {
+        positionManagementService.putPosition(positions);
+        final Field dataSynchronizerField = PositionManagementServiceImpl.class.getDeclaredField("dataSynchronizer");
+        dataSynchronizerField.setAccessible(true);
+        final Field dataSynchronizerCallbackField = BrokerBasedLog.class.getDeclaredField("dataSynchronizerCallback");
+        dataSynchronizerCallbackField.setAccessible(true);
+        final DataSynchronizerCallback<String, Map<RecordPartition, RecordOffset>> dataSynchronizerCallback =
+            (DataSynchronizerCallback<String, Map<RecordPartition, RecordOffset>>) dataSynchronizerCallbackField.get(dataSynchronizerField.get(positionManagementService));
+        final Field announcedField = PositionManagementServiceImpl.class.getDeclaredField("announced");
+        announcedField.setAccessible(true);
+        final Field bootIdField = PositionManagementServiceImpl.class.getDeclaredField("bootId");
+        bootIdField.setAccessible(true);
+        assertTrue((Boolean) announcedField.get(positionManagementService));
+        announcedField.set(positionManagementService, false);
+        clearInvocations(producer);
+
+        // replayed announcement of another boot, consumed before the own one
+        dataSynchronizerCallback.onCompletion(null, "ONLINE_KEY", newAnnouncement("replayed-boot"));
+        dataSynchronizerCallback.onCompletion(null, "ONLINE_KEY", newAnnouncement((String) bootIdField.get(positionManagementService)));
+        verify(producer, never()).send(any(Message.class), any(SendCallback.class));
+
+        dataSynchronizerCallback.onCompletion(null, "ONLINE_KEY", newAnnouncement("live-boot"));
+        verify(producer).send(any(Message.class), any(SendCallback.class));
+    }
+
+    private Map<RecordPartition, RecordOffset> newAnnouncement(String bootId) {
+        Map<RecordPartition, RecordOffset> announcement = new HashMap<>();
+        announcement.put(new RecordPartition(Maps.newHashMap("worker-boot-id", bootId)), new RecordOffset(new HashMap<>()));
+        return announcement;
+    }
+
+    @Test
+    public void testMergePositionInfoByVersion() throws Exception {
+        positionManagementService.putPosition(positions);
+        RecordOffset localPosition = positionStore.get(sourcePartition);
+        long localVersion = PositionManagementServiceImpl.getVersion(localPosition);
+        assertTrue(localVersion > 0);
+
+        Method mergeMethod = PositionManagementServiceImpl.class.getDeclaredMethod("mergePositionInfo", Map.class);
+        mergeMethod.setAccessible(true);
+
+        Map<String, String> staleOffset = Maps.newHashMap("next_position", "50");
+        staleOffset.put("position-version", String.valueOf(localVersion - 1));
+        Map<RecordPartition, RecordOffset> stale = new HashMap<>();
+        stale.put(sourcePartition, new RecordOffset(staleOffset));
+        assertFalse((Boolean) mergeMethod.invoke(positionManagementService, stale));
+        assertEquals(localPosition, positionStore.get(sourcePartition));
+
+        Map<String, String> newerOffset = Maps.newHashMap("next_position", "200");
+        newerOffset.put("position-version", String.valueOf(localVersion + 1));
+        Map<RecordPartition, RecordOffset> newer = new HashMap<>();
+        newer.put(sourcePartition, new RecordOffset(newerOffset));
+        assertTrue((Boolean) mergeMethod.invoke(positionManagementService, newer));
+        assertEquals("200", positionStore.get(sourcePartition).getOffset().get("next_position"));
+        assertFalse((Boolean) mergeMethod.invoke(positionManagementService, newer));
+
+        Map<RecordPartition, RecordOffset> unversioned = new HashMap<>();
+        unversioned.put(sourcePartition, new RecordOffset(Maps.newHashMap("next_position", "10")));
+        assertFalse((Boolean) mergeMethod.invoke(positionManagementService, unversioned));
+        assertEquals("200", positionStore.get(sourcePartition).getOffset().get("next_position"));
+
+        positionManagementService.putPosition(positions);
+        assertTrue(PositionManagementServiceImpl.getVersion(positionStore.get(sourcePartition)) > localVersion + 1);
+    }
+
+}
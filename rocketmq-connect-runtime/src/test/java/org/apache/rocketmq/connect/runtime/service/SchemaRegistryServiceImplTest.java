@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.rocketmq.connect.runtime.service;
+
+import io.openmessaging.connector.api.data.Schema;
+import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import org.apache.rocketmq.connect.runtime.config.ConnectConfig;
+import org.apache.rocketmq.connect.runtime.utils.TestUtils;
+import org.apache.rocketmq.connect.runtime.utils.datasync.DataSynchronizer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SchemaRegistryServiceImplTest {
+
+    @Mock
+    private DataSynchronizer<String, Map<String, String>> dataSynchronizer;
+
+    private SchemaRegistryServiceImpl schemaRegistryService;
+
+    private String storePath;
+
+    @Before
+    public void init() throws Exception {
+        storePath = System.getProperty("user.home") + File.separator + "testSchemaStore";
+        ConnectConfig connectConfig = new ConnectConfig();
+        connectConfig.setStorePathRootDir(storePath);
+        connectConfig.setNamesrvAddr("127.0.0.1:9876");
+        connectConfig.setRmqProducerGroup(UUID.randomUUID().toString());
+        connectConfig.setRmqConsumerGroup(UUID.randomUUID().toString());
+        connectConfig.setSchemaResolveTimeoutMillis(200);
+        schemaRegistryService = new SchemaRegistryServiceImpl(connectConfig);
+
+        Field dataSynchronizerField = SchemaRegistryServiceImpl.class.getDeclaredField("dataSynchronizer");
+        dataSynchronizerField.setAccessible(true);
+        dataSynchronizerField.set(schemaRegistryService, dataSynchronizer);
+        schemaRegistryService.start();
+    }
+
+    @After
+    public void destroy() {
+        schemaRegistryService.stop();
+        TestUtils.deleteFile(new File(storePath));
+    }
+
+    @Test
+    public void testRegisterSchema() {
+        String schemaId = schemaRegistryService.registerSchema(newSchema("test"));
+
+        assertThat(schemaRegistryService.registerSchema(newSchema("test"))).isEqualTo(schemaId);
+        assertThat(schemaRegistryService.registerSchema(newSchema("other"))).isNotEqualTo(schemaId);
+        assertThat(schemaRegistryService.getSchema(schemaId)).contains("\"name\":\"test\"");
+        verify(dataSynchronizer, times(2)).send(eq("SCHEMA_CHANGE_KEY"), anyMap());
+    }
+
+    @Test
+    public void testGetSchemaWaitsForSynchronizedSchema() throws Exception {
+        assertThat(schemaRegistryService.getSchema("unknown")).isNull();
+
+        Method mergeSchemasMethod = SchemaRegistryServiceImpl.class.getDeclaredMethod("mergeSchemas", Map.class);
+        mergeSchemasMethod.setAccessible(true);
+        Thread synchronizeThread = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+                mergeSchemasMethod.invoke(schemaRegistryService, Collections.singletonMap("remote", "{\"name\":\"remote\"}"));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        synchronizeThread.start();
+
+        assertThat(schemaRegistryService.getSchema("remote")).isEqualTo("{\"name\":\"remote\"}");
+        synchronizeThread.join();
+    }
+
+    private Schema newSchema(String name) {
+        Schema schema = new Schema();
+        schema.setName(name);
+        return schema;
+    }
+}
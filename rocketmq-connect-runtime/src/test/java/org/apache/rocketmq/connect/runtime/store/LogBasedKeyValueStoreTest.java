@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.rocketmq.connect.runtime.store;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import org.apache.rocketmq.connect.runtime.converter.JsonConverter;
+import org.apache.rocketmq.connect.runtime.utils.TestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LogBasedKeyValueStoreTest {
+
+    private static final String STORE_DIR = "target/unit_test_store/testLogBasedKeyValueStore";
+
+    private static final String STORE_PATH = STORE_DIR + "/000";
+
+    @Before
+    public void before() {
+        TestUtils.deleteFile(new File(STORE_DIR));
+    }
+
+    @After
+    public void after() {
+        TestUtils.deleteFile(new File(STORE_DIR));
+    }
+
+    private LogBasedKeyValueStore<String, String> newStore(long compactionThresholdBytes) {
+        return new LogBasedKeyValueStore<>(STORE_PATH, new JsonConverter(String.class), new JsonConverter(String.class),
+            true, compactionThresholdBytes);
+    }
+
+    @Test
+    public void testPersistAndReplay() {
+        LogBasedKeyValueStore<String, String> store = newStore(1024 * 1024);
+        assertThat(store.load()).isTrue();
+        store.put("key1", "value1");
+        store.put("key2", "value2");
+        store.persist();
+        store.put("key1", "value1-updated");
+        store.remove("key2");
+        store.persist();
+
+        LogBasedKeyValueStore<String, String> reloaded = newStore(1024 * 1024);
+        assertThat(reloaded.load()).isTrue();
+        assertThat(reloaded.size()).isEqualTo(1);
+        assertThat(reloaded.get("key1")).isEqualTo("value1-updated");
+        assertThat(reloaded.containsKey("key2")).isFalse();
+    }
+
+    @Test
+    public void testOnlyDirtyEntriesAppended() {
+        LogBasedKeyValueStore<String, String> store = newStore(1024 * 1024);
+        store.load();
+        store.put("key1", "value1");
+        store.persist();
+        long length = new File(STORE_PATH + ".log").length();
+        store.persist();
+        assertThat(new File(STORE_PATH + ".log").length()).isEqualTo(length);
+    }
+
+    @Test
+    public void testCompaction() {
+        LogBasedKeyValueStore<String, String> store = newStore(256);
+        store.load();
+        for (int i = 0; i < 20; i++) {
+            store.put("key", "value" + i);
+            store.persist();
+        }
+        assertThat(new File(STORE_PATH + ".snapshot").exists()).isTrue();
+        assertThat(new File(STORE_PATH + ".log").length()).isLessThan(256);
+
+        LogBasedKeyValueStore<String, String> reloaded = newStore(256);
+        reloaded.load();
+        assertThat(reloaded.get("key")).isEqualTo("value19");
+    }
+
+    @Test
+    public void testTornRecordIgnored() throws Exception {
+        LogBasedKeyValueStore<String, String> store = newStore(1024 * 1024);
+        store.load();
+        store.put("key1", "value1");
+        store.persist();
+        store.put("key2", "value2");
+        store.persist();
+
+        File logFile = new File(STORE_PATH + ".log");
+        try (RandomAccessFile file = new RandomAccessFile(logFile, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        LogBasedKeyValueStore<String, String> reloaded = newStore(1024 * 1024);
+        assertThat(reloaded.load()).isTrue();
+        assertThat(reloaded.get("key1")).isEqualTo("value1");
+        assertThat(reloaded.containsKey("key2")).isFalse();
+
+        reloaded.put("key3", "value3");
+        reloaded.persist();
+        LogBasedKeyValueStore<String, String> again = newStore(1024 * 1024);
+        again.load();
+        assertThat(again.get("key3")).isEqualTo("value3");
+    }
+
+    @Test
+    public void testLoadFromJsonFile() {
+        FileBaseKeyValueStore<String, String> fileStore = new FileBaseKeyValueStore<>(STORE_PATH,
+            new JsonConverter(String.class), new JsonConverter(String.class));
+        fileStore.put("key1", "value1");
+        fileStore.persist();
+
+        LogBasedKeyValueStore<String, String> store = newStore(1024 * 1024);
+        assertThat(store.load()).isTrue();
+        assertThat(store.get("key1")).isEqualTo("value1");
+        store.persist();
+
+        LogBasedKeyValueStore<String, String> reloaded = newStore(1024 * 1024);
+        reloaded.load();
+        assertThat(reloaded.get("key1")).isEqualTo("value1");
+    }
+}
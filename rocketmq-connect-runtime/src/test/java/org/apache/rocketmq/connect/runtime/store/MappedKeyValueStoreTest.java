@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.rocketmq.connect.runtime.store;
+
+import io.openmessaging.connector.api.data.RecordOffset;
+import io.openmessaging.connector.api.data.RecordPartition;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.rocketmq.connect.runtime.converter.JsonConverter;
+import org.apache.rocketmq.connect.runtime.converter.RecordOffsetConverter;
+import org.apache.rocketmq.connect.runtime.converter.RecordPartitionConverter;
+import org.apache.rocketmq.connect.runtime.utils.TestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MappedKeyValueStoreTest {
+
+    private static final String STORE_DIR = "target/unit_test_store/testMappedKeyValueStore";
+
+    private static final String STORE_PATH = STORE_DIR + "/000";
+
+    @Before
+    public void before() {
+        TestUtils.deleteFile(new File(STORE_DIR));
+    }
+
+    @After
+    public void after() {
+        TestUtils.deleteFile(new File(STORE_DIR));
+    }
+
+    private MappedKeyValueStore<RecordPartition, RecordOffset> newStore() {
+        MappedKeyValueStore<RecordPartition, RecordOffset> store = new MappedKeyValueStore<>(STORE_PATH,
+            new RecordPartitionConverter(), new RecordOffsetConverter(), 128, true);
+        assertThat(store.load()).isTrue();
+        return store;
+    }
+
+    private static RecordPartition partition(String queue) {
+        Map<String, String> partition = new HashMap<>();
+        partition.put("queue", queue);
+        return new RecordPartition(partition);
+    }
+
+    private static RecordOffset offset(String offset) {
+        Map<String, String> position = new HashMap<>();
+        position.put("offset", offset);
+        return new RecordOffset(position);
+    }
+
+    @Test
+    public void testPutUpdateRemoveAndReload() {
+        MappedKeyValueStore<RecordPartition, RecordOffset> store = newStore();
+        for (int i = 0; i < 2000; i++) {
+            store.put(partition("q" + i), offset(String.valueOf(i)));
+        }
+        store.put(partition("q1"), offset("100"));
+        store.remove(partition("q2"));
+        store.persist();
+        assertThat(store.get(partition("q1"))).isEqualTo(offset("100"));
+
+        MappedKeyValueStore<RecordPartition, RecordOffset> reloaded = newStore();
+        assertThat(reloaded.size()).isEqualTo(1999);
+        assertThat(reloaded.get(partition("q1"))).isEqualTo(offset("100"));
+        assertThat(reloaded.get(partition("q1999"))).isEqualTo(offset("1999"));
+        assertThat(reloaded.containsKey(partition("q2"))).isFalse();
+        assertThat(reloaded.getKVMap()).hasSize(1999);
+
+        reloaded.put(partition("q2000"), offset("2000"));
+        assertThat(reloaded.size()).isEqualTo(2000);
+    }
+
+    @Test
+    public void testOversizedEntryOverflows() {
+        MappedKeyValueStore<RecordPartition, RecordOffset> store = newStore();
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            large.append('x');
+        }
+        store.put(partition("q0"), offset(large.toString()));
+        store.persist();
+
+        MappedKeyValueStore<RecordPartition, RecordOffset> reloaded = newStore();
+        assertThat(reloaded.get(partition("q0"))).isEqualTo(offset(large.toString()));
+
+        reloaded.put(partition("q0"), offset("1"));
+        reloaded.persist();
+        assertThat(newStore().get(partition("q0"))).isEqualTo(offset("1"));
+
+        // the slot is written through the mapping, the overflow entry it points to must be durable without persist
+        reloaded.put(partition("q1"), offset(large.toString()));
+        assertThat(newStore().get(partition("q1"))).isEqualTo(offset(large.toString()));
+    }
+
+    @Test
+    public void testTornWriteKeepsPreviousValue() throws Exception {
+        MappedKeyValueStore<RecordPartition, RecordOffset> store = newStore();
+        store.put(partition("q0"), offset("1"));
+        store.put(partition("q0"), offset("2"));
+        store.persist();
+
+        // Version 2 went to the first half of slot 0, break its crc.
+        try (RandomAccessFile file = new RandomAccessFile(STORE_PATH + ".slots", "rw")) {
+            file.seek(16 + 12);
+            file.writeInt(0);
+        }
+        assertThat(newStore().get(partition("q0"))).isEqualTo(offset("1"));
+    }
+
+    @Test
+    public void testLoadFromJsonFile() {
+        FileBaseKeyValueStore<String, String> fileStore = new FileBaseKeyValueStore<>(STORE_PATH,
+            new JsonConverter(String.class), new JsonConverter(String.class));
+        fileStore.put("key1", "value1");
+        fileStore.persist();
+
+        MappedKeyValueStore<String, String> store = new MappedKeyValueStore<>(STORE_PATH,
+            new JsonConverter(String.class), new JsonConverter(String.class), 128, true);
+        assertThat(store.load()).isTrue();
+        assertThat(store.get("key1")).isEqualTo("value1");
+    }
+}
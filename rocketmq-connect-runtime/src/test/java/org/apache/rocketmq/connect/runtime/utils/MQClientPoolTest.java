@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.rocketmq.connect.runtime.utils;
+
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import org.apache.rocketmq.common.protocol.body.ClusterInfo;
+import org.apache.rocketmq.common.protocol.route.BrokerData;
+import org.apache.rocketmq.common.subscription.SubscriptionGroupConfig;
+import org.apache.rocketmq.connect.runtime.config.ConnectConfig;
+import org.apache.rocketmq.tools.admin.DefaultMQAdminExt;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MQClientPoolTest {
+
+    private final MQClientPool mqClientPool = new MQClientPool();
+
+    @Test
+    public void testSameGroupTakesAnotherInstance() {
+        String first = mqClientPool.acquireInstance("key", "consumer:group-a");
+        String second = mqClientPool.acquireInstance("key", "consumer:group-a");
+        String third = mqClientPool.acquireInstance("key", "consumer:group-b");
+        assertThat(second).isNotEqualTo(first);
+        assertThat(third).isEqualTo(first);
+        assertThat(mqClientPool.instanceNums()).isEqualTo(2);
+
+        mqClientPool.releaseInstance("key", second, "consumer:group-a");
+        assertThat(mqClientPool.instanceNums()).isEqualTo(1);
+        mqClientPool.releaseInstance("key", first, "consumer:group-a");
+        mqClientPool.releaseInstance("key", third, "consumer:group-b");
+        assertThat(mqClientPool.instanceNums()).isEqualTo(0);
+    }
+
+    @Test
+    public void testProducerSharedPerNamesrvAndCredentials() {
+        ConnectConfig connectConfig = new ConnectConfig();
+        connectConfig.setNamesrvAddr("127.0.0.1:9876");
+        DefaultMQProducer producer = mqClientPool.acquireProducer(connectConfig);
+        assertThat(mqClientPool.acquireProducer(connectConfig)).isSameAs(producer);
+
+        ConnectConfig aclConfig = new ConnectConfig();
+        aclConfig.setNamesrvAddr("127.0.0.1:9876");
+        aclConfig.setAclEnable(true);
+        aclConfig.setAccessKey("ak");
+        aclConfig.setSecretKey("sk");
+        assertThat(mqClientPool.acquireProducer(aclConfig)).isNotSameAs(producer);
+
+        producer.shutdown();
+        producer.shutdown();
+        assertThat(mqClientPool.acquireProducer(connectConfig)).isNotSameAs(producer);
+    }
+
+    @Test
+    public void testSubGroupCreatedOnceUntilShutdown() throws Exception {
+        ConnectConfig connectConfig = new ConnectConfig();
+        connectConfig.setNamesrvAddr("127.0.0.1:9876");
+        DefaultMQAdminExt adminClient = mockAdminClient(connectConfig.getClusterName());
+        putAdminClient(connectConfig, adminClient);
+
+        mqClientPool.createSubGroup(connectConfig, "group-a");
+        mqClientPool.createSubGroup(connectConfig, "group-a");
+        verify(adminClient, times(1)).createAndUpdateSubscriptionGroupConfig(eq("127.0.0.1:10911"), any(SubscriptionGroupConfig.class));
+
+        mqClientPool.shutdown();
+        verify(adminClient).shutdown();
+        putAdminClient(connectConfig, adminClient);
+        mqClientPool.createSubGroup(connectConfig, "group-a");
+        verify(adminClient, times(2)).createAndUpdateSubscriptionGroupConfig(eq("127.0.0.1:10911"), any(SubscriptionGroupConfig.class));
+    }
+
+    private static DefaultMQAdminExt mockAdminClient(String clusterName) throws Exception {
+        HashMap<Long, String> brokerAddrs = new HashMap<>();
+        brokerAddrs.put(0L, "127.0.0.1:10911");
+        HashMap<String, BrokerData> brokerAddrTable = new HashMap<>();
+        brokerAddrTable.put("broker-a", new BrokerData(clusterName, "broker-a", brokerAddrs));
+        HashMap<String, Set<String>> clusterAddrTable = new HashMap<>();
+        clusterAddrTable.put(clusterName, Collections.singleton("broker-a"));
+        ClusterInfo clusterInfo = new ClusterInfo();
+        clusterInfo.setBrokerAddrTable(brokerAddrTable);
+        clusterInfo.setClusterAddrTable(clusterAddrTable);
+        DefaultMQAdminExt adminClient = mock(DefaultMQAdminExt.class);
+        when(adminClient.examineBrokerClusterInfo()).thenReturn(clusterInfo);
+        return adminClient;
+    }
+
+    private void putAdminClient(ConnectConfig connectConfig, DefaultMQAdminExt adminClient) throws Exception {
+        Field adminClientsField = MQClientPool.class.getDeclaredField("adminClients");
+        adminClientsField.setAccessible(true);
+        Map<String, DefaultMQAdminExt> adminClients = (Map<String, DefaultMQAdminExt>) adminClientsField.get(mqClientPool);
+        adminClients.put(MQClientPool.clientKey(connectConfig.getNamesrvAddr(), connectConfig), adminClient);
+    }
+}
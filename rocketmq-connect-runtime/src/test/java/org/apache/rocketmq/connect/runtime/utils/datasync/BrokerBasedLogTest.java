@@ -20,23 +20,31 @@ package org.apache.rocketmq.connect.runtime.utils.datasync;
 import io.openmessaging.connector.api.data.Converter;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
 import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
 import org.apache.rocketmq.client.exception.MQClientException;
 import org.apache.rocketmq.client.producer.DefaultMQProducer;
 import org.apache.rocketmq.client.producer.SendCallback;
 import org.apache.rocketmq.common.message.Message;
 import org.apache.rocketmq.connect.runtime.config.ConnectConfig;
+import org.apache.rocketmq.connect.runtime.converter.JsonConverter;
 import org.apache.rocketmq.remoting.exception.RemotingException;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import static org.apache.rocketmq.connect.runtime.config.RuntimeConfigDefine.MAX_MESSAGE_SIZE;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.verify;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -111,4 +119,57 @@ public class BrokerBasedLogTest {
         verify(producer, times(1)).send(any(Message.class), any(SendCallback.class));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testSendInBatches() throws Exception {
+        BrokerBasedLog<String, Map> log = newJsonLog(false);
+        Map<String, String> value = new HashMap<>();
+        StringBuilder entry = new StringBuilder();
+        for (int i = 0; i < MAX_MESSAGE_SIZE / 8; i++) {
+            entry.append('x');
+        }
+        for (int i = 0; i < 16; i++) {
+            value.put("key" + i, entry.toString() + i);
+        }
+
+        log.send("POSITION_CHANG_KEY", value);
+
+        ArgumentCaptor<Message> captor = ArgumentCaptor.forClass(Message.class);
+        verify(producer, atLeast(2)).send(captor.capture(), any(SendCallback.class));
+        Map<String, String> received = new HashMap<>();
+        for (Message message : captor.getAllValues()) {
+            assertThat(message.getBody().length).isLessThanOrEqualTo(MAX_MESSAGE_SIZE);
+            received.putAll((Map<String, String>) decode(log, message.getBody()).get("POSITION_CHANG_KEY"));
+        }
+        assertThat(received).isEqualTo(value);
+    }
+
+    @Test
+    public void testSendCompressed() throws Exception {
+        BrokerBasedLog<String, Map> log = newJsonLog(true);
+        Map<String, String> value = new HashMap<>();
+        value.put("key", "value");
+
+        log.send("POSITION_CHANG_KEY", value);
+
+        ArgumentCaptor<Message> captor = ArgumentCaptor.forClass(Message.class);
+        verify(producer, times(1)).send(captor.capture(), any(SendCallback.class));
+        assertThat(captor.getValue().getBody()[0]).isEqualTo((byte) 0xC6);
+        assertThat((Map<String, String>) decode(log, captor.getValue().getBody()).get("POSITION_CHANG_KEY")).isEqualTo(value);
+    }
+
+    private BrokerBasedLog<String, Map> newJsonLog(boolean compressEnable) throws Exception {
+        BrokerBasedLog<String, Map> log = new BrokerBasedLog<>(connectConfig, topicName, consumerGroup, dataSynchronizerCallback,
+            new JsonConverter(), new JsonConverter(), false, compressEnable);
+        final Field producerField = BrokerBasedLog.class.getDeclaredField("producer");
+        producerField.setAccessible(true);
+        producerField.set(log, producer);
+        return log;
+    }
+
+    private static Map<String, Map> decode(BrokerBasedLog<String, Map> log, byte[] body) throws Exception {
+        final Method decodeKeyValueMethod = BrokerBasedLog.class.getDeclaredMethod("decodeKeyValue", byte[].class);
+        decodeKeyValueMethod.setAccessible(true);
+        return (Map<String, Map>) decodeKeyValueMethod.invoke(log, body);
+    }
+
+}
@@ -38,6 +38,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -59,6 +62,14 @@ public class FileSourceTask extends SourceTask {
 
     private Long streamOffset;
 
+    /**
+     * Guards the reader and wakes a waiting poll on stop. A lock instead of a monitor, so a poll waiting for data does
+     * not pin the carrier thread when tasks run on virtual threads.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition stopCondition = lock.newCondition();
+
     private KeyValue config;
 
     @Override public List<ConnectRecord> poll() {
@@ -94,12 +105,13 @@ public class FileSourceTask extends SourceTask {
                 log.debug("Opened {} for reading", logFilename());
             } catch (NoSuchFileException e) {
                 log.warn("Couldn't find file {} for FileStreamSourceTask, sleeping to wait for it to be created", logFilename());
-                synchronized (this) {
-                    try {
-                        this.wait(1000);
-                    } catch (InterruptedException e1) {
-                        log.error("Interrupt error .", e1);
-                    }
+                lock.lock();
+                try {
+                    stopCondition.await(1000, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e1) {
+                    log.error("Interrupt error .", e1);
+                } finally {
+                    lock.unlock();
                 }
                 return null;
             } catch (IOException e) {
@@ -110,8 +122,11 @@ public class FileSourceTask extends SourceTask {
 
         try {
             final BufferedReader readerCopy;
-            synchronized (this) {
+            lock.lock();
+            try {
                 readerCopy = reader;
+            } finally {
+                lock.unlock();
             }
             if (readerCopy == null) {
                 return null;
@@ -158,8 +173,11 @@ public class FileSourceTask extends SourceTask {
             }
 
             if (nread <= 0) {
-                synchronized (this) {
-                    this.wait(1000);
+                lock.lock();
+                try {
+                    stopCondition.await(1000, TimeUnit.MILLISECONDS);
+                } finally {
+                    lock.unlock();
                 }
             }
 
@@ -224,7 +242,8 @@ public class FileSourceTask extends SourceTask {
 
     @Override public void stop() {
         log.trace("Stopping");
-        synchronized (this) {
+        lock.lock();
+        try {
             try {
                 if (stream != null && stream != System.in) {
                     stream.close();
@@ -233,7 +252,9 @@ public class FileSourceTask extends SourceTask {
             } catch (IOException e) {
                 log.error("Failed to close FileStreamSourceTask stream: ", e);
             }
-            this.notify();
+            stopCondition.signalAll();
+        } finally {
+            lock.unlock();
         }
     }
 